@@ -1,4 +1,4 @@
-import React, { useState, useRef, useEffect } from 'react';
+import React, { useState, useRef, useEffect, useCallback } from 'react';
 import Editor from '@monaco-editor/react';
 import './App.css';
 
@@ -35,21 +35,153 @@ public class Main {
   const [breakpoints, setBreakpoints] = useState<number[]>([]);
   const [debugStatus, setDebugStatus] = useState('');
   const editorRef = useRef<any>(null);
+  const monacoRef = useRef<any>(null);
+  const diagnosticsVersion = useRef(0);
+  const currentFileRef = useRef<string | null>(null);
+  const loadedContentRef = useRef<string | null>(null);
+  // 서버 버퍼 버전. null이면 다음 전송은 전체 내용이다
+  const fileVersionRef = useRef<number | null>(null);
+  // 불러온 파일의 ETag. 충돌 뒤 다시 불러왔음을 서버에 알릴 때 쓴다
+  const fileEtagRef = useRef<string | null>(null);
+  // 충돌을 받으면 다시 불러오거나 덮어쓰기를 고를 때까지 변경을 보내지 않는다
+  const conflictRef = useRef(false);
+  const forceNextRef = useRef(false);
+  const pendingEditsRef = useRef<any[]>([]);
+  const editInFlightRef = useRef(false);
+  const editTimerRef = useRef<ReturnType<typeof setTimeout> | null>(null);
+  const stompClientRef = useRef<ReturnType<typeof useWebSocket> | null>(null);
   const sessionId = useRef<string>(Math.random().toString(36).substring(7));
   const decorationsRef = useRef<string[]>([]);
 
-  useWebSocket({
+  const appendOutput = useCallback((chunk: string) => {
+    setOutput(prevOutput => prevOutput + chunk);
+  }, []);
+
+  const showDiagnostics = useCallback((frame: any) => {
+    // 더 최근 버전을 이미 보냈다면 오래된 결과는 무시
+    if (frame.superseded || frame.version !== diagnosticsVersion.current) return;
+    const model = editorRef.current?.getModel();
+    const monaco = monacoRef.current;
+    if (!model || !monaco) return;
+
+    const markers = (frame.diagnostics || []).map((diagnostic: any) => ({
+      startLineNumber: Math.max(diagnostic.line, 1),
+      startColumn: Math.max(diagnostic.column, 1),
+      endLineNumber: Math.max(diagnostic.line, 1),
+      endColumn: model.getLineMaxColumn(Math.min(Math.max(diagnostic.line, 1), model.getLineCount())),
+      message: diagnostic.message,
+      severity: diagnostic.severity === 'ERROR' ? monaco.MarkerSeverity.Error : monaco.MarkerSeverity.Warning,
+    }));
+    monaco.editor.setModelMarkers(model, 'javac', markers);
+  }, []);
+
+  // 변경분은 서버의 응답(ack)을 받을 때까지 모아 두었다가 한 번에 보낸다
+  const sendEdits = useCallback(() => {
+    const client = stompClientRef.current?.current;
+    const path = currentFileRef.current;
+    const model = editorRef.current?.getModel();
+    if (!client || !client.connected || !path || !model || editInFlightRef.current || conflictRef.current) return;
+    if (fileVersionRef.current !== null && pendingEditsRef.current.length === 0) return;
+
+    const body = fileVersionRef.current === null
+      ? { path, content: model.getValue(), etag: fileEtagRef.current, force: forceNextRef.current }
+      : { path, baseVersion: fileVersionRef.current, edits: pendingEditsRef.current };
+    pendingEditsRef.current = [];
+    forceNextRef.current = false;
+    editInFlightRef.current = true;
+    client.publish({
+      destination: '/app/file/edit',
+      headers: { 'session-id': sessionId.current },
+      body: JSON.stringify(body),
+    });
+  }, []);
+
+  // 다른 곳에서 바뀐 파일을 다시 불러올지, 편집 중인 내용으로 덮어쓸지 묻는다
+  const resolveConflict = useCallback(async (path: string) => {
+    const reload = window.confirm(`다른 곳에서 ${path} 파일이 변경되었습니다.\n`
+      + '확인을 누르면 디스크의 내용을 다시 불러오고, 취소를 누르면 편집 중인 내용으로 덮어씁니다.');
+    if (currentFileRef.current !== path) return;
+    fileVersionRef.current = null;
+    pendingEditsRef.current = [];
+    if (!reload) {
+      forceNextRef.current = true;
+      conflictRef.current = false;
+      sendEdits();
+      return;
+    }
+    try {
+      const { content, etag } = await api.getFileWithEtag(path);
+      if (currentFileRef.current !== path) return;
+      loadedContentRef.current = content;
+      fileEtagRef.current = etag;
+      conflictRef.current = false;
+      setCode(content);
+    } catch (err) {
+      setError('파일을 다시 불러오는데 실패했습니다.');
+      setShowErrorDialog(true);
+    }
+  }, [sendEdits]);
+
+  const handleFileEvent = useCallback((frame: any) => {
+    if (frame.path !== currentFileRef.current) return;
+    editInFlightRef.current = false;
+    if (frame.type === 'ack') {
+      fileVersionRef.current = frame.version;
+      sendEdits();
+    } else if (frame.type === 'resync') {
+      // 서버와 버전이 어긋나면 전체 내용으로 다시 맞춘다
+      fileVersionRef.current = null;
+      pendingEditsRef.current = [];
+      sendEdits();
+    } else if (frame.type === 'conflict') {
+      // 같은 충돌에 대한 응답이 여러 번 올 수 있으므로 한 번만 묻는다
+      if (conflictRef.current) return;
+      conflictRef.current = true;
+      pendingEditsRef.current = [];
+      resolveConflict(frame.path);
+    } else if (frame.type === 'error') {
+      console.error('파일 저장 실패:', frame.message);
+    }
+  }, [sendEdits, resolveConflict]);
+
+  const stompClient = useWebSocket({
     sessionId: sessionId.current,
     onOutput: setOutput,
+    onOutputChunk: appendOutput,
+    onDiagnostics: showDiagnostics,
+    onFileEvent: handleFileEvent,
     onDebugStatus: setDebugStatus,
     onError: setError,
     onShowError: () => setShowErrorDialog(true),
   });
+  stompClientRef.current = stompClient;
 
   useEffect(() => {
     loadFileTree();
   }, []);
 
+  useEffect(() => {
+    if (currentFileRef.current !== currentFile) {
+      currentFileRef.current = currentFile;
+      fileVersionRef.current = null;
+      fileEtagRef.current = null;
+      conflictRef.current = false;
+      pendingEditsRef.current = [];
+    }
+  }, [currentFile]);
+
+  // 입력할 때마다 보내고, 서버에서 디바운스와 이전 요청 취소를 처리한다
+  useEffect(() => {
+    const client = stompClient.current;
+    if (!client || !client.connected) return;
+    const version = ++diagnosticsVersion.current;
+    client.publish({
+      destination: '/app/diagnostics',
+      headers: { 'session-id': sessionId.current },
+      body: JSON.stringify({ code, sessionId: sessionId.current, version }),
+    });
+  }, [code, stompClient]);
+
   const loadFileTree = async () => {
     try {
       const data = await api.getFileTree();
@@ -61,7 +193,14 @@ public class Main {
 
   const handleFileSelect = async (path: string) => {
     try {
-      const content = await api.getFile(path);
+      const { content, etag } = await api.getFileWithEtag(path);
+      currentFileRef.current = path;
+      loadedContentRef.current = content;
+      fileVersionRef.current = null;
+      fileEtagRef.current = etag;
+      conflictRef.current = false;
+      pendingEditsRef.current = [];
+      editInFlightRef.current = false;
       setCode(content);
       setCurrentFile(path);
     } catch (err) {
@@ -200,6 +339,7 @@ public class Main {
               }}
               onMount={(editor, monaco) => {
                 editorRef.current = editor;
+                monacoRef.current = monaco;
                 
                 const updateBreakpointDecorations = (lines: number[]) => {
                   if (!editorRef.current) return;
@@ -240,7 +380,18 @@ public class Main {
                   updateBreakpointDecorations(breakpoints);
                 }
 
-                editor.onDidChangeModelContent(() => {
+                editor.onDidChangeModelContent((event) => {
+                  // 파일을 막 불러와 내용이 같으면 보낼 것이 없다
+                  if (currentFileRef.current && !(fileVersionRef.current === null
+                      && editor.getValue() === loadedContentRef.current)) {
+                    pendingEditsRef.current.push(...event.changes.map(change => ({
+                      offset: change.rangeOffset,
+                      length: change.rangeLength,
+                      text: change.text,
+                    })));
+                    if (editTimerRef.current) clearTimeout(editTimerRef.current);
+                    editTimerRef.current = setTimeout(sendEdits, 300);
+                  }
                   if (breakpoints.length > 0) {
                     updateBreakpointDecorations(breakpoints);
                   }
@@ -1,11 +1,36 @@
-import React, { useState } from 'react';
-import { FileTreeNodeProps } from '../types';
+import React, { useEffect, useState } from 'react';
+import { FileNode, FileTreeNodeProps } from '../types';
+import { api } from '../services/api';
 
 const FileTreeNode: React.FC<FileTreeNodeProps> = ({ node, onFileSelect }) => {
   const [isExpanded, setIsExpanded] = useState(false);
+  const [children, setChildren] = useState<FileNode[] | undefined>(node.children);
+  const [hasMore, setHasMore] = useState(!!node.hasMore);
+
+  // 상위에서 트리를 다시 불러오면 새 목록으로 바꾼다
+  useEffect(() => {
+    if (node.children) {
+      setChildren(node.children);
+      setHasMore(!!node.hasMore);
+    }
+  }, [node.children, node.hasMore]);
+
+  // 하위 디렉토리는 처음 펼칠 때 한 단계씩 불러온다
+  const loadChildren = async (offset: number) => {
+    try {
+      const data = await api.getFileTree(node.path, offset);
+      setChildren(prevChildren => offset === 0 ? (data.children || []) : [...(prevChildren || []), ...(data.children || [])]);
+      setHasMore(!!data.hasMore);
+    } catch (err) {
+      console.error('디렉토리 로딩 실패:', err);
+    }
+  };
 
   const handleClick = () => {
     if (node.type === 'directory') {
+      if (!isExpanded && children === undefined) {
+        loadChildren(0);
+      }
       setIsExpanded(!isExpanded);
     } else {
       onFileSelect(node.path);
@@ -21,15 +46,20 @@ const FileTreeNode: React.FC<FileTreeNodeProps> = ({ node, onFileSelect }) => {
         {node.type === 'file' && <span className="file-icon">📄</span>}
         <span className="file-name">{node.name}</span>
       </div>
-      {node.type === 'directory' && isExpanded && node.children && (
+      {node.type === 'directory' && isExpanded && children && (
         <div className="file-tree-children">
-          {node.children.map((child) => (
+          {children.map((child) => (
             <FileTreeNode key={child.path} node={child} onFileSelect={onFileSelect} />
           ))}
+          {hasMore && (
+            <div className="file-tree-item" onClick={() => loadChildren(children.length)}>
+              <span className="file-name">더 보기...</span>
+            </div>
+          )}
         </div>
       )}
     </div>
   );
 };
 
-export default FileTreeNode; 
\ No newline at end of file
+export default FileTreeNode;
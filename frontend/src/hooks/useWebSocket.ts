@@ -6,6 +6,9 @@ import { WebSocketMessage } from '../types';
 interface WebSocketHookProps {
   sessionId: string;
   onOutput: (output: string) => void;
+  onOutputChunk?: (chunk: string) => void;
+  onDiagnostics?: (frame: any) => void;
+  onFileEvent?: (frame: any) => void;
   onDebugStatus: (status: string) => void;
   onError: (error: string) => void;
   onShowError: () => void;
@@ -14,6 +17,9 @@ interface WebSocketHookProps {
 export const useWebSocket = ({
   sessionId,
   onOutput,
+  onOutputChunk,
+  onDiagnostics,
+  onFileEvent,
   onDebugStatus,
   onError,
   onShowError,
@@ -28,13 +34,59 @@ export const useWebSocket = ({
         console.log('WebSocket 연결됨');
         
         client.subscribe(`/topic/output/${sessionId}`, (message: WebSocketMessage) => {
+          try {
+            const frame = JSON.parse(message.body);
+            if (frame.type === 'output') {
+              onOutputChunk?.(frame.data);
+              return;
+            }
+            if (frame.type === 'queued') {
+              onDebugStatus(`실행 대기 중 (대기 순번 ${frame.position})`);
+              return;
+            }
+            if (frame.type === 'exit') {
+              // 최종 결과는 실행 요청의 응답으로 받는다
+              return;
+            }
+          } catch (e) {
+            // 스트리밍 프레임이 아닌 메시지는 그대로 표시
+          }
           onOutput(message.body);
         });
 
         client.subscribe(`/topic/debug/${sessionId}`, (message: WebSocketMessage) => {
+          try {
+            const event = JSON.parse(message.body);
+            if (event.status) {
+              const location = event.line ? ` (라인 ${event.line})` : '';
+              const variables = (event.variables || [])
+                .map((variable: any) => `${variable.name} = ${variable.value}`)
+                .join(', ');
+              onDebugStatus(`${event.status}${location}${variables ? `\n${variables}` : ''}`);
+              return;
+            }
+          } catch (e) {
+            // 구조화되지 않은 상태 메시지는 그대로 표시
+          }
           onDebugStatus(message.body);
         });
         
+        client.subscribe(`/topic/diagnostics/${sessionId}`, (message: WebSocketMessage) => {
+          try {
+            onDiagnostics?.(JSON.parse(message.body));
+          } catch (e) {
+            console.error('진단 메시지 파싱 실패:', e);
+          }
+        });
+
+        client.subscribe(`/topic/file/${sessionId}`, (message: WebSocketMessage) => {
+          try {
+            onFileEvent?.(JSON.parse(message.body));
+          } catch (e) {
+            console.error('파일 메시지 파싱 실패:', e);
+          }
+        });
+
         client.subscribe(`/topic/error/${sessionId}`, (message: WebSocketMessage) => {
           try {
             const errorData = JSON.parse(message.body);
@@ -64,7 +116,7 @@ export const useWebSocket = ({
         stompClient.current.deactivate();
       }
     };
-  }, [sessionId, onOutput, onDebugStatus, onError, onShowError]);
+  }, [sessionId, onOutput, onOutputChunk, onDiagnostics, onFileEvent, onDebugStatus, onError, onShowError]);
 
   return stompClient;
 }; 
\ No newline at end of file
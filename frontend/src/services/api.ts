@@ -4,8 +4,10 @@ import { FileNode, ApiResponse } from '../types';
 const BASE_URL = 'http://localhost:8080/api';
 
 export const api = {
-  getFileTree: async (): Promise<FileNode> => {
-    const response = await axios.get<FileNode>(`${BASE_URL}/files`);
+  getFileTree: async (path: string = '', offset: number = 0): Promise<FileNode> => {
+    const response = await axios.get<FileNode>(`${BASE_URL}/files`, {
+      params: { path, offset }
+    });
     return response.data;
   },
 
@@ -16,8 +18,19 @@ export const api = {
     return response.data;
   },
 
+  // 편집 버퍼를 디스크 내용으로 다시 맞출 때 쓰도록 ETag도 함께 돌려준다
+  getFileWithEtag: async (path: string): Promise<{ content: string; etag: string | null }> => {
+    const response = await axios.get<string>(`${BASE_URL}/file`, {
+      params: { path }
+    });
+    return { content: response.data, etag: (response.headers['etag'] as string | undefined) ?? null };
+  },
+
   saveFile: async (path: string, content: string): Promise<void> => {
-    await axios.post(`${BASE_URL}/save`, { path, content });
+    await axios.put(`${BASE_URL}/file`, content, {
+      params: { path },
+      headers: { 'Content-Type': 'text/plain;charset=UTF-8' }
+    });
   },
 
   executeCode: async (code: string, sessionId: string): Promise<ApiResponse> => {
@@ -3,6 +3,8 @@ export interface FileNode {
   type: 'file' | 'directory';
   children?: FileNode[];
   path: string;
+  childCount?: number;
+  hasMore?: boolean;
 }
 
 export interface CompileError {
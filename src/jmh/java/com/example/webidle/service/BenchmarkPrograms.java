@@ -0,0 +1,68 @@
+package com.example.webidle.service;
+
+/**
+ * 벤치마크에서 쓰는 대표 프로그램. 모두 클래스 이름이 Main이고 표준 출력에 아무것도 쓰지 않는다.
+ */
+final class BenchmarkPrograms {
+    private BenchmarkPrograms() {
+    }
+
+    static String source(String name) {
+        switch (name) {
+            case "hello":
+                return "public class Main {\n"
+                    + "    public static void main(String[] args) {\n"
+                    + "        String greeting = \"Hello, \" + args.length;\n"
+                    + "        if (greeting.isEmpty()) System.out.println(greeting);\n"
+                    + "    }\n"
+                    + "}\n";
+            case "collections":
+                return "import java.util.*;\n"
+                    + "import java.util.stream.*;\n"
+                    + "\n"
+                    + "public class Main {\n"
+                    + "    public static void main(String[] args) {\n"
+                    + "        Map<String, List<Integer>> groups = new TreeMap<>();\n"
+                    + "        for (int i = 0; i < 1000; i++) {\n"
+                    + "            groups.computeIfAbsent(\"g\" + (i % 7), k -> new ArrayList<>()).add(i);\n"
+                    + "        }\n"
+                    + "        String summary = groups.entrySet().stream()\n"
+                    + "            .map(e -> e.getKey() + \"=\" + e.getValue().stream().mapToInt(Integer::intValue).sum())\n"
+                    + "            .collect(Collectors.joining(\",\"));\n"
+                    + "        if (summary.isEmpty()) System.out.println(summary);\n"
+                    + "    }\n"
+                    + "}\n";
+            case "generics":
+                return "import java.util.*;\n"
+                    + "import java.util.function.*;\n"
+                    + "\n"
+                    + "public class Main {\n"
+                    + "    interface Shape { double area(); }\n"
+                    + "    record Circle(double r) implements Shape { public double area() { return Math.PI * r * r; } }\n"
+                    + "    record Rect(double w, double h) implements Shape { public double area() { return w * h; } }\n"
+                    + "\n"
+                    + "    static <T extends Comparable<? super T>> T max(Collection<? extends T> items) {\n"
+                    + "        Iterator<? extends T> it = items.iterator();\n"
+                    + "        T best = it.next();\n"
+                    + "        while (it.hasNext()) { T next = it.next(); if (next.compareTo(best) > 0) best = next; }\n"
+                    + "        return best;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    static <A, B, C> Function<A, C> compose(Function<A, B> f, Function<B, C> g) {\n"
+                    + "        return a -> g.apply(f.apply(a));\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    public static void main(String[] args) {\n"
+                    + "        List<Shape> shapes = List.of(new Circle(1), new Rect(2, 3), new Circle(2.5));\n"
+                    + "        List<Double> areas = new ArrayList<>();\n"
+                    + "        for (Shape s : shapes) areas.add(s.area());\n"
+                    + "        Function<Double, String> format = compose(d -> Math.round(d * 100) / 100.0, String::valueOf);\n"
+                    + "        String largest = format.apply(max(areas));\n"
+                    + "        if (largest.isEmpty()) System.out.println(largest);\n"
+                    + "    }\n"
+                    + "}\n";
+            default:
+                throw new IllegalArgumentException("알 수 없는 벤치마크 프로그램: " + name);
+        }
+    }
+}
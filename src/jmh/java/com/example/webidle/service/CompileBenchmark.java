@@ -0,0 +1,73 @@
+package com.example.webidle.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 코드 실행 요청의 컴파일 단계를 잰다.
+ * <ul>
+ *   <li>cold: 컴파일러 컨텍스트를 새로 만들어 컴파일한다. 서버를 띄운 뒤 첫 요청에 해당한다.</li>
+ *   <li>warm: 풀에 있는 컨텍스트를 재사용해 컴파일한다.</li>
+ *   <li>cached: 같은 코드가 다시 들어와 컴파일 캐시에서 클래스를 꺼내는 경우다(키 계산 포함).</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CompileBenchmark {
+    private static final List<String> OPTIONS = List.of("-g");
+
+    @Param({"hello", "collections", "generics"})
+    public String program;
+
+    private String code;
+    private JavaSourceCompiler compiler;
+    private CompilationCache cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        code = BenchmarkPrograms.source(program);
+        compiler = new JavaSourceCompiler(1, 60_000);
+        cache = new CompilationCache(256, 64L * 1024 * 1024, "", 0);
+        CompilationResult result = compiler.compile("Main", code, OPTIONS, Collections.emptyList());
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("벤치마크 프로그램 컴파일 실패: " + result.getDiagnostics());
+        }
+        cache.put(cache.key("Main", code, OPTIONS, Collections.emptyList()), result.getClasses());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        compiler.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public CompilationResult cold() {
+        JavaSourceCompiler coldCompiler = new JavaSourceCompiler(1, 60_000);
+        try {
+            return coldCompiler.compile("Main", code, OPTIONS, Collections.emptyList());
+        } finally {
+            coldCompiler.shutdown();
+        }
+    }
+
+    @Benchmark
+    public CompilationResult warm() {
+        return compiler.compile("Main", code, OPTIONS, Collections.emptyList());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, byte[]> cached() {
+        return cache.get(cache.key("Main", code, OPTIONS, Collections.emptyList()));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * {@code // @maven} 의존성 처리 비용을 잰다. 네트워크 편차를 빼기 위해 임시 디렉토리에 만든
+ * file:// 저장소에서 해결한다. bench:app은 bench:util을, bench:util은 bench:core를 의존한다.
+ * <ul>
+ *   <li>cold: 빈 로컬 저장소에서 시작해 file 저장소에서 받아 온다.</li>
+ *   <li>localRepository: 로컬 저장소에는 이미 있지만 해결 결과 캐시는 비어 있는 경우다(서버 재시작 직후).</li>
+ *   <li>cached: 같은 좌표를 다시 해결해 결과 캐시에서 꺼낸다.</li>
+ *   <li>extract: 소스에서 좌표를 뽑아내는 정규식 처리만 잰다.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class DependencyBenchmark {
+    private static final List<String> COORDINATES = List.of("bench:app:1.0");
+
+    private static final String SOURCE = "// @maven bench:app:1.0\n"
+        + "// @maven bench:util:1.0\n"
+        + "//   @maven   bench:core:1.0\n"
+        + "import java.util.*;\n\n"
+        + "public class Main {\n"
+        + "    // 주석 안의 @maven이 아닌 줄은 무시된다\n"
+        + "    public static void main(String[] args) {\n"
+        + "        List<String> names = new ArrayList<>(List.of(\"a\", \"b\", \"c\"));\n"
+        + "        Collections.reverse(names);\n"
+        + "        System.out.println(names);\n"
+        + "    }\n"
+        + "}\n";
+
+    private Path workDirectory;
+    private String repositoryUrl;
+    private Path populatedLocalRepository;
+    private MavenDependencyResolver cachedResolver;
+    private MavenDependencyResolver invocationResolver;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = Files.createTempDirectory("webidle-jmh-maven");
+        Path repository = workDirectory.resolve("repo");
+        writeArtifact(repository, "core", null);
+        writeArtifact(repository, "util", "core");
+        writeArtifact(repository, "app", "util");
+        repositoryUrl = repository.toUri().toString();
+
+        populatedLocalRepository = workDirectory.resolve("local-populated");
+        cachedResolver = newResolver(populatedLocalRepository);
+        List<File> jars = cachedResolver.resolve(COORDINATES);
+        if (jars.size() != 3) {
+            throw new IllegalStateException("벤치마크 저장소 해결 결과가 예상과 다릅니다: " + jars);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cachedResolver.shutdown();
+        CodeExecutionService.deleteRecursively(workDirectory);
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyLocalRepository {
+        Path directory;
+        MavenDependencyResolver resolver;
+
+        @Setup(Level.Invocation)
+        public void setUp(DependencyBenchmark benchmark) throws IOException {
+            directory = Files.createTempDirectory(benchmark.workDirectory, "local-empty");
+            resolver = benchmark.newResolver(directory);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            resolver.shutdown();
+            CodeExecutionService.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PopulatedLocalRepository {
+        MavenDependencyResolver resolver;
+
+        @Setup(Level.Invocation)
+        public void setUp(DependencyBenchmark benchmark) {
+            resolver = benchmark.newResolver(benchmark.populatedLocalRepository);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            resolver.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<File> cold(EmptyLocalRepository state) {
+        return state.resolver.resolve(COORDINATES);
+    }
+
+    @Benchmark
+    public List<File> localRepository(PopulatedLocalRepository state) {
+        return state.resolver.resolve(COORDINATES);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<File> cached() {
+        return cachedResolver.resolve(COORDINATES);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<String> extract() {
+        return CodeExecutionService.extractMavenDependencies(SOURCE);
+    }
+
+    private MavenDependencyResolver newResolver(Path localRepository) {
+        return new MavenDependencyResolver(3_600_000L, 128, 2, 120_000L, localRepository.toString(),
+            List.of("bench::" + repositoryUrl), false, null, false, new SimpleMeterRegistry());
+    }
+
+    private static void writeArtifact(Path repository, String artifactId, String dependency) throws IOException {
+        Path directory = repository.resolve("bench").resolve(artifactId).resolve("1.0");
+        Files.createDirectories(directory);
+        String dependencies = dependency == null ? "" : "  <dependencies>\n"
+            + "    <dependency><groupId>bench</groupId><artifactId>" + dependency
+            + "</artifactId><version>1.0</version></dependency>\n"
+            + "  </dependencies>\n";
+        String pom = "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+            + "  <modelVersion>4.0.0</modelVersion>\n"
+            + "  <groupId>bench</groupId><artifactId>" + artifactId + "</artifactId><version>1.0</version>\n"
+            + dependencies
+            + "</project>\n";
+        Files.writeString(directory.resolve(artifactId + "-1.0.pom"), pom, StandardCharsets.UTF_8);
+        try (OutputStream out = Files.newOutputStream(directory.resolve(artifactId + "-1.0.jar"));
+             JarOutputStream jar = new JarOutputStream(out)) {
+            jar.putNextEntry(new ZipEntry("bench/" + artifactId + ".txt"));
+            jar.write(artifactId.getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+    }
+}
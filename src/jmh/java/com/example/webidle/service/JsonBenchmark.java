@@ -0,0 +1,119 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.CompileError;
+import com.example.webidle.model.ExecutionResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실행 응답 JSON 직렬화 비용을 잰다. 응답은 실행 결과와 컴파일 오류 응답과 같은 모양으로 만든다.
+ * newMapper는 응답마다 ObjectMapper를 새로 만드는 경우이고, sharedMapper와 sharedWriter는
+ * 한 번 만든 인스턴스를 재사용하는 경우다. shape가 map이면 예전처럼 HashMap을, record이면
+ * 서비스가 돌려주는 {@link ExecutionResult}를 직렬화한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonBenchmark {
+    @Param({"execution", "compileErrors"})
+    public String response;
+
+    @Param({"64", "65536"})
+    public int outputChars;
+
+    @Param({"map", "record"})
+    public String shape;
+
+    private Object body;
+    private ObjectMapper sharedMapper;
+    private ObjectWriter sharedWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("record".equals(shape)) {
+            body = "execution".equals(response) ? executionResult() : compileErrorResult();
+        } else {
+            body = "execution".equals(response) ? executionResponse() : compileErrorResponse();
+        }
+        sharedMapper = new ObjectMapper();
+        sharedWriter = sharedMapper.writer();
+    }
+
+    @Benchmark
+    public String newMapper() throws Exception {
+        return new ObjectMapper().writeValueAsString(body);
+    }
+
+    @Benchmark
+    public String sharedMapper() throws Exception {
+        return sharedMapper.writeValueAsString(body);
+    }
+
+    @Benchmark
+    public byte[] sharedWriter() throws Exception {
+        return sharedWriter.writeValueAsBytes(body);
+    }
+
+    private ExecutionResult executionResult() {
+        return ExecutionResult.success(output(), 0, timings(), null);
+    }
+
+    private ExecutionResult compileErrorResult() {
+        List<CompileError> errors = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, outputChars / 80); i++) {
+            errors.add(new CompileError(null, 10L + i, 17L,
+                "cannot find symbol\n  symbol:   variable value" + i + "\n  location: class Main"));
+        }
+        return ExecutionResult.compileFailure(errors);
+    }
+
+    private Map<String, Object> executionResponse() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("output", output());
+        result.put("exitCode", 0);
+        result.put("timings", timings());
+        return result;
+    }
+
+    private String output() {
+        StringBuilder output = new StringBuilder(outputChars);
+        for (int line = 0; output.length() < outputChars; line++) {
+            output.append("line ").append(line).append(": 출력 \"quoted\"\tvalue\n");
+        }
+        output.setLength(outputChars);
+        return output.toString();
+    }
+
+    private Map<String, Object> timings() {
+        Map<String, Object> timings = new LinkedHashMap<>();
+        timings.put("queueMillis", 1L);
+        timings.put("resolveMillis", 0L);
+        timings.put("compileMillis", 142L);
+        timings.put("spawnMillis", 0L);
+        timings.put("runMillis", 37L);
+        timings.put("totalMillis", 181L);
+        return timings;
+    }
+
+    private Map<String, Object> compileErrorResponse() {
+        // 오류 메시지 하나가 대략 80자이므로 출력 크기에 맞춰 오류 수를 정한다
+        List<Map<String, Object>> errors = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, outputChars / 80); i++) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("line", 10L + i);
+            error.put("column", 17L);
+            error.put("message", "cannot find symbol\n  symbol:   variable value" + i + "\n  location: class Main");
+            errors.add(error);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("error", "컴파일 오류");
+        result.put("details", errors);
+        return result;
+    }
+}
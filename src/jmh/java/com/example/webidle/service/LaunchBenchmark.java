@@ -0,0 +1,126 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 컴파일된 프로그램을 실행하는 방식별 비용을 잰다.
+ * <ul>
+ *   <li>fork: 실행마다 새 JVM을 띄운다. 러너 풀을 쓸 수 없을 때의 경로다.</li>
+ *   <li>pooledRunner: 미리 띄워 둔 러너 JVM에 클래스를 보내 실행한다.</li>
+ *   <li>inProcess: 서버 JVM 안에서 클래스 로더로 바로 실행한다. 격리가 없어 실제로는 쓸 수 없지만
+ *       프로세스 경계를 넘는 비용의 하한으로 비교한다.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LaunchBenchmark {
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final ExecutionBudget BUDGET = new ExecutionBudget(TIMEOUT_MILLIS, 0, 0);
+    // 러너는 같은 owner의 실행에만 다시 쓰이므로 모든 반복을 한 owner로 보낸다
+    private static final String OWNER = "benchmark";
+
+    private Map<String, byte[]> classes;
+    private Path classDirectory;
+    private RunnerPool runnerPool;
+    private ProcessWatchdog processWatchdog;
+    private JavaSourceCompiler compiler;
+    private MavenDependencyResolver resolver;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        compiler = new JavaSourceCompiler(1, 60_000);
+        CompilationResult result = compiler.compile("Main", BenchmarkPrograms.source("collections"),
+            List.of("-g"), Collections.emptyList());
+        classes = result.getClasses();
+        classDirectory = Files.createTempDirectory("webidle-jmh-launch");
+        result.writeTo(classDirectory);
+
+        // 러너 기동 옵션별 차이는 RunnerStartupBenchmark에서 재고, 여기서는 아카이브 없이 띄운다
+        resolver = new MavenDependencyResolver(3_600_000L, 16, 1, 120_000L, classDirectory.resolve("m2").toString(),
+            List.of(), true, null, false, new SimpleMeterRegistry());
+        RunnerLaunchProfile launchProfile = new RunnerLaunchProfile(List.of(), false,
+            classDirectory.resolve("cds").toString(), false, 0, compiler, resolver);
+        // 러너를 재활용하는 비용만 재도록 교체 주기는 충분히 길게 둔다
+        processWatchdog = new ProcessWatchdog(TIMEOUT_MILLIS, 0, 0, 50, new SimpleMeterRegistry());
+        runnerPool = new RunnerPool(true, 1, Integer.MAX_VALUE, TIMEOUT_MILLIS, 60_000, new SimpleMeterRegistry(),
+            launchProfile, new CgroupManager(false, "", 0, 100_000, 0, 0, 0), processWatchdog);
+        if (runnerPool.run(OWNER, classes, Collections.emptyList(), "Main", BUDGET, newOutput()) == null) {
+            throw new IllegalStateException("러너 풀을 시작하지 못했습니다");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        runnerPool.shutdown();
+        processWatchdog.shutdown();
+        resolver.shutdown();
+        compiler.shutdown();
+        CodeExecutionService.deleteRecursively(classDirectory);
+    }
+
+    @Benchmark
+    public int fork() throws Exception {
+        ProcessBuilder processBuilder = new ProcessBuilder("java", "-Dfile.encoding=UTF-8", "-cp",
+            classDirectory.toAbsolutePath().toString(), "Main");
+        processBuilder.redirectErrorStream(true);
+        Process process = processBuilder.start();
+        ProgramOutput output = newOutput();
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                output.write(buffer, 0, bytesRead);
+            }
+        }
+        if (!process.waitFor(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("실행 시간 초과");
+        }
+        return process.exitValue();
+    }
+
+    @Benchmark
+    public int pooledRunner() throws Exception {
+        RunnerPool.RunResult result = runnerPool.run(OWNER, classes, Collections.emptyList(), "Main", BUDGET,
+            newOutput());
+        if (result == null) {
+            throw new IllegalStateException("사용 가능한 러너가 없습니다");
+        }
+        return result.getExitCode();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object inProcess() throws Exception {
+        ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        Method main = loader.loadClass("Main").getMethod("main", String[].class);
+        main.invoke(null, (Object) new String[0]);
+        return main;
+    }
+
+    private static ProgramOutput newOutput() {
+        return new ProgramOutput(null, null, 4096, 64 * 1024, () -> false);
+    }
+}
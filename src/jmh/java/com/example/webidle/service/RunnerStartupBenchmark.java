@@ -0,0 +1,94 @@
+package com.example.webidle.service;
+
+import com.example.webidle.runner.RunnerMain;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 러너 JVM을 띄워 첫 프로그램을 실행하고 끝낼 때까지의 시간을 기동 옵션별로 잰다.
+ * <ul>
+ *   <li>default: 옵션 없이 띄운다(이전 방식).</li>
+ *   <li>tuned: webidle.runner.jvm-options 기본값만 붙인다.</li>
+ *   <li>tuned-cds: 기본 옵션에 러너 CDS 아카이브를 붙인다.</li>
+ * </ul>
+ * 네트워크 없이 돌도록 아카이브에는 JDK 클래스만 담는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 30)
+public class RunnerStartupBenchmark {
+    private static final List<String> DEFAULT_OPTIONS =
+        List.of("-XX:+UseSerialGC", "-XX:TieredStopAtLevel=1", "-Xms16m", "-Xmx256m", "-XX:-UsePerfData");
+
+    @Param({"default", "tuned", "tuned-cds"})
+    public String profile;
+
+    @Param({"hello", "collections"})
+    public String program;
+
+    private Path cdsDirectory;
+    private JavaSourceCompiler compiler;
+    private MavenDependencyResolver resolver;
+    private Map<String, byte[]> classes;
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cdsDirectory = Files.createTempDirectory("webidle-jmh-cds");
+        compiler = new JavaSourceCompiler(1, 60_000);
+        resolver = new MavenDependencyResolver(3_600_000L, 16, 1, 120_000L, cdsDirectory.resolve("m2").toString(),
+            List.of(), true, null, false, new SimpleMeterRegistry());
+        RunnerLaunchProfile launchProfile = new RunnerLaunchProfile(DEFAULT_OPTIONS, true, cdsDirectory.toString(),
+            false, 0, compiler, resolver);
+
+        classes = compiler.compile("Main", BenchmarkPrograms.source(program), List.of("-g"), Collections.emptyList())
+            .getClasses();
+        switch (profile) {
+            case "default":
+                command = List.of("java", "-Dfile.encoding=UTF-8", "-cp",
+                    launchProfile.prepareRunnerJar().toString(), RunnerMain.class.getName());
+                break;
+            case "tuned":
+                command = launchProfile.runnerCommand(false);
+                break;
+            default:
+                if (!launchProfile.buildArchive()) {
+                    throw new IllegalStateException("CDS 아카이브를 만들지 못했습니다: " + launchProfile.getStats());
+                }
+                command = launchProfile.runnerCommand(true);
+                break;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        compiler.shutdown();
+        resolver.shutdown();
+        CodeExecutionService.deleteRecursively(cdsDirectory);
+    }
+
+    @Benchmark
+    public int startAndRun() throws Exception {
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            int exitCode = RunnerLaunchProfile.runOnce(process, classes, Collections.emptyList(), "Main",
+                OutputStream.nullOutputStream());
+            process.getOutputStream().close();
+            process.waitFor();
+            return exitCode;
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.webidle.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 부하 테스트에서 보내는 프로그램과 그 기대 결과.
+ * 기대 결과와 다르게 끝난 요청만 오류로 센다. 예를 들어 compile-error 프로그램은 컴파일 오류가 나야 정상이다.
+ */
+enum LoadTestProgram {
+    HELLO("hello", "success",
+        "public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        System.out.println(\"Hello, WebIDE\");\n"
+            + "    }\n"
+            + "}\n"),
+    CPU("cpu", "success",
+        "public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        int count = 0;\n"
+            + "        for (int n = 2; n < 200000; n++) {\n"
+            + "            boolean prime = true;\n"
+            + "            for (int d = 2; (long) d * d <= n; d++) {\n"
+            + "                if (n % d == 0) { prime = false; break; }\n"
+            + "            }\n"
+            + "            if (prime) count++;\n"
+            + "        }\n"
+            + "        System.out.println(\"primes: \" + count);\n"
+            + "    }\n"
+            + "}\n"),
+    OUTPUT("output", "success",
+        "public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        for (int i = 0; i < 2000; i++) {\n"
+            + "            System.out.println(\"line \" + i + \": 출력 테스트\");\n"
+            + "        }\n"
+            + "    }\n"
+            + "}\n"),
+    ALLOC("alloc", "success",
+        "import java.util.*;\n"
+            + "\n"
+            + "public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        List<int[]> chunks = new ArrayList<>();\n"
+            + "        for (int i = 0; i < 64; i++) {\n"
+            + "            chunks.add(new int[256 * 1024]);\n"
+            + "        }\n"
+            + "        System.out.println(\"chunks: \" + chunks.size());\n"
+            + "    }\n"
+            + "}\n"),
+    COMPILE_ERROR("compile-error", "compile_error",
+        "public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        int value = undefinedVariable + 1\n"
+            + "    }\n"
+            + "}\n");
+
+    private final String name;
+    private final String expectedOutcome;
+    private final String source;
+
+    LoadTestProgram(String name, String expectedOutcome, String source) {
+        this.name = name;
+        this.expectedOutcome = expectedOutcome;
+        this.source = source;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getExpectedOutcome() {
+        return expectedOutcome;
+    }
+
+    /**
+     * 보낼 소스를 만든다. unique이면 요청마다 주석을 달아 컴파일 캐시에 걸리지 않게 한다.
+     * 편집기에서 코드를 고친 뒤 실행하는 실제 사용 패턴에 가깝다.
+     */
+    String source(boolean unique, long sequence) {
+        return unique ? source + "// load " + sequence + "\n" : source;
+    }
+
+    static LoadTestProgram byName(String name) {
+        for (LoadTestProgram program : values()) {
+            if (program.name.equals(name)) {
+                return program;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 프로그램: " + name);
+    }
+
+    /**
+     * {@code hello=6,cpu=2,compile-error=1} 형식의 가중치 목록으로 프로그램을 고른다.
+     */
+    static class Mix {
+        private final Map<LoadTestProgram, Integer> weights = new LinkedHashMap<>();
+        private final List<LoadTestProgram> programs = new ArrayList<>();
+        private final int[] cumulative;
+        private final int total;
+
+        Mix(String definition) {
+            for (String entry : definition.split(",")) {
+                String trimmed = entry.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int separator = trimmed.indexOf('=');
+                LoadTestProgram program = byName(separator < 0 ? trimmed : trimmed.substring(0, separator));
+                int weight = separator < 0 ? 1 : Integer.parseInt(trimmed.substring(separator + 1));
+                if (weight > 0) {
+                    weights.merge(program, weight, Integer::sum);
+                }
+            }
+            if (weights.isEmpty()) {
+                throw new IllegalArgumentException("프로그램 구성이 비어 있습니다: " + definition);
+            }
+            cumulative = new int[weights.size()];
+            int sum = 0;
+            for (Map.Entry<LoadTestProgram, Integer> entry : weights.entrySet()) {
+                sum += entry.getValue();
+                cumulative[programs.size()] = sum;
+                programs.add(entry.getKey());
+            }
+            total = sum;
+        }
+
+        LoadTestProgram next() {
+            int pick = ThreadLocalRandom.current().nextInt(total);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (pick < cumulative[i]) {
+                    return programs.get(i);
+                }
+            }
+            return programs.get(programs.size() - 1);
+        }
+
+        Map<String, Integer> describe() {
+            Map<String, Integer> description = new LinkedHashMap<>();
+            weights.forEach((program, weight) -> description.put(program.name, weight));
+            return description;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.webidle.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청별 결과와 서버 상태 표본을 모아 처리량, 지연 시간 분포, 오류율을 계산한다.
+ * 지연 시간은 실행 요청을 보낸 시점부터 종료(또는 오류) 메시지를 받은 시점까지다.
+ */
+class LoadTestReport {
+    private final long startNanos = System.nanoTime();
+    private final List<Result> results = new ArrayList<>();
+    private final List<Map<String, Object>> serverSamples = new ArrayList<>();
+    private final Map<String, Object> settings;
+    private int failedConnections;
+    private long endNanos;
+
+    LoadTestReport(Map<String, Object> settings) {
+        this.settings = settings;
+    }
+
+    synchronized void record(LoadTestProgram program, String outcome, long latencyNanos) {
+        results.add(new Result(program, outcome, latencyNanos, System.nanoTime() - startNanos));
+    }
+
+    synchronized void connectionFailed() {
+        failedConnections++;
+    }
+
+    synchronized void sample(Map<String, Object> sample) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        entry.putAll(sample);
+        serverSamples.add(entry);
+    }
+
+    synchronized void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    synchronized Map<String, Object> summarize() {
+        double elapsedSeconds = (endNanos - startNanos) / 1e9;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("settings", settings);
+        summary.put("elapsedSeconds", round(elapsedSeconds));
+        summary.put("failedConnections", failedConnections);
+
+        Map<String, Object> overall = statistics(results, elapsedSeconds);
+        summary.put("overall", overall);
+
+        Map<String, List<Result>> byProgram = new TreeMap<>();
+        for (Result result : results) {
+            byProgram.computeIfAbsent(result.program.getName(), name -> new ArrayList<>()).add(result);
+        }
+        Map<String, Object> programs = new LinkedHashMap<>();
+        byProgram.forEach((name, programResults) -> programs.put(name, statistics(programResults, elapsedSeconds)));
+        summary.put("programs", programs);
+
+        // 초 단위 완료 건수로 처리량 변화를 본다
+        SortedMap<Long, Integer> perSecond = new TreeMap<>();
+        for (Result result : results) {
+            perSecond.merge(TimeUnit.NANOSECONDS.toSeconds(result.completedAtNanos), 1, Integer::sum);
+        }
+        summary.put("completedPerSecond", perSecond);
+        summary.put("server", new ArrayList<>(serverSamples));
+        return summary;
+    }
+
+    void print(Map<String, Object> summary, Path reportFile) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> overall = (Map<String, Object>) summary.get("overall");
+        System.out.println();
+        System.out.println("=== 부하 테스트 결과 ===");
+        System.out.println("경과 시간: " + summary.get("elapsedSeconds") + "초, 연결 실패: " + summary.get("failedConnections"));
+        System.out.println(line("전체", overall));
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> programs = (Map<String, Map<String, Object>>) summary.get("programs");
+        programs.forEach((name, stats) -> System.out.println(line(name, stats)));
+
+        List<Map<String, Object>> samples;
+        synchronized (this) {
+            samples = new ArrayList<>(serverSamples);
+        }
+        OptionalLong maxHeap = samples.stream().map(sample -> sample.get("heapUsedBytes"))
+            .filter(Number.class::isInstance).mapToLong(value -> ((Number) value).longValue()).max();
+        if (maxHeap.isPresent()) {
+            Object lastHeap = samples.get(samples.size() - 1).get("heapUsedBytes");
+            System.out.println("서버 힙: 최대 " + maxHeap.getAsLong() / (1024 * 1024) + "MB, 마지막 "
+                + (lastHeap instanceof Number ? ((Number) lastHeap).longValue() / (1024 * 1024) + "MB" : "-")
+                + " (표본 " + samples.size() + "개)");
+        } else {
+            System.out.println("서버 힙: 표본 없음 (/actuator/metrics 에 접근할 수 없습니다)");
+        }
+        if (reportFile != null) {
+            System.out.println("보고서: " + reportFile.toAbsolutePath());
+        }
+    }
+
+    void write(Map<String, Object> summary, Path reportFile) throws IOException {
+        if (reportFile.getParent() != null) {
+            Files.createDirectories(reportFile.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), summary);
+    }
+
+    private static String line(String name, Map<String, Object> stats) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> latency = (Map<String, Object>) stats.get("latencyMillis");
+        return String.format("%-14s 요청 %6s  처리량 %8s/s  p50 %8sms  p99 %8sms  max %8sms  오류율 %s%%  %s",
+            name, stats.get("requests"), stats.get("throughput"), latency.get("p50"), latency.get("p99"),
+            latency.get("max"), stats.get("errorRatePercent"), stats.get("outcomes"));
+    }
+
+    private static Map<String, Object> statistics(List<Result> results, double elapsedSeconds) {
+        long[] latencies = new long[results.size()];
+        Map<String, Integer> outcomes = new TreeMap<>();
+        int errors = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            latencies[i] = result.latencyNanos;
+            outcomes.merge(result.outcome, 1, Integer::sum);
+            if (!result.outcome.equals(result.program.getExpectedOutcome())) {
+                errors++;
+            }
+        }
+        Arrays.sort(latencies);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", percentileMillis(latencies, 0.50));
+        latency.put("p90", percentileMillis(latencies, 0.90));
+        latency.put("p99", percentileMillis(latencies, 0.99));
+        latency.put("max", latencies.length == 0 ? 0 : round(latencies[latencies.length - 1] / 1e6));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", results.size());
+        stats.put("throughput", round(elapsedSeconds > 0 ? results.size() / elapsedSeconds : 0));
+        stats.put("errors", errors);
+        stats.put("errorRatePercent", round(results.isEmpty() ? 0 : errors * 100.0 / results.size()));
+        stats.put("outcomes", outcomes);
+        stats.put("latencyMillis", latency);
+        return stats;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return round(sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static class Result {
+        final LoadTestProgram program;
+        final String outcome;
+        final long latencyNanos;
+        final long completedAtNanos;
+
+        Result(LoadTestProgram program, String outcome, long latencyNanos, long completedAtNanos) {
+            this.program = program;
+            this.outcome = outcome;
+            this.latencyNanos = latencyNanos;
+            this.completedAtNanos = completedAtNanos;
+        }
+    }
+}
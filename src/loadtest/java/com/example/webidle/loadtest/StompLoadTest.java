@@ -0,0 +1,328 @@
+package com.example.webidle.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.*;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 편집기 세션 여러 개를 흉내 내는 STOMP 부하 생성기.
+ * <p>
+ * 세션마다 /ws(SockJS 또는 순수 WebSocket)에 따로 연결해 서로 다른 session-id 헤더로 /app/execute에 코드를 보내고,
+ * /topic/output/{sessionId}의 종료 메시지나 /topic/error/{sessionId}의 오류를 받을 때까지 기다린다.
+ * 실행 중에는 /actuator/metrics에서 서버 힙과 실행 대기열을 주기적으로 읽어 함께 기록한다.
+ * <p>
+ * 먼저 앱을 띄운 뒤 실행한다: {@code ./gradlew loadTest -PloadTestArgs="--sessions 50 --duration-s 120"}
+ * <pre>
+ *   --url http://localhost:8080       대상 서버
+ *   --sessions 20                     동시 세션 수
+ *   --duration-s 60                   측정 시간(초)
+ *   --ramp-up-ms 5000                 세션을 이 시간 동안 나눠서 연결
+ *   --think-ms 0                      세션마다 요청 사이 대기 시간
+ *   --request-timeout-ms 30000        응답을 기다리는 최대 시간
+ *   --mix hello=6,cpu=2,output=1,alloc=1,compile-error=1
+ *   --unique-code true                요청마다 소스를 조금씩 바꿔 컴파일 캐시를 피함
+ *   --sample-ms 1000                  서버 지표를 읽는 주기
+ *   --transport sockjs                sockjs 또는 native(SockJS 없이 ws://.../ws로 연결)
+ *   --report build/reports/loadtest/loadtest-&lt;시각&gt;.json
+ * </pre>
+ */
+public class StompLoadTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MAX_MESSAGE_BYTES = 1024 * 1024;
+
+    private final String url;
+    private final int sessions;
+    private final long durationMillis;
+    private final long rampUpMillis;
+    private final long thinkMillis;
+    private final long requestTimeoutMillis;
+    private final boolean uniqueCode;
+    private final long sampleMillis;
+    private final LoadTestProgram.Mix mix;
+    private final Path reportFile;
+    private final boolean nativeTransport;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    StompLoadTest(Map<String, String> options) {
+        this.url = options.getOrDefault("url", "http://localhost:8080").replaceFirst("/+$", "");
+        this.sessions = Integer.parseInt(options.getOrDefault("sessions", "20"));
+        this.durationMillis = Long.parseLong(options.getOrDefault("duration-s", "60")) * 1000;
+        this.rampUpMillis = Long.parseLong(options.getOrDefault("ramp-up-ms", "5000"));
+        this.thinkMillis = Long.parseLong(options.getOrDefault("think-ms", "0"));
+        this.requestTimeoutMillis = Long.parseLong(options.getOrDefault("request-timeout-ms", "30000"));
+        this.uniqueCode = Boolean.parseBoolean(options.getOrDefault("unique-code", "true"));
+        this.sampleMillis = Long.parseLong(options.getOrDefault("sample-ms", "1000"));
+        this.mix = new LoadTestProgram.Mix(options.getOrDefault("mix", "hello=6,cpu=2,output=1,alloc=1,compile-error=1"));
+        this.reportFile = Paths.get(options.getOrDefault("report",
+            "build/reports/loadtest/loadtest-" + System.currentTimeMillis() + ".json"));
+        String transport = options.getOrDefault("transport", "sockjs");
+        if (!transport.equals("sockjs") && !transport.equals("native")) {
+            throw new IllegalArgumentException("알 수 없는 전송 방식: " + transport);
+        }
+        this.nativeTransport = transport.equals("native");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new StompLoadTest(parseOptions(args)).run();
+    }
+
+    void run() throws Exception {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("url", url);
+        settings.put("sessions", sessions);
+        settings.put("durationMillis", durationMillis);
+        settings.put("rampUpMillis", rampUpMillis);
+        settings.put("thinkMillis", thinkMillis);
+        settings.put("uniqueCode", uniqueCode);
+        settings.put("mix", mix.describe());
+        settings.put("transport", nativeTransport ? "native" : "sockjs");
+        LoadTestReport report = new LoadTestReport(settings);
+
+        // 출력 프레임이 기본 버퍼(8KB)보다 커질 수 있어 수신 버퍼를 늘린다
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxTextMessageBufferSize(MAX_MESSAGE_BYTES);
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient(container);
+        WebSocketStompClient stompClient = new WebSocketStompClient(nativeTransport ? webSocketClient
+            : new SockJsClient(List.of(new WebSocketTransport(webSocketClient))));
+        stompClient.setInboundMessageSizeLimit(MAX_MESSAGE_BYTES);
+        stompClient.setMessageConverter(new CompositeMessageConverter(
+            List.of(new StringMessageConverter(), new MappingJackson2MessageConverter())));
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> report.sample(sampleServer()), 0, sampleMillis, TimeUnit.MILLISECONDS);
+
+        System.out.println("부하 테스트 시작: " + url + ", 세션 " + sessions + "개, " + durationMillis / 1000 + "초, 구성 "
+            + mix.describe());
+        long deadline = System.currentTimeMillis() + rampUpMillis + durationMillis;
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            String sessionId = "load-" + runId + "-" + i;
+            long startDelay = sessions > 1 ? rampUpMillis * i / (sessions - 1) : 0;
+            Thread worker = new Thread(() -> runSession(stompClient, sessionId, startDelay, deadline, report),
+                "load-session-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report.finish();
+        sampler.shutdownNow();
+        stompClient.stop();
+
+        Map<String, Object> summary = report.summarize();
+        report.write(summary, reportFile);
+        report.print(summary, reportFile);
+    }
+
+    private void runSession(WebSocketStompClient stompClient, String sessionId, long startDelay, long deadline,
+                            LoadTestReport report) {
+        AtomicReference<CompletableFuture<String>> pending = new AtomicReference<>();
+        StompSession session;
+        try {
+            Thread.sleep(startDelay);
+            StompHeaders connectHeaders = new StompHeaders();
+            connectHeaders.add("session-id", sessionId);
+            String endpoint = nativeTransport ? url.replaceFirst("^http", "ws") + "/ws" : url + "/ws";
+            session = stompClient.connectAsync(endpoint, new WebSocketHttpHeaders(), connectHeaders,
+                new StompSessionHandlerAdapter() {
+                    @Override
+                    public void handleTransportError(StompSession session, Throwable exception) {
+                        complete(pending, "disconnected");
+                    }
+                }).get(10, TimeUnit.SECONDS);
+            session.subscribe("/topic/output/" + sessionId, new FrameHandler(Map.class) {
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    complete(pending, outputOutcome(payload));
+                }
+            });
+            session.subscribe("/topic/error/" + sessionId, new FrameHandler(Map.class) {
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    complete(pending, errorOutcome((Map<?, ?>) payload));
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            System.err.println("세션 연결 실패: " + sessionId + " - " + e.getMessage());
+            report.connectionFailed();
+            return;
+        }
+
+        try {
+            while (System.currentTimeMillis() < deadline && session.isConnected()) {
+                LoadTestProgram program = mix.next();
+                CompletableFuture<String> result = new CompletableFuture<>();
+                pending.set(result);
+
+                StompHeaders sendHeaders = new StompHeaders();
+                sendHeaders.setDestination("/app/execute");
+                sendHeaders.add("session-id", sessionId);
+                long sentAt = System.nanoTime();
+                session.send(sendHeaders, program.source(uniqueCode, sequence.incrementAndGet()));
+
+                String outcome;
+                try {
+                    outcome = result.get(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    outcome = "timeout";
+                } catch (ExecutionException e) {
+                    outcome = "error";
+                }
+                report.record(program, outcome, System.nanoTime() - sentAt);
+                if (thinkMillis > 0) {
+                    Thread.sleep(thinkMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        }
+    }
+
+    private static void complete(AtomicReference<CompletableFuture<String>> pending, String outcome) {
+        if (outcome == null) {
+            return;
+        }
+        CompletableFuture<String> current = pending.get();
+        if (current != null) {
+            current.complete(outcome);
+        }
+    }
+
+    /**
+     * 출력 스트림 메시지 중 종료 메시지만 결과로 본다. 출력/대기 메시지는 null을 돌려 무시한다.
+     */
+    private static String outputOutcome(Object payload) {
+        if (!(payload instanceof Map)) {
+            return "error";
+        }
+        Map<?, ?> frame = (Map<?, ?>) payload;
+        if (!"exit".equals(frame.get("type"))) {
+            return null;
+        }
+        if (frame.get("error") != null) {
+            // 실행 한도를 넘으면 넘은 한도의 이름(ExecutionBudget)이 limit에 담겨 온다
+            Object limit = frame.get("limit");
+            if ("wall_time".equals(limit)) {
+                return "run_timeout";
+            } else if ("cpu_time".equals(limit)) {
+                return "cpu_limit";
+            } else if ("output".equals(limit)) {
+                return "output_limit";
+            }
+            return "error";
+        }
+        Object exitCode = frame.get("exitCode");
+        return exitCode instanceof Number && ((Number) exitCode).intValue() == 0 ? "success" : "nonzero_exit";
+    }
+
+    private static String errorOutcome(Map<?, ?> payload) {
+        switch (String.valueOf(payload.get("error"))) {
+            case "컴파일 오류":
+                return "compile_error";
+            case "실행 거절":
+                return "rejected";
+            case "의존성 해결 실패":
+                return "dependency_error";
+            default:
+                return "error";
+        }
+    }
+
+    /**
+     * 서버 지표를 읽는다. 읽을 수 없는 항목은 빠진다.
+     */
+    private Map<String, Object> sampleServer() {
+        Map<String, Object> sample = new LinkedHashMap<>();
+        putMetric(sample, "heapUsedBytes", "jvm.memory.used?tag=area:heap");
+        putMetric(sample, "heapCommittedBytes", "jvm.memory.committed?tag=area:heap");
+        putMetric(sample, "running", "webidle.scheduler.running");
+        putMetric(sample, "queued", "webidle.scheduler.queued");
+        putMetric(sample, "idleRunners", "webidle.runner.pool.idle");
+        return sample;
+    }
+
+    private void putMetric(Map<String, Object> sample, String key, String metric) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/actuator/metrics/" + metric))
+                .timeout(Duration.ofSeconds(2)).GET().build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return;
+            }
+            for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+                if ("VALUE".equals(measurement.path("statistic").asText())) {
+                    sample.put(key, measurement.path("value").asLong());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 서버가 바쁘거나 actuator가 꺼져 있으면 이번 표본에서는 뺀다
+        }
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("알 수 없는 인자: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            } else if (i + 1 < args.length) {
+                options.put(arg.substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("값이 없는 인자: " + arg);
+            }
+        }
+        return options;
+    }
+
+    private abstract static class FrameHandler implements StompFrameHandler {
+        private final Class<?> payloadType;
+
+        FrameHandler(Class<?> payloadType) {
+            this.payloadType = payloadType;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return payloadType;
+        }
+    }
+}
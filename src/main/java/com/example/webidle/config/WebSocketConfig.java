@@ -1,38 +1,181 @@
 package com.example.webidle.config;
 
+import com.example.webidle.service.WebSocketTransportMonitor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.RequestUpgradeStrategy;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * STOMP 브로커와 전송 설정. /ws는 SockJS와 순수 WebSocket 연결을 모두 받는다.
+ * 순수 WebSocket 업그레이드 요청은 /ws로, SockJS 요청은 /ws/info, /ws/{server}/{session}/... 로 들어온다.
+ * 두 방식 모두 클라이언트가 요청하면 permessage-deflate로 프레임을 압축한다.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+
+    private final WebSocketTransportMonitor transportMonitor;
+    private final int inboundCorePoolSize;
+    private final int inboundMaxPoolSize;
+    private final int inboundQueueCapacity;
+    private final int outboundCorePoolSize;
+    private final int outboundMaxPoolSize;
+    private final int outboundQueueCapacity;
+    private final int sendTimeLimitMillis;
+    private final int sendBufferSizeLimit;
+    private final int messageSizeLimit;
+    private final boolean deflateEnabled;
+
+    public WebSocketConfig(WebSocketTransportMonitor transportMonitor,
+                           @Value("${webidle.websocket.inbound.core-pool-size:4}") int inboundCorePoolSize,
+                           @Value("${webidle.websocket.inbound.max-pool-size:8}") int inboundMaxPoolSize,
+                           @Value("${webidle.websocket.inbound.queue-capacity:1000}") int inboundQueueCapacity,
+                           @Value("${webidle.websocket.outbound.core-pool-size:8}") int outboundCorePoolSize,
+                           @Value("${webidle.websocket.outbound.max-pool-size:16}") int outboundMaxPoolSize,
+                           @Value("${webidle.websocket.outbound.queue-capacity:10000}") int outboundQueueCapacity,
+                           @Value("${webidle.websocket.send-time-limit-ms:10000}") int sendTimeLimitMillis,
+                           @Value("${webidle.websocket.send-buffer-size-limit:1048576}") int sendBufferSizeLimit,
+                           @Value("${webidle.websocket.message-size-limit:1048576}") int messageSizeLimit,
+                           @Value("${webidle.websocket.deflate.enabled:true}") boolean deflateEnabled) {
+        this.transportMonitor = transportMonitor;
+        this.inboundCorePoolSize = inboundCorePoolSize;
+        this.inboundMaxPoolSize = inboundMaxPoolSize;
+        this.inboundQueueCapacity = inboundQueueCapacity;
+        this.outboundCorePoolSize = outboundCorePoolSize;
+        this.outboundMaxPoolSize = outboundMaxPoolSize;
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.messageSizeLimit = messageSizeLimit;
+        this.deflateEnabled = deflateEnabled;
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
+        // 아웃바운드 스레드가 여러 개여도 세션별 출력 프레임 순서를 지킨다
+        config.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+            .corePoolSize(inboundCorePoolSize)
+            .maxPoolSize(inboundMaxPoolSize)
+            .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+            .corePoolSize(outboundCorePoolSize)
+            .maxPoolSize(outboundMaxPoolSize)
+            .queueCapacity(outboundQueueCapacity);
+        registration.interceptors(transportMonitor);
+    }
+
+    /**
+     * 클라이언트가 받는 속도보다 빨리 보내 전송 버퍼나 전송 시간 한도를 넘기면 세션을 끊는다.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+            .setSendBufferSizeLimit(sendBufferSizeLimit)
+            .setMessageSizeLimit(messageSizeLimit)
+            .addDecoratorFactory(transportMonitor::decorate);
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        RequestUpgradeStrategy upgradeStrategy = new DefaultHandshakeHandler().getRequestUpgradeStrategy();
+        if (!deflateEnabled) {
+            upgradeStrategy = withoutDeflate(upgradeStrategy);
+        }
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler(upgradeStrategy) {
+            protected String generateSessionId(Map<String, Object> attributes) {
+                String sessionId = (String) attributes.get("session-id");
+                if (sessionId != null && !sessionId.isEmpty()) {
+                    return sessionId;
+                }
+                return "session-" + System.currentTimeMillis();
+            }
+        };
+
+        registry.addEndpoint("/ws")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(new HttpSessionHandshakeInterceptor())
+                .setAllowedOriginPatterns("http://localhost:*");
         registry.addEndpoint("/ws")
-                .setHandshakeHandler(new DefaultHandshakeHandler() {
-                    protected String generateSessionId(Map<String, Object> attributes) {
-                        String sessionId = (String) attributes.get("session-id");
-                        if (sessionId != null && !sessionId.isEmpty()) {
-                            return sessionId;
-                        }
-                        return "session-" + System.currentTimeMillis();
-                    }
-                })
+                .setHandshakeHandler(handshakeHandler)
                 .addInterceptors(new HttpSessionHandshakeInterceptor())
                 .setAllowedOriginPatterns("http://localhost:*")
                 .withSockJS();
     }
-} 
\ No newline at end of file
+
+    /**
+     * Tomcat은 컨테이너에 설치된 permessage-deflate를 스스로 협상하므로,
+     * 압축을 끄면 요청의 확장 헤더를 가린 채로 업그레이드한다.
+     */
+    private static RequestUpgradeStrategy withoutDeflate(RequestUpgradeStrategy delegate) {
+        return new RequestUpgradeStrategy() {
+            @Override
+            public String[] getSupportedVersions() {
+                return delegate.getSupportedVersions();
+            }
+
+            @Override
+            public List<WebSocketExtension> getSupportedExtensions(ServerHttpRequest request) {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public void upgrade(ServerHttpRequest request, ServerHttpResponse response, String selectedProtocol,
+                                List<WebSocketExtension> selectedExtensions, Principal user,
+                                WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                if (request instanceof ServletServerHttpRequest) {
+                    request = new ServletServerHttpRequest(
+                        withoutExtensions(((ServletServerHttpRequest) request).getServletRequest()));
+                }
+                delegate.upgrade(request, response, selectedProtocol, Collections.emptyList(), user,
+                    wsHandler, attributes);
+            }
+        };
+    }
+
+    private static HttpServletRequest withoutExtensions(HttpServletRequest request) {
+        return new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+                return EXTENSIONS_HEADER.equalsIgnoreCase(name) ? null : super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                return EXTENSIONS_HEADER.equalsIgnoreCase(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+            }
+        };
+    }
+}
@@ -1,120 +1,231 @@
 package com.example.webidle.controller;
 
+import com.example.webidle.model.BatchExecutionRequest;
+import com.example.webidle.model.BatchExecutionResult;
+import com.example.webidle.model.DebugEvent;
+import com.example.webidle.model.DiagnosticsRequest;
+import com.example.webidle.model.ExecutionResult;
+import com.example.webidle.model.FileNode;
 import com.example.webidle.service.CodeExecutionService;
+import com.example.webidle.service.DiagnosticsService;
+import com.example.webidle.service.FileConflictException;
+import com.example.webidle.service.RunnerLaunchProfile;
+import com.example.webidle.service.WebSocketTransportMonitor;
+import com.example.webidle.service.WorkspaceFileService;
+import com.example.webidle.service.WorkspaceTreeCache;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.io.File;
-import java.io.FileWriter;
+import org.springframework.web.context.request.WebRequest;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.HashMap;
 import java.util.Map;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
 public class CodeExecutionController {
     private final CodeExecutionService codeExecutionService;
-    private final String workspaceRoot = "workspace"; // 작업 디렉토리 경로
-
-    public CodeExecutionController(CodeExecutionService codeExecutionService) {
+    private final DiagnosticsService diagnosticsService;
+    private final WorkspaceTreeCache workspaceTreeCache;
+    private final WorkspaceFileService workspaceFileService;
+    private final RunnerLaunchProfile runnerLaunchProfile;
+    private final WebSocketTransportMonitor webSocketTransportMonitor;
+    private final long sendfileMinBytes;
+
+    public CodeExecutionController(CodeExecutionService codeExecutionService, DiagnosticsService diagnosticsService,
+                                   WorkspaceTreeCache workspaceTreeCache, WorkspaceFileService workspaceFileService,
+                                   RunnerLaunchProfile runnerLaunchProfile,
+                                   WebSocketTransportMonitor webSocketTransportMonitor,
+                                   @Value("${webidle.files.sendfile-min-bytes:49152}") long sendfileMinBytes) {
         this.codeExecutionService = codeExecutionService;
-        // 작업 디렉토리 생성
-        new File(workspaceRoot).mkdirs();
+        this.diagnosticsService = diagnosticsService;
+        this.workspaceTreeCache = workspaceTreeCache;
+        this.workspaceFileService = workspaceFileService;
+        this.runnerLaunchProfile = runnerLaunchProfile;
+        this.webSocketTransportMonitor = webSocketTransportMonitor;
+        this.sendfileMinBytes = sendfileMinBytes;
     }
 
     @PostMapping("/execute")
-    public String executeCode(@RequestBody CodeRequest request) {
-        return codeExecutionService.executeCode(request.getCode(), request.getSessionId());
+    public CompletableFuture<ExecutionResult> executeCode(@RequestBody CodeRequest request) {
+        return codeExecutionService.submitExecution(request.getCode(), request.getSessionId());
+    }
+
+    /**
+     * 같은 코드를 테스트 케이스 입력마다 실행하고 케이스별 출력, 종료 코드, 시간, 메모리를 돌려준다.
+     */
+    @PostMapping("/execute/batch")
+    public CompletableFuture<BatchExecutionResult> executeBatch(@RequestBody BatchExecutionRequest request) {
+        return codeExecutionService.submitBatch(request);
+    }
+
+    @PostMapping("/project/run")
+    public CompletableFuture<ExecutionResult> runProject(@RequestBody ProjectRunRequest request) {
+        return codeExecutionService.submitProjectExecution(request.getProject(), request.getMainClass(),
+            request.getSessionId());
+    }
+
+    @PostMapping("/diagnostics")
+    public CompletableFuture<Map<String, Object>> diagnostics(@RequestBody DiagnosticsRequest request) {
+        return diagnosticsService.submit(request.getCode(), request.getSessionId(), request.getVersion());
     }
 
     @PostMapping("/debug")
-    public Map<String, Object> debugCode(@RequestBody DebugRequest request) {
-        String result = codeExecutionService.debugCode(request.getCode(), request.getBreakpoints(), request.getSessionId());
-        Map<String, Object> response = new HashMap<>();
-        
-        try {
-            // 이미 JSON 형식인지 확인
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> parsedResult = mapper.readValue(result, Map.class);
-            return parsedResult;
-        } catch (Exception e) {
-            // JSON이 아닌 경우 새로운 형식으로 변환
-            response.put("status", "디버깅 시작됨");
-            response.put("output", result);
-        }
-        
-        return response;
+    public CompletableFuture<DebugEvent> debugCode(@RequestBody DebugRequest request) {
+        return codeExecutionService.submitDebug(request.getCode(), request.getBreakpoints(), request.getSessionId(),
+            null);
     }
 
     @PostMapping("/debug/continue")
-    public Map<String, Object> continueDebug(@RequestBody Map<String, String> request) {
-        String sessionId = request.get("sessionId");
-        Map<String, Object> response = new HashMap<>();
-        
-        try {
-            // 디버깅 상태 확인 및 다음 브레이크포인트까지 실행
-            String result = codeExecutionService.continueDebug(sessionId);
-            
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                return mapper.readValue(result, Map.class);
-            } catch (Exception e) {
-                response.put("status", "디버깅 진행 중");
-                response.put("output", result);
-            }
-        } catch (Exception e) {
-            response.put("error", "디버깅 계속 실행 중 오류 발생");
-            response.put("message", e.getMessage());
-        }
-        
-        return response;
+    public DebugEvent continueDebug(@RequestBody Map<String, String> request) {
+        // 디버깅 상태 확인 및 다음 브레이크포인트까지 실행
+        return codeExecutionService.continueDebug(request.get("sessionId"));
+    }
+
+    @PostMapping("/debug/step")
+    public DebugEvent stepDebug(@RequestBody Map<String, String> request) {
+        return codeExecutionService.debugCommand(request.get("sessionId"), request.getOrDefault("command", "over"));
+    }
+
+    @PostMapping("/debug/stop")
+    public void stopDebug(@RequestBody Map<String, String> request) {
+        codeExecutionService.stopDebug(request.get("sessionId"));
+    }
+
+    @GetMapping("/admin/debug-sessions")
+    public List<Map<String, Object>> getDebugSessions() {
+        return codeExecutionService.getDebugSessions();
+    }
+
+    @GetMapping("/admin/compile-cache")
+    public Map<String, Object> getCompileCacheStats() {
+        return codeExecutionService.getCompileCacheStats();
+    }
+
+    @GetMapping("/admin/scheduler")
+    public Map<String, Object> getSchedulerStats() {
+        return codeExecutionService.getSchedulerStats();
+    }
+
+    @GetMapping("/admin/execution-backend")
+    public Map<String, Object> getExecutionBackendStats() {
+        return codeExecutionService.getExecutionBackendStats();
+    }
+
+    @GetMapping("/admin/runner")
+    public Map<String, Object> getRunnerProfile() {
+        return runnerLaunchProfile.getStats();
+    }
+
+    @GetMapping("/admin/websocket")
+    public Map<String, Object> getWebSocketStats() {
+        return webSocketTransportMonitor.getStats();
+    }
+
+    @PostMapping("/admin/maven/prefetch")
+    public Map<String, Object> prefetchDependencies(@RequestBody(required = false) List<String> coordinates) {
+        return codeExecutionService.prefetchDependencies(coordinates);
     }
 
     @PostMapping("/save")
     public void saveFile(@RequestBody SaveFileRequest request) throws IOException {
-        String fullPath = workspaceRoot + request.getPath();
-        File file = new File(fullPath);
-        file.getParentFile().mkdirs(); // 부모 디렉토리 생성
-        try (FileWriter writer = new FileWriter(file)) {
-            writer.write(request.getContent());
-        }
+        workspaceFileService.save(request.getPath(),
+            new ByteArrayInputStream(request.getContent().getBytes(StandardCharsets.UTF_8)), null);
     }
 
+    /**
+     * 요청 본문을 버퍼링하지 않고 임시 파일로 흘려 쓴 뒤 원자적으로 교체한다.
+     * If-Match가 있으면 현재 파일의 ETag와 같을 때만 저장한다.
+     */
+    @PutMapping("/file")
+    public ResponseEntity<Void> putFile(@RequestParam String path,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                        HttpServletRequest request) throws IOException {
+        String etag = workspaceFileService.save(path, request.getInputStream(), ifMatch);
+        return ResponseEntity.noContent().eTag(etag).build();
+    }
+
+    /**
+     * 파일을 메모리에 올리지 않고 스트리밍한다. Range 요청은 Spring이 부분 응답으로 처리하고,
+     * 큰 파일 전체 요청은 Tomcat sendfile로 커널에서 바로 소켓으로 보낸다.
+     */
     @GetMapping("/file")
-    public String getFileContent(@RequestParam String path) throws IOException {
-        String fullPath = workspaceRoot + path;
-        return Files.readString(Paths.get(fullPath));
+    public ResponseEntity<Resource> getFileContent(@RequestParam String path, WebRequest webRequest,
+                                                   HttpServletRequest request) throws IOException {
+        Path file = workspaceFileService.resolve(path);
+        if (!Files.isRegularFile(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (webRequest.checkNotModified(workspaceFileService.etag(file), attributes.lastModifiedTime().toMillis())) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (request.getHeader(HttpHeaders.RANGE) == null && attributes.size() >= sendfileMinBytes
+                && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toRealPath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", attributes.size());
+            return response.contentLength(attributes.size()).build();
+        }
+        return response.body(new FileSystemResource(file));
+    }
+
+    @ExceptionHandler(FileConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(FileConflictException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "저장 충돌");
+        response.put("message", e.getMessage());
+        ResponseEntity.BodyBuilder conflict = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+        if (e.getCurrentEtag() != null) {
+            conflict.eTag(e.getCurrentEtag());
+        }
+        return conflict.body(response);
     }
 
+    /**
+     * 캐시된 트리에서 path 아래를 depth 단계까지 돌려준다. 트리가 바뀌지 않았으면 304를 돌려준다.
+     */
     @GetMapping("/files")
-    public FileNode getFileTree() {
-        return createFileTree(new File(workspaceRoot));
-    }
-
-    private FileNode createFileTree(File file) {
-        FileNode node = new FileNode();
-        node.setName(file.getName());
-        node.setPath(file.getPath().substring(workspaceRoot.length()));
-        
-        if (file.isDirectory()) {
-            node.setType("directory");
-            File[] children = file.listFiles();
-            if (children != null) {
-                node.setChildren(
-                    Arrays.stream(children)
-                        .map(this::createFileTree)
-                        .collect(Collectors.toList())
-                );
-            }
-        } else {
-            node.setType("file");
+    public FileNode getFileTree(@RequestParam(defaultValue = "") String path,
+                                @RequestParam(defaultValue = "${webidle.files.default-depth:1}") int depth,
+                                @RequestParam(defaultValue = "0") int offset,
+                                @RequestParam(defaultValue = "${webidle.files.page-size:200}") int limit,
+                                WebRequest webRequest) {
+        WorkspaceTreeCache.TreeSnapshot snapshot = workspaceTreeCache.list(path, depth, offset, limit);
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            return null;
         }
-        
-        return node;
+        return snapshot.getNode();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadPath(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "잘못된 요청");
+        response.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/admin/file-tree")
+    public Map<String, Object> getFileTreeStats() {
+        return workspaceTreeCache.getStats();
     }
 }
 
@@ -139,6 +250,36 @@ class CodeRequest {
     }
 }
 
+class ProjectRunRequest {
+    private String project;
+    private String mainClass;
+    private String sessionId;
+
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    public void setMainClass(String mainClass) {
+        this.mainClass = mainClass;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+}
+
 class DebugRequest {
     private String code;
     private List<Integer> breakpoints;
@@ -189,42 +330,3 @@ class SaveFileRequest {
         this.content = content;
     }
 }
-
-class FileNode {
-    private String name;
-    private String type;
-    private String path;
-    private List<FileNode> children;
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public String getType() {
-        return type;
-    }
-
-    public void setType(String type) {
-        this.type = type;
-    }
-
-    public String getPath() {
-        return path;
-    }
-
-    public void setPath(String path) {
-        this.path = path;
-    }
-
-    public List<FileNode> getChildren() {
-        return children;
-    }
-
-    public void setChildren(List<FileNode> children) {
-        this.children = children;
-    }
-} 
\ No newline at end of file
@@ -1,7 +1,11 @@
 package com.example.webidle.controller;
 
 import com.example.webidle.service.CodeExecutionService;
+import com.example.webidle.service.DiagnosticsService;
+import com.example.webidle.service.DocumentBufferService;
 import com.example.webidle.model.DebugRequest;
+import com.example.webidle.model.DiagnosticsRequest;
+import com.example.webidle.model.FileEditRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -14,11 +18,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 public class EditorController {
     
     private final CodeExecutionService codeExecutionService;
+    private final DiagnosticsService diagnosticsService;
+    private final DocumentBufferService documentBufferService;
     private final SimpMessagingTemplate messagingTemplate;
 
     @Autowired
-    public EditorController(CodeExecutionService codeExecutionService, SimpMessagingTemplate messagingTemplate) {
+    public EditorController(CodeExecutionService codeExecutionService, DiagnosticsService diagnosticsService,
+                            DocumentBufferService documentBufferService, SimpMessagingTemplate messagingTemplate) {
         this.codeExecutionService = codeExecutionService;
+        this.diagnosticsService = diagnosticsService;
+        this.documentBufferService = documentBufferService;
         this.messagingTemplate = messagingTemplate;
     }
 
@@ -38,15 +47,13 @@ public class EditorController {
                 System.out.println("세션 ID가 없어 기본값 사용: " + sessionId);
             }
             
-            String result = codeExecutionService.executeCode(code, sessionId);
-            System.out.println("실행 결과: " + result);
-            
-            String destination = "/topic/output/" + sessionId;
-            System.out.println("메시지 전송 경로: " + destination);
-            messagingTemplate.convertAndSend(destination, result);
-            
-            String debugInfo = "실행 결과:\n" + result;
-            messagingTemplate.convertAndSend("/topic/debug/" + sessionId, debugInfo);
+            // 인바운드 스레드를 붙잡지 않도록 스케줄러에 넘기고,
+            // 출력과 종료 메시지는 실행 중에 /topic/output/{sessionId}로 스트리밍된다
+            String targetSessionId = sessionId;
+            // 결과는 종료 메시지와 /topic/error/{sessionId}로 이미 전달되므로 다시 보내지 않는다
+            codeExecutionService.submitExecution(code, targetSessionId).thenAccept(result ->
+                System.out.println("실행 완료 - 세션 ID: " + targetSessionId + ", "
+                    + (result.isSuccess() ? "종료 코드 " + result.exitCode() : result.error())));
             
         } catch (Exception e) {
             System.err.println("코드 실행 중 오류 발생: " + e.getMessage());
@@ -68,10 +75,18 @@ public class EditorController {
         try {
             messagingTemplate.convertAndSend("/topic/debug/" + sessionId, "디버깅을 시작합니다...");
             
-            String result = codeExecutionService.debugCode(request.getCode(), request.getBreakpoints(), sessionId);
-            
-            messagingTemplate.convertAndSend("/topic/output/" + sessionId, result);
-            messagingTemplate.convertAndSend("/topic/debug/" + sessionId, "디버깅이 완료되었습니다.");
+            // 컴파일과 JVM 기동은 스케줄러에서 하므로 인바운드 스레드를 붙잡지 않는다.
+            // 브레이크포인트/스텝/종료 이벤트는 디버거가 /topic/debug/{sessionId}로 직접 보내고,
+            // 시작하지 못한 경우만 여기서 보낸다
+            String targetSessionId = sessionId;
+            codeExecutionService.submitDebug(request.getCode(), request.getBreakpoints(), targetSessionId,
+                    headerAccessor.getSessionId())
+                .thenAccept(result -> {
+                    System.out.println("디버깅 시작 결과: " + (result.error() != null ? result.error() : result.status()));
+                    if (result.error() != null) {
+                        messagingTemplate.convertAndSend("/topic/debug/" + targetSessionId, result);
+                    }
+                });
             
         } catch (Exception e) {
             System.err.println("디버깅 중 오류 발생: " + e.getMessage());
@@ -89,5 +104,43 @@ public class EditorController {
         }
         
         messagingTemplate.convertAndSend("/topic/debug/" + sessionId, "디버깅을 계속합니다...");
+        codeExecutionService.sendDebugCommand(sessionId, "cont");
+    }
+
+    @MessageMapping("/step")
+    public void stepDebugging(@Payload String command, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getFirstNativeHeader("session-id");
+        if (sessionId == null || sessionId.isEmpty()) {
+            sessionId = "default-session";
+        }
+        
+        codeExecutionService.sendDebugCommand(sessionId, command.trim());
+    }
+
+    @MessageMapping("/diagnostics")
+    public void diagnostics(@Payload DiagnosticsRequest request, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getFirstNativeHeader("session-id");
+        if (sessionId == null || sessionId.isEmpty()) {
+            sessionId = request.getSessionId();
+        }
+        if (sessionId == null || sessionId.isEmpty()) {
+            // 다른 클라이언트와 진단을 섞지 않도록 STOMP 연결의 세션 ID를 쓴다
+            sessionId = headerAccessor.getSessionId();
+        }
+
+        // 결과는 /topic/diagnostics/{sessionId}로 전송되고, 이전 요청은 superseded로 끝난다
+        diagnosticsService.submit(request.getCode(), sessionId, request.getVersion());
+    }
+
+    @MessageMapping("/file/edit")
+    public void editFile(@Payload FileEditRequest request, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getFirstNativeHeader("session-id");
+        if (sessionId == null || sessionId.isEmpty()) {
+            // 다른 클라이언트와 응답이 섞이지 않도록 STOMP 연결의 세션 ID를 쓴다
+            sessionId = headerAccessor.getSessionId();
+        }
+
+        // ack/resync/conflict 응답은 /topic/file/{sessionId}로 전송된다
+        documentBufferService.applyEdits(sessionId, request);
     }
-} 
\ No newline at end of file
+}
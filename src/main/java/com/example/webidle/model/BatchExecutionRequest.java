@@ -0,0 +1,96 @@
+package com.example.webidle.model;
+
+import java.util.List;
+
+/**
+ * 한 번 컴파일한 프로그램을 여러 입력으로 실행하는 요청. 케이스마다 timeoutMillis가 없으면
+ * 요청의 timeoutMillis를, 그것도 없으면 서버 기본값을 쓴다.
+ * compare는 expectedOutput과 비교하는 방식으로, trimmed(줄 끝 공백과 마지막 빈 줄 무시)가 기본이고
+ * exact이면 출력이 정확히 같아야 한다.
+ */
+public class BatchExecutionRequest {
+    private String code;
+    private String sessionId;
+    private Long timeoutMillis;
+    private String compare;
+    private List<TestCase> cases;
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public String getCompare() {
+        return compare;
+    }
+
+    public void setCompare(String compare) {
+        this.compare = compare;
+    }
+
+    public List<TestCase> getCases() {
+        return cases;
+    }
+
+    public void setCases(List<TestCase> cases) {
+        this.cases = cases;
+    }
+
+    public static class TestCase {
+        private String id;
+        private String input;
+        private String expectedOutput;
+        private Long timeoutMillis;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getInput() {
+            return input;
+        }
+
+        public void setInput(String input) {
+            this.input = input;
+        }
+
+        public String getExpectedOutput() {
+            return expectedOutput;
+        }
+
+        public void setExpectedOutput(String expectedOutput) {
+            this.expectedOutput = expectedOutput;
+        }
+
+        public Long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(Long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+}
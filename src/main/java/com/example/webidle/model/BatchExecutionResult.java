@@ -0,0 +1,35 @@
+package com.example.webidle.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 테스트 케이스 일괄 실행 응답. 컴파일이나 의존성 해결에 실패하면 cases 없이 error, message, details만 채운다.
+ * 컴파일 시간 제한을 넘으면 limit이 compile_time이다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchExecutionResult(List<TestCaseResult> cases, Summary summary, Integer parallelism,
+                                   Map<String, Object> timings, String error, String limit, String message,
+                                   List<CompileError> details) {
+
+    public static BatchExecutionResult of(List<TestCaseResult> cases, Summary summary, int parallelism) {
+        return new BatchExecutionResult(cases, summary, parallelism, null, null, null, null, null);
+    }
+
+    public static BatchExecutionResult failure(ExecutionResult failure) {
+        return new BatchExecutionResult(null, null, null, null, failure.error(), failure.limit(), failure.message(),
+            failure.details());
+    }
+
+    public BatchExecutionResult withTimings(Map<String, Object> timings) {
+        return new BatchExecutionResult(cases, summary, parallelism, timings, error, limit, message, details);
+    }
+
+    /**
+     * passed와 failed는 expectedOutput이 있는 케이스만 센다. statuses는 상태별 케이스 수다.
+     */
+    public record Summary(int total, int passed, int failed, Map<String, Integer> statuses) {
+    }
+}
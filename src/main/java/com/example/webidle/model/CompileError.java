@@ -0,0 +1,10 @@
+package com.example.webidle.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 컴파일 오류 하나. file은 프로젝트 빌드일 때만 프로젝트 기준 경로로 채운다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CompileError(String file, long line, long column, String message) {
+}
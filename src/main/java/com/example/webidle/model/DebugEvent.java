@@ -0,0 +1,48 @@
+package com.example.webidle.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * 디버거 이벤트. 응답과 {@code /topic/debug/{sessionId}} 메시지에 같은 모양으로 쓴다.
+ * <ul>
+ *   <li>breakpoint, step, exception: 멈춘 스레드의 줄, 지역 변수, 스택 프레임을 담는다.</li>
+ *   <li>exited: 디버깅 대상이 끝났고 exitCode를 담는다.</li>
+ *   <li>running: 기다리는 동안 멈추지 않았다. 이후 이벤트는 토픽으로만 전달된다.</li>
+ * </ul>
+ * 요청을 처리하지 못하면 type 없이 error와 message만 채우고, 컴파일 오류는 details에 오류 목록을 담는다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DebugEvent(String type, String status, String thread, Integer line, List<Variable> variables,
+                         List<Frame> frames, String exception, Integer exitCode, Boolean finished,
+                         String error, String message, List<CompileError> details) {
+
+    public static DebugEvent stopped(String type, String status, String thread, Integer line,
+                                     List<Variable> variables, List<Frame> frames, String exception) {
+        return new DebugEvent(type, status, thread, line, variables, frames, exception, null, false, null, null, null);
+    }
+
+    public static DebugEvent exited(Integer exitCode) {
+        return new DebugEvent("exited", "디버깅 완료", null, null, null, null, null, exitCode, true, null, null, null);
+    }
+
+    public static DebugEvent running() {
+        return new DebugEvent("running", "실행 중", null, null, null, null, null, null, false, null, null, null);
+    }
+
+    public static DebugEvent failure(String error, String message) {
+        return new DebugEvent(null, null, null, null, null, null, null, null, null, error, message, null);
+    }
+
+    public static DebugEvent compileFailure(List<CompileError> details) {
+        return new DebugEvent(null, null, null, null, null, null, null, null, null, ExecutionResult.COMPILE_ERROR,
+            null, details);
+    }
+
+    public record Variable(String name, String type, String value) {
+    }
+
+    public record Frame(String className, String method, int line) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.webidle.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 코드/프로젝트 실행 응답. 성공하면 output, exitCode, timings를, 실패하면 error와 message를 채운다.
+ * 컴파일 오류는 error가 "컴파일 오류"이고 details에 오류 목록이 들어 있다.
+ * 실행 한도를 넘으면 error가 "실행 한도 초과"이고 limit에 넘은 한도(wall_time, cpu_time, output, compile_time)가,
+ * output에 그때까지의 출력이 들어 있다.
+ * recompiled와 sourceCount는 프로젝트 실행일 때만, usage는 실행 JVM을 cgroup에 담았을 때만 채운다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExecutionResult(String output, Integer exitCode, Map<String, Object> timings, ResourceUsage usage,
+                              List<String> recompiled, Integer sourceCount,
+                              String error, String limit, String message, List<CompileError> details) {
+
+    public static final String COMPILE_ERROR = "컴파일 오류";
+    public static final String LIMIT_EXCEEDED = "실행 한도 초과";
+
+    public static ExecutionResult success(String output, int exitCode, Map<String, Object> timings,
+                                          ResourceUsage usage) {
+        return new ExecutionResult(output, exitCode, timings, usage, null, null, null, null, null, null);
+    }
+
+    public static ExecutionResult failure(String error, String message) {
+        return new ExecutionResult(null, null, null, null, null, null, error, null, message, null);
+    }
+
+    public static ExecutionResult compileFailure(List<CompileError> details) {
+        return new ExecutionResult(null, null, null, null, null, null, COMPILE_ERROR, null, null, details);
+    }
+
+    public static ExecutionResult limitExceeded(String limit, String message, String output,
+                                                Map<String, Object> timings, ResourceUsage usage) {
+        return new ExecutionResult(output, null, timings, usage, null, null, LIMIT_EXCEEDED, limit, message, null);
+    }
+
+    /**
+     * 프로젝트 빌드 정보를 덧붙인 결과를 돌려준다.
+     */
+    public ExecutionResult withBuild(List<String> recompiled, int sourceCount) {
+        return new ExecutionResult(output, exitCode, timings, usage, recompiled, sourceCount, error, limit, message,
+            details);
+    }
+
+    @JsonIgnore
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
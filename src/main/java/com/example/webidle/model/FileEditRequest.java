@@ -0,0 +1,99 @@
+package com.example.webidle.model;
+
+import java.util.List;
+
+/**
+ * 편집기에서 보내는 파일 변경. content가 있으면 전체 내용으로 다시 맞추고,
+ * 없으면 baseVersion 위에 edits를 순서대로 적용한다.
+ * etag는 content의 바탕이 된 디스크 파일의 ETag이고, force는 다른 곳에서 바뀐 디스크 내용을 덮어쓰겠다는 뜻이다.
+ * 충돌을 받은 세션은 둘 중 하나를 담아 전체 내용을 보내야 다시 편집할 수 있다.
+ */
+public class FileEditRequest {
+    private String path;
+    private Long baseVersion;
+    private List<Edit> edits;
+    private String content;
+    private String etag;
+    private boolean force;
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(Long baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
+    public List<Edit> getEdits() {
+        return edits;
+    }
+
+    public void setEdits(List<Edit> edits) {
+        this.edits = edits;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public boolean isForce() {
+        return force;
+    }
+
+    public void setForce(boolean force) {
+        this.force = force;
+    }
+
+    /**
+     * offset부터 length개 문자(UTF-16 단위)를 text로 바꾼다. Monaco의 rangeOffset/rangeLength와 같은 기준이다.
+     */
+    public static class Edit {
+        private int offset;
+        private int length;
+        private String text;
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public void setOffset(int offset) {
+            this.offset = offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public void setLength(int length) {
+            this.length = length;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+    }
+}
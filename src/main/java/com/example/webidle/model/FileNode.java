@@ -0,0 +1,67 @@
+package com.example.webidle.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * 파일 트리의 노드. 디렉토리의 children이 null이면 아직 펼치지 않은(깊이 제한으로 생략된) 것이고,
+ * childCount와 hasMore로 전체 항목 수와 다음 페이지 존재 여부를 알려준다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FileNode {
+    private String name;
+    private String type;
+    private String path;
+    private List<FileNode> children;
+    private Integer childCount;
+    private Boolean hasMore;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public List<FileNode> getChildren() {
+        return children;
+    }
+
+    public void setChildren(List<FileNode> children) {
+        this.children = children;
+    }
+
+    public Integer getChildCount() {
+        return childCount;
+    }
+
+    public void setChildCount(Integer childCount) {
+        this.childCount = childCount;
+    }
+
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(Boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
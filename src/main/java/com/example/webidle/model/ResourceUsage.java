@@ -0,0 +1,12 @@
+package com.example.webidle.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 실행 JVM을 담은 cgroup에서 읽은 한 번의 실행의 자원 사용량. cgroup을 쓸 수 없으면 만들지 않는다.
+ * peakMemoryBytes는 커널이 memory.peak를 지원하지 않으면 비어 있고, 실행마다 기준점을 다시 잡을 수 없는
+ * 커널에서는 러너 JVM이 뜬 뒤의 최대 사용량이다. oomKilled는 메모리 한도를 넘어 커널이 프로세스를 죽였을 때 true다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResourceUsage(long cpuMillis, Long peakMemoryBytes, boolean oomKilled) {
+}
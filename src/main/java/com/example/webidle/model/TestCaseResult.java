@@ -0,0 +1,20 @@
+package com.example.webidle.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 테스트 케이스 하나의 실행 결과. status는 ok, runtime_error, timeout, cpu_limit, output_limit, memory_limit,
+ * error 중 하나다.
+ * passed는 expectedOutput이 있을 때만, memoryBytes는 러너가 최대 힙 사용량을 잰 경우에만,
+ * usage는 러너를 cgroup에 담았을 때만 채운다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TestCaseResult(int index, String id, String status, Integer exitCode, String output,
+                             Boolean truncated, Long timeMillis, Long timeoutMillis, Long memoryBytes,
+                             ResourceUsage usage, Boolean passed, String message) {
+
+    public static TestCaseResult error(int index, String id, String message, boolean compared) {
+        return new TestCaseResult(index, id, "error", null, null, null, null, null, null, null,
+            compared ? false : null, message);
+    }
+}
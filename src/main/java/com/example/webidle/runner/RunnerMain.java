@@ -0,0 +1,267 @@
+package com.example.webidle.runner;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * 미리 띄워 두는 실행용 JVM의 진입점.
+ * <p>
+ * 이 클래스는 웹 애플리케이션과 별도의 JVM에서 애플리케이션 클래스패스 없이 실행되므로
+ * JDK 이외의 클래스에 의존하면 안 된다. 요청은 stdin으로, 응답은 stdout으로 주고받는다.
+ * <pre>
+ * 요청: int type (0 = ping, 1 = run)
+ *   run: long nonce, int classPathCount, UTF[] classPath, int classCount, (UTF name, int length, byte[])[],
+ *        UTF mainClass, int stdinLength, byte[] stdin, boolean measureMemory
+ * 응답: byte frame
+ *   'P' : ping 응답
+ *   'O' : long nonce, int length, byte[] 프로그램 출력
+ *   'X' : long nonce, int exitCode, boolean reusable, long elapsedNanos, long peakHeapBytes (측정하지 않으면 -1)
+ * </pre>
+ * 실행 중 프레임에는 요청에 담겨 온 nonce를 붙인다. 사용자 코드가 {@code FileDescriptor.out}에 무심코 써서
+ * 프레임이 깨지면 nonce가 맞지 않아 요청한 쪽이 러너를 폐기한다. 같은 JVM 안의 사용자 코드는 리플렉션으로
+ * nonce를 읽을 수 있으므로 의도적인 위조까지 막지는 못한다. 위조한 종료 프레임 뒤에 남은 스레드는 다음 요청을
+ * 읽을 수 있으므로, 요청하는 쪽은 한 번 쓴 러너를 같은 사용자의 실행에만 다시 쓴다.
+ * <p>
+ * 실행이 끝나면 System.out/err/in, 시스템 프로퍼티, 기본 Locale과 TimeZone을 실행 전으로 되돌린다.
+ * 이 중 하나라도 바뀌었거나 셧다운 훅이 추가되었으면 다시 쓸 수 없다고 응답한다. 셧다운 훅을 세려면
+ * {@code --add-opens=java.base/java.lang=ALL-UNNAMED}로 띄워야 하며, 없으면 훅은 확인하지 않는다.
+ */
+public class RunnerMain {
+    public static final int REQUEST_PING = 0;
+    public static final int REQUEST_RUN = 1;
+    public static final byte FRAME_PONG = 'P';
+    public static final byte FRAME_OUTPUT = 'O';
+    public static final byte FRAME_EXIT = 'X';
+
+    private static DataOutputStream protocolOut;
+    private static volatile long runNonce;
+    private static Field shutdownHooks;
+
+    public static void main(String[] args) throws Exception {
+        protocolOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+
+        PrintStream programOut = new PrintStream(new BufferedOutputStream(new FrameOutputStream(), 8192), true);
+        System.setOut(programOut);
+        System.setErr(programOut);
+        // 사용자 코드가 System.exit()을 호출해도 버퍼에 남은 출력을 내보낸다
+        Runtime.getRuntime().addShutdownHook(new Thread(programOut::flush));
+
+        while (true) {
+            int type;
+            try {
+                type = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+
+            if (type == REQUEST_PING) {
+                synchronized (protocolOut) {
+                    protocolOut.writeByte(FRAME_PONG);
+                    protocolOut.flush();
+                }
+            } else if (type == REQUEST_RUN) {
+                run(in, programOut);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void run(DataInputStream in, PrintStream programOut) throws IOException {
+        long nonce = in.readLong();
+        URL[] classPath = new URL[in.readInt()];
+        for (int i = 0; i < classPath.length; i++) {
+            classPath[i] = new File(in.readUTF()).toURI().toURL();
+        }
+        Map<String, byte[]> classes = new HashMap<>();
+        int classCount = in.readInt();
+        for (int i = 0; i < classCount; i++) {
+            String name = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            classes.put(name, bytes);
+        }
+        String mainClass = in.readUTF();
+        byte[] stdin = new byte[in.readInt()];
+        in.readFully(stdin);
+        boolean measureMemory = in.readBoolean();
+        runNonce = nonce;
+        if (measureMemory) {
+            // 이전 실행이 남긴 객체가 최대 사용량에 섞이지 않도록 정리한 뒤 기준점을 잡는다
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+        }
+
+        // 사용자 코드가 바꿀 수 있는 JVM 전역 상태를 실행 전에 떠 둔다
+        PrintStream previousOut = System.out;
+        PrintStream previousErr = System.err;
+        InputStream previousIn = System.in;
+        InputStream programIn = new ByteArrayInputStream(stdin);
+        System.setIn(programIn);
+        // TimeZone.getDefault()는 처음 불릴 때 user.timezone을 채우므로 프로퍼티보다 먼저 읽는다
+        Locale locale = Locale.getDefault();
+        Locale displayLocale = Locale.getDefault(Locale.Category.DISPLAY);
+        Locale formatLocale = Locale.getDefault(Locale.Category.FORMAT);
+        TimeZone timeZone = TimeZone.getDefault();
+        Properties properties = System.getProperties();
+        Properties propertiesBefore = (Properties) properties.clone();
+        int shutdownHooksBefore = shutdownHookCount();
+        long startNanos = System.nanoTime();
+
+        Set<Thread> threadsBefore = new HashSet<>(Thread.getAllStackTraces().keySet());
+        int exitCode = 0;
+        boolean reusable = true;
+        MemoryClassLoader classLoader = new MemoryClassLoader(classPath, classes);
+        ClassLoader previousLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            try {
+                Method main = classLoader.loadClass(mainClass).getMethod("main", String[].class);
+                main.invoke(null, (Object) new String[0]);
+            } catch (InvocationTargetException e) {
+                programOut.print("Exception in thread \"main\" ");
+                e.getCause().printStackTrace(programOut);
+                exitCode = 1;
+            } catch (Throwable e) {
+                programOut.println("오류: 메인 클래스 " + mainClass + "을(를) 실행할 수 없습니다: " + e);
+                exitCode = 1;
+            }
+
+            // 일반 JVM처럼 사용자가 만든 non-daemon 스레드가 끝날 때까지 기다린다
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (threadsBefore.contains(thread) || !thread.isAlive()) {
+                    continue;
+                }
+                if (thread.isDaemon()) {
+                    reusable = false;
+                    continue;
+                }
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    reusable = false;
+                }
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(previousLoader);
+            boolean changed = System.out != previousOut || System.err != previousErr || System.in != programIn
+                || System.getProperties() != properties || !properties.equals(propertiesBefore)
+                || !Locale.getDefault().equals(locale)
+                || !Locale.getDefault(Locale.Category.DISPLAY).equals(displayLocale)
+                || !Locale.getDefault(Locale.Category.FORMAT).equals(formatLocale)
+                || !TimeZone.getDefault().equals(timeZone)
+                || shutdownHookCount() != shutdownHooksBefore;
+            System.setOut(previousOut);
+            System.setErr(previousErr);
+            System.setIn(previousIn);
+            if (changed) {
+                // 되돌려도 JDK가 이미 읽어 캐시한 값(line.separator 등)은 남으므로 이 러너는 더 쓰지 않는다
+                System.setProperties(propertiesBefore);
+                Locale.setDefault(locale);
+                Locale.setDefault(Locale.Category.DISPLAY, displayLocale);
+                Locale.setDefault(Locale.Category.FORMAT, formatLocale);
+                TimeZone.setDefault(timeZone);
+                reusable = false;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long peakHeapBytes = -1;
+        if (measureMemory) {
+            peakHeapBytes = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peakHeapBytes += pool.getPeakUsage().getUsed();
+                }
+            }
+        }
+
+        programOut.flush();
+        classLoader.close();
+        synchronized (protocolOut) {
+            protocolOut.writeByte(FRAME_EXIT);
+            protocolOut.writeLong(nonce);
+            protocolOut.writeInt(exitCode);
+            protocolOut.writeBoolean(reusable);
+            protocolOut.writeLong(elapsedNanos);
+            protocolOut.writeLong(peakHeapBytes);
+            protocolOut.flush();
+        }
+    }
+
+    /**
+     * 사용자 코드가 등록한 셧다운 훅 수. 훅 목록을 읽을 수 없으면 -1이다.
+     */
+    private static int shutdownHookCount() {
+        try {
+            if (shutdownHooks == null) {
+                Field hooks = Class.forName("java.lang.ApplicationShutdownHooks").getDeclaredField("hooks");
+                hooks.setAccessible(true);
+                shutdownHooks = hooks;
+            }
+            Class<?> owner = shutdownHooks.getDeclaringClass();
+            synchronized (owner) {
+                Map<?, ?> hooks = (Map<?, ?>) shutdownHooks.get(null);
+                return hooks == null ? -1 : hooks.size();
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static class FrameOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            synchronized (protocolOut) {
+                protocolOut.writeByte(FRAME_OUTPUT);
+                protocolOut.writeLong(runNonce);
+                protocolOut.writeInt(length);
+                protocolOut.write(bytes, offset, length);
+                protocolOut.flush();
+            }
+        }
+    }
+
+    private static class MemoryClassLoader extends URLClassLoader {
+        private final Map<String, byte[]> classes;
+
+        MemoryClassLoader(URL[] classPath, Map<String, byte[]> classes) {
+            super(classPath, ClassLoader.getPlatformClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes != null) {
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+            return super.findClass(name);
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package com.example.webidle.runner;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 다른 노드의 웹 애플리케이션에서 받은 프로그램을 실행하는 워커 프로세스의 진입점.
+ * <p>
+ * 워커는 상태를 갖지 않는다. 요청마다 TCP 연결을 하나 열고, 받은 클래스를 자신이 띄운 러너 JVM({@link RunnerMain})에서
+ * 실행해 출력을 그대로 흘려보낸다. 의존성 JAR는 SHA-256으로 캐시해 처음 보는 JAR만 전송받는다.
+ * 실행 시간, CPU 시간, 출력 크기 한도는 출력을 보내는 것과 상관없이 워커가 지키고, 넘으면 러너의 프로세스 트리를 죽인다.
+ * {@link RunnerMain}과 마찬가지로 JDK 이외의 클래스에 의존하면 안 된다.
+ * <p>
+ * 연결마다 워커가 먼저 임의의 값을 보내고, 요청한 쪽이 공유 비밀 키로 만든 HMAC-SHA256을 돌려주어야 요청을 받는다.
+ * 비밀 키는 환경 변수 {@value #SECRET_ENV} 또는 --secret-file로 주며, 없으면 워커를 시작하지 않는다.
+ * 한 번 쓴 러너는 같은 owner의 실행에만 다시 쓰고, 다른 owner가 쓰던 러너는 꺼내는 대로 폐기한다.
+ * --cgroup에 위임받은 cgroup v2 디렉토리를 주면 러너마다 하위 그룹을 만들어 메모리와 프로세스 수를 제한한다.
+ * <pre>
+ * 인증: 'C', byte[32] challenge → byte[32] HMAC-SHA256(비밀 키, challenge)
+ * 요청: int type (0 = ping, 1 = run)
+ *   ping 응답: 'P', int activeRuns, int capacity
+ *   run: long timeoutMillis, long cpuMillis, long maxOutputBytes (0 이하이면 제한 없음),
+ *        UTF owner (빈 문자열이면 실행한 러너를 다시 쓰지 않음), int jarCount, (UTF sha256, UTF fileName)[]
+ *     응답: 'J', int missingCount, int[] 없는 JAR의 순번
+ *     이어서: (long length, byte[])[] 없는 JAR 내용, int classCount, (UTF name, int length, byte[])[],
+ *            UTF mainClass, int stdinLength, byte[] stdin, boolean measureMemory
+ *     응답: 'O' : int length, byte[] 프로그램 출력
+ *           'X' : int exitCode, UTF exceededLimit (한도 안에서 끝났으면 빈 문자열), long elapsedNanos,
+ *                 long peakHeapBytes
+ * </pre>
+ * 실행: {@code java -cp <클래스패스> com.example.webidle.runner.WorkerMain --port 9101 [--host 127.0.0.1]
+ * [--capacity 2] [--max-uses 20] [--cache-dir DIR] [--secret-file FILE] [--cgroup DIR [--cgroup-memory-max BYTES]
+ * [--cgroup-pids-max N]] [--parent-pid PID] [-- 러너 JVM 옵션...]}
+ * --parent-pid를 주면 그 프로세스가 끝날 때 워커도 종료한다.
+ */
+public class WorkerMain {
+    public static final int REQUEST_PING = 0;
+    public static final int REQUEST_RUN = 1;
+    public static final byte FRAME_CHALLENGE = 'C';
+    public static final byte FRAME_PONG = 'P';
+    public static final byte FRAME_JARS = 'J';
+    public static final byte FRAME_OUTPUT = 'O';
+    public static final byte FRAME_EXIT = 'X';
+
+    // 웹 애플리케이션의 ExecutionBudget과 같은 한도 이름을 쓴다
+    static final String LIMIT_WALL_TIME = "wall_time";
+    static final String LIMIT_CPU_TIME = "cpu_time";
+    static final String LIMIT_OUTPUT = "output";
+
+    public static final String SECRET_ENV = "WEBIDLE_WORKER_SECRET";
+    public static final int CHALLENGE_BYTES = 32;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final long RUNNER_START_TIMEOUT_MILLIS = 10_000;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5_000;
+    private static final long GROUP_REMOVE_TIMEOUT_MILLIS = 2_000;
+    private static final long CPU_CHECK_INTERVAL_MILLIS = 50;
+    private static final SecureRandom NONCES = new SecureRandom();
+    private static final String RUNNER_OPENS = "--add-opens=java.base/java.lang=ALL-UNNAMED";
+
+    private final int capacity;
+    private final int maxUses;
+    private final Path cacheDir;
+    private final List<String> runnerCommand;
+    private final byte[] secret;
+    private final Path cgroupRoot;
+    private final long cgroupMemoryMax;
+    private final long cgroupPidsMax;
+    private final AtomicInteger groupIds = new AtomicInteger();
+    private final Semaphore slots;
+    private final AtomicInteger activeRuns = new AtomicInteger();
+    private final BlockingQueue<Runner> idleRunners = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService watchdogs = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "worker-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    WorkerMain(int capacity, int maxUses, Path cacheDir, List<String> runnerOptions, byte[] secret,
+               Path cgroupRoot, long cgroupMemoryMax, long cgroupPidsMax) {
+        this.capacity = capacity;
+        this.maxUses = maxUses;
+        this.cacheDir = cacheDir;
+        this.secret = secret;
+        this.cgroupRoot = cgroupRoot;
+        this.cgroupMemoryMax = cgroupMemoryMax;
+        this.cgroupPidsMax = cgroupPidsMax;
+        this.slots = new Semaphore(capacity, true);
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(runnerOptions);
+        if (!runnerOptions.contains(RUNNER_OPENS)) {
+            // 러너가 실행마다 셧다운 훅이 추가되었는지 확인할 수 있게 한다
+            command.add(RUNNER_OPENS);
+        }
+        command.add("-Dfile.encoding=UTF-8");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(RunnerMain.class.getName());
+        this.runnerCommand = command;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 9101;
+        String host = "127.0.0.1";
+        int capacity = Runtime.getRuntime().availableProcessors();
+        int maxUses = 20;
+        Path cacheDir = null;
+        Path secretFile = null;
+        Path cgroupRoot = null;
+        long cgroupMemoryMax = 536_870_912;
+        long cgroupPidsMax = 128;
+        List<String> runnerOptions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--host" -> host = args[++i];
+                case "--capacity" -> capacity = Integer.parseInt(args[++i]);
+                case "--max-uses" -> maxUses = Integer.parseInt(args[++i]);
+                case "--cache-dir" -> cacheDir = Paths.get(args[++i]);
+                case "--secret-file" -> secretFile = Paths.get(args[++i]);
+                case "--cgroup" -> cgroupRoot = Paths.get(args[++i]);
+                case "--cgroup-memory-max" -> cgroupMemoryMax = Long.parseLong(args[++i]);
+                case "--cgroup-pids-max" -> cgroupPidsMax = Long.parseLong(args[++i]);
+                case "--parent-pid" -> ProcessHandle.of(Long.parseLong(args[++i]))
+                    .ifPresentOrElse(parent -> parent.onExit().thenRun(() -> System.exit(0)), () -> System.exit(0));
+                case "--" -> {
+                    for (i++; i < args.length; i++) {
+                        runnerOptions.add(args[i]);
+                    }
+                }
+                default -> throw new IllegalArgumentException("알 수 없는 옵션: " + args[i]);
+            }
+        }
+        if (cacheDir == null) {
+            cacheDir = Paths.get(System.getProperty("java.io.tmpdir"), "webidle-worker-" + port);
+        }
+        Files.createDirectories(cacheDir);
+        // 명령줄은 다른 사용자도 볼 수 있으므로 비밀 키는 환경 변수나 파일로만 받는다
+        String secret = secretFile != null ? Files.readString(secretFile).trim() : System.getenv(SECRET_ENV);
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("비밀 키가 없습니다: 환경 변수 " + SECRET_ENV + " 또는 --secret-file");
+        }
+        if (cgroupRoot != null && !Files.isRegularFile(cgroupRoot.resolve("cgroup.subtree_control"))) {
+            throw new IllegalArgumentException("cgroup v2 디렉토리가 아닙니다: " + cgroupRoot);
+        }
+
+        WorkerMain worker = new WorkerMain(capacity, maxUses, cacheDir, runnerOptions,
+            secret.getBytes(StandardCharsets.UTF_8), cgroupRoot, cgroupMemoryMax, cgroupPidsMax);
+        worker.serve(new ServerSocket(port, 50, InetAddress.getByName(host)));
+    }
+
+    void serve(ServerSocket serverSocket) throws IOException {
+        ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "worker-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 첫 요청이 JVM 기동을 기다리지 않도록 러너를 미리 띄운다
+        connections.execute(() -> {
+            for (int i = 0; i < capacity; i++) {
+                try {
+                    idleRunners.add(startRunner());
+                } catch (IOException e) {
+                    System.err.println("러너 프로세스 시작 실패: " + e.getMessage());
+                }
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> idleRunners.forEach(Runner::destroy)));
+        System.out.println("워커 시작: " + serverSocket.getLocalSocketAddress() + ", 동시 실행 " + capacity);
+
+        while (true) {
+            Socket socket = serverSocket.accept();
+            connections.execute(() -> handle(socket));
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            if (!authenticate(in, out)) {
+                System.err.println("인증 실패로 연결을 닫음: " + socket.getRemoteSocketAddress());
+                return;
+            }
+            socket.setSoTimeout(0);
+            int type = in.readInt();
+            if (type == REQUEST_PING) {
+                out.writeByte(FRAME_PONG);
+                out.writeInt(activeRuns.get());
+                out.writeInt(capacity);
+                out.flush();
+            } else if (type == REQUEST_RUN) {
+                run(in, out);
+            }
+        } catch (IOException e) {
+            // 요청한 쪽이 연결을 끊은 경우
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean authenticate(DataInputStream in, DataOutputStream out) throws IOException {
+        byte[] challenge = new byte[CHALLENGE_BYTES];
+        NONCES.nextBytes(challenge);
+        out.writeByte(FRAME_CHALLENGE);
+        out.write(challenge);
+        out.flush();
+        byte[] response = new byte[CHALLENGE_BYTES];
+        in.readFully(response);
+        return MessageDigest.isEqual(hmac(secret, challenge), response);
+    }
+
+    /**
+     * 인증 응답. 요청하는 쪽({@code RemoteExecutionBackend})도 이 메서드로 만든다.
+     */
+    public static byte[] hmac(byte[] secret, byte[] challenge) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            return mac.doFinal(challenge);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void run(DataInputStream in, DataOutputStream out) throws IOException, InterruptedException {
+        long timeoutMillis = in.readLong();
+        long cpuMillis = in.readLong();
+        long maxOutputBytes = in.readLong();
+        String owner = in.readUTF();
+        List<Path> classPath = receiveJars(in, out);
+
+        // 러너 프로토콜의 run 요청으로 바꿔 담는다. 클래스패스만 워커의 캐시 경로로 바뀐다
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        DataOutputStream runRequest = new DataOutputStream(request);
+        long nonce = NONCES.nextLong();
+        runRequest.writeInt(RunnerMain.REQUEST_RUN);
+        runRequest.writeLong(nonce);
+        runRequest.writeInt(classPath.size());
+        for (Path jar : classPath) {
+            runRequest.writeUTF(jar.toString());
+        }
+        int classCount = in.readInt();
+        runRequest.writeInt(classCount);
+        for (int i = 0; i < classCount; i++) {
+            runRequest.writeUTF(in.readUTF());
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            runRequest.writeInt(bytes.length);
+            runRequest.write(bytes);
+        }
+        runRequest.writeUTF(in.readUTF());
+        byte[] stdin = new byte[in.readInt()];
+        in.readFully(stdin);
+        runRequest.writeInt(stdin.length);
+        runRequest.write(stdin);
+        runRequest.writeBoolean(in.readBoolean());
+
+        slots.acquire();
+        activeRuns.incrementAndGet();
+        try {
+            execute(request.toByteArray(), nonce, owner, timeoutMillis, cpuMillis, maxOutputBytes, out);
+        } finally {
+            activeRuns.decrementAndGet();
+            slots.release();
+        }
+    }
+
+    /**
+     * 캐시에 없는 JAR 목록을 알려 주고 내용을 받아 저장한다. 클래스패스 순서대로 캐시 경로를 돌려준다.
+     */
+    private List<Path> receiveJars(DataInputStream in, DataOutputStream out) throws IOException {
+        int jarCount = in.readInt();
+        List<Path> classPath = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < jarCount; i++) {
+            String hash = in.readUTF();
+            String fileName = Paths.get(in.readUTF()).getFileName().toString();
+            if (!hash.matches("[0-9a-f]{64}")) {
+                throw new IOException("잘못된 JAR 해시: " + hash);
+            }
+            Path jar = cacheDir.resolve(hash.substring(0, 16) + "-" + fileName);
+            classPath.add(jar);
+            if (!Files.exists(jar)) {
+                missing.add(i);
+            }
+        }
+        out.writeByte(FRAME_JARS);
+        out.writeInt(missing.size());
+        for (int index : missing) {
+            out.writeInt(index);
+        }
+        out.flush();
+
+        for (int index : missing) {
+            long remaining = in.readLong();
+            Path temp = Files.createTempFile(cacheDir, "jar", ".tmp");
+            try (OutputStream file = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[65536];
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    file.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, classPath.get(index), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return classPath;
+    }
+
+    /**
+     * 대기 러너를 꺼낸다. 아직 아무 실행도 하지 않은 러너나 owner가 마지막으로 쓴 러너만 돌려주고,
+     * 다른 owner가 쓰던 러너는 폐기한다. 쓸 러너가 없으면 null을 돌려준다.
+     */
+    private Runner acquire(String owner) {
+        if (!owner.isEmpty()) {
+            for (Runner runner : idleRunners) {
+                if (owner.equals(runner.owner) && idleRunners.remove(runner)) {
+                    return runner;
+                }
+            }
+        }
+        Runner runner;
+        while ((runner = idleRunners.poll()) != null) {
+            if (runner.owner == null || runner.owner.equals(owner)) {
+                return runner;
+            }
+            runner.destroy();
+        }
+        return null;
+    }
+
+    private void execute(byte[] request, long nonce, String owner, long timeoutMillis, long cpuMillis,
+                         long maxOutputBytes, DataOutputStream out) throws IOException {
+        Runner runner = acquire(owner);
+        if (runner == null) {
+            runner = startRunner();
+        }
+        Runner current = runner;
+        Watch watch = new Watch(current, timeoutMillis, cpuMillis);
+        int exitCode;
+        boolean reusable = false;
+        long elapsedNanos = -1;
+        long peakHeapBytes = -1;
+        long outputBytes = 0;
+        boolean clientGone = false;
+        try {
+            current.in.write(request);
+            current.in.flush();
+            while (true) {
+                byte frame = current.out.readByte();
+                if ((frame == RunnerMain.FRAME_OUTPUT || frame == RunnerMain.FRAME_EXIT)
+                        && current.out.readLong() != nonce) {
+                    // 사용자 코드가 러너의 표준 출력에 직접 써서 프레임을 흉내 낸 경우
+                    current.destroy();
+                    throw new IOException("러너 응답의 nonce가 맞지 않습니다");
+                }
+                if (frame == RunnerMain.FRAME_OUTPUT) {
+                    byte[] chunk = new byte[current.out.readInt()];
+                    current.out.readFully(chunk);
+                    int length = chunk.length;
+                    if (maxOutputBytes > 0 && outputBytes + length > maxOutputBytes) {
+                        // 한도까지만 보내고 러너를 죽인다. 이어지는 읽기는 러너가 죽어 실패한다
+                        length = (int) (maxOutputBytes - outputBytes);
+                        watch.trip(LIMIT_OUTPUT);
+                    }
+                    outputBytes += length;
+                    try {
+                        out.writeByte(FRAME_OUTPUT);
+                        out.writeInt(length);
+                        out.write(chunk, 0, length);
+                        out.flush();
+                    } catch (IOException e) {
+                        clientGone = true;
+                        throw e;
+                    }
+                } else if (frame == RunnerMain.FRAME_EXIT) {
+                    exitCode = current.out.readInt();
+                    reusable = current.out.readBoolean();
+                    elapsedNanos = current.out.readLong();
+                    peakHeapBytes = current.out.readLong();
+                    break;
+                } else {
+                    current.destroy();
+                    throw new IOException("알 수 없는 러너 응답: " + frame);
+                }
+            }
+            watch.cancel();
+        } catch (IOException e) {
+            watch.cancel();
+            if (clientGone) {
+                // 요청한 쪽이 사라지면 실행을 중단한다
+                current.destroy();
+                throw e;
+            }
+            // 한도를 넘어 러너를 죽였거나 사용자 코드가 System.exit()을 호출한 경우
+            exitCode = watch.exceeded != null ? -1 : current.exitCode();
+        }
+        String exceededLimit = watch.exceeded;
+        if (exceededLimit != null) {
+            // 종료 프레임을 받은 직후 한도를 넘었어도 러너는 이미 죽었다
+            exitCode = -1;
+            reusable = false;
+        }
+
+        // 사용자 코드가 띄운 자식 프로세스가 남아 있으면 러너째 정리한다
+        boolean strayChildren = current.process.descendants().anyMatch(ProcessHandle::isAlive);
+        if (!owner.isEmpty() && reusable && !strayChildren && ++current.uses < maxUses) {
+            current.owner = owner;
+            idleRunners.add(current);
+        } else {
+            current.destroy();
+        }
+        out.writeByte(FRAME_EXIT);
+        out.writeInt(exitCode);
+        out.writeUTF(exceededLimit == null ? "" : exceededLimit);
+        out.writeLong(elapsedNanos);
+        out.writeLong(peakHeapBytes);
+        out.flush();
+    }
+
+    /**
+     * 러너를 띄우고 응답할 때까지 기다려 JVM 기동 시간이 실행 시간 제한에 들어가지 않게 한다.
+     */
+    private Runner startRunner() throws IOException {
+        Path group = createGroup();
+        List<String> command = runnerCommand;
+        if (group != null) {
+            // 셸이 자신을 그룹에 넣은 뒤 러너로 바뀌어 JVM이 처음부터 그룹 안에서 시작한다
+            command = new ArrayList<>(List.of("/bin/sh", "-c", "echo $$ > \"$0\" && exec \"$@\"",
+                group.resolve("cgroup.procs").toString()));
+            command.addAll(runnerCommand);
+        }
+        Process process;
+        try {
+            process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        } catch (IOException e) {
+            removeGroup(group);
+            throw e;
+        }
+        Runner runner = new Runner(process, group);
+        ScheduledFuture<?> startTimeout = watchdogs.schedule(runner::destroy, RUNNER_START_TIMEOUT_MILLIS,
+            TimeUnit.MILLISECONDS);
+        try {
+            runner.in.writeInt(RunnerMain.REQUEST_PING);
+            runner.in.flush();
+            if (runner.out.readByte() != RunnerMain.FRAME_PONG) {
+                throw new IOException("러너가 잘못된 응답을 보냈습니다");
+            }
+        } catch (IOException e) {
+            runner.destroy();
+            throw new IOException("러너 프로세스가 응답하지 않습니다", e);
+        } finally {
+            startTimeout.cancel(false);
+        }
+        return runner;
+    }
+
+    /**
+     * 러너 하나를 담을 cgroup을 만든다. --cgroup이 없으면 null이다.
+     */
+    private Path createGroup() throws IOException {
+        if (cgroupRoot == null) {
+            return null;
+        }
+        Path group = cgroupRoot.resolve("runner-" + ProcessHandle.current().pid() + "-" + groupIds.incrementAndGet());
+        Files.createDirectory(group);
+        try {
+            writeControl(group.resolve("memory.max"), cgroupMemoryMax > 0 ? String.valueOf(cgroupMemoryMax) : "max");
+            if (Files.exists(group.resolve("memory.swap.max"))) {
+                writeControl(group.resolve("memory.swap.max"), "0");
+            }
+            writeControl(group.resolve("pids.max"), cgroupPidsMax > 0 ? String.valueOf(cgroupPidsMax) : "max");
+        } catch (IOException e) {
+            removeGroup(group);
+            throw new IOException("러너 cgroup 설정 실패: " + e.getMessage(), e);
+        }
+        return group;
+    }
+
+    /**
+     * 그룹에 남은 프로세스를 모두 죽이고 그룹을 지운다. 프로세스가 모두 빠져나가야 지울 수 있다.
+     */
+    private static void removeGroup(Path group) {
+        if (group == null) {
+            return;
+        }
+        try {
+            killGroup(group);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GROUP_REMOVE_TIMEOUT_MILLIS);
+            while (true) {
+                try {
+                    Files.deleteIfExists(group);
+                    return;
+                } catch (IOException e) {
+                    if (System.nanoTime() > deadline) {
+                        throw e;
+                    }
+                    Thread.sleep(20);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("러너 cgroup 삭제 실패: " + group + " - " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void killGroup(Path group) throws IOException {
+        if (Files.exists(group.resolve("cgroup.kill"))) {
+            writeControl(group.resolve("cgroup.kill"), "1");
+        }
+    }
+
+    private static void writeControl(Path file, String value) throws IOException {
+        Files.writeString(file, value, StandardOpenOption.WRITE);
+    }
+
+    private static class Runner {
+        private final Process process;
+        private final Path group;
+        private final DataOutputStream in;
+        private final DataInputStream out;
+        private int uses;
+        /** 마지막으로 이 러너에서 실행한 owner. 아직 아무 실행도 하지 않았으면 null이다. */
+        private volatile String owner;
+
+        Runner(Process process, Path group) {
+            this.process = process;
+            this.group = group;
+            if (group != null) {
+                // 러너가 어떻게 끝나든 남은 자손과 함께 그룹을 지운다. 지우기를 기다리므로 감시 스레드에서 하지 않는다
+                process.onExit().thenRunAsync(() -> removeGroup(group));
+            }
+            this.in = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.out = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        /**
+         * 러너가 끝났으면 종료 코드를, 응답이 깨졌는데도 살아 있으면 죽이고 -1을 돌려준다.
+         */
+        int exitCode() {
+            try {
+                if (process.waitFor(RUNNER_START_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return process.exitValue();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            destroy();
+            return -1;
+        }
+
+        /**
+         * 러너와 사용자 코드가 띄운 자손 프로세스를 모두 죽인다. 부모를 죽이면 자손이 목록에서 빠지므로 먼저 잡아 둔다.
+         */
+        void destroy() {
+            List<ProcessHandle> descendants = process.descendants().toList();
+            process.destroyForcibly();
+            descendants.forEach(ProcessHandle::destroyForcibly);
+            if (group != null) {
+                // 부모가 먼저 끝나 목록에서 빠진 자손은 그룹으로 죽인다
+                try {
+                    killGroup(group);
+                } catch (IOException e) {
+                    System.err.println("러너 cgroup 종료 실패: " + group + " - " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * 러너와 살아 있는 자손이 쓴 CPU 시간.
+         */
+        long cpuNanos() {
+            ProcessHandle handle = process.toHandle();
+            long total = cpuNanos(handle);
+            for (ProcessHandle descendant : handle.descendants().toList()) {
+                total += cpuNanos(descendant);
+            }
+            return total;
+        }
+
+        private static long cpuNanos(ProcessHandle process) {
+            return process.info().totalCpuDuration().map(Duration::toNanos).orElse(0L);
+        }
+    }
+
+    /**
+     * 한 번의 실행에 건 실행 시간과 CPU 시간 한도. 넘으면 넘은 한도를 기록하고 러너를 죽인다.
+     */
+    private class Watch {
+        private final Runner runner;
+        private final long cpuStartNanos;
+        private final long cpuLimitNanos;
+        private final ScheduledFuture<?> wallTask;
+        private final ScheduledFuture<?> cpuTask;
+        private volatile String exceeded;
+
+        Watch(Runner runner, long timeoutMillis, long cpuMillis) {
+            this.runner = runner;
+            this.cpuStartNanos = runner.cpuNanos();
+            this.cpuLimitNanos = TimeUnit.MILLISECONDS.toNanos(cpuMillis);
+            this.wallTask = timeoutMillis > 0
+                ? watchdogs.schedule(() -> trip(LIMIT_WALL_TIME), timeoutMillis, TimeUnit.MILLISECONDS)
+                : null;
+            this.cpuTask = cpuMillis > 0
+                ? watchdogs.scheduleWithFixedDelay(this::checkCpu, CPU_CHECK_INTERVAL_MILLIS,
+                    CPU_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                : null;
+        }
+
+        private void checkCpu() {
+            if (runner.cpuNanos() - cpuStartNanos > cpuLimitNanos) {
+                trip(LIMIT_CPU_TIME);
+            }
+        }
+
+        synchronized void trip(String limit) {
+            if (exceeded != null) {
+                return;
+            }
+            exceeded = limit;
+            cancel();
+            runner.destroy();
+        }
+
+        void cancel() {
+            if (wallTask != null) {
+                wallTask.cancel(false);
+            }
+            if (cpuTask != null) {
+                cpuTask.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.BatchExecutionRequest;
+import com.example.webidle.model.BatchExecutionResult;
+import com.example.webidle.model.ResourceUsage;
+import com.example.webidle.model.TestCaseResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 컴파일된 프로그램 하나를 여러 테스트 케이스 입력으로 병렬 실행한다.
+ * <p>
+ * 케이스는 모든 배치가 함께 쓰는 실행기에서 돌기 때문에 동시에 떠 있는 러너 JVM 수는 parallelism을 넘지 않는다.
+ * 케이스마다 표준 입력, 실행 시간 제한, 출력 한도를 따로 두고, 러너 안에서 잰 실행 시간과 최대 힙 사용량을 돌려준다.
+ * 케이스의 시간 제한은 CPU 시간 제한으로도 쓰며, 어느 한도를 넘었는지는 케이스 상태로 알린다.
+ * sessionId가 있으면 케이스가 끝날 때마다 {@code /topic/output/{sessionId}}로 진행 상황을 보낸다.
+ */
+@Component
+public class BatchCaseRunner {
+    private final ExecutionBackend executionBackend;
+    private final OutputStreamPublisher outputStreamPublisher;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ProcessWatchdog processWatchdog;
+    private final ExecutorService caseExecutor;
+    private final int parallelism;
+    private final int maxCases;
+    private final long defaultTimeoutMillis;
+    private final long maxTimeoutMillis;
+    private final int maxOutputChars;
+
+    public BatchCaseRunner(ExecutionBackend executionBackend, OutputStreamPublisher outputStreamPublisher,
+                           SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+                           ProcessWatchdog processWatchdog,
+                           @Value("${webidle.batch.parallelism:0}") int parallelism,
+                           @Value("${webidle.batch.max-cases:200}") int maxCases,
+                           @Value("${webidle.batch.default-timeout-ms:2000}") long defaultTimeoutMillis,
+                           @Value("${webidle.batch.max-timeout-ms:10000}") long maxTimeoutMillis,
+                           @Value("${webidle.batch.max-output-chars:65536}") int maxOutputChars) {
+        this.executionBackend = executionBackend;
+        this.outputStreamPublisher = outputStreamPublisher;
+        this.messagingTemplate = messagingTemplate;
+        this.meterRegistry = meterRegistry;
+        this.processWatchdog = processWatchdog;
+        // 0 이하이면 코어 수만큼 동시에 실행
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxCases = maxCases;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+        this.maxOutputChars = maxOutputChars;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.caseExecutor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "batch-case-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 케이스 수와 비교 방식을 확인한다. 컴파일하기 전에 불러 잘못된 요청을 일찍 거절한다.
+     */
+    public void validate(BatchExecutionRequest request) {
+        List<BatchExecutionRequest.TestCase> cases = request.getCases();
+        if (cases == null || cases.isEmpty()) {
+            throw new IllegalArgumentException("테스트 케이스가 없습니다");
+        }
+        if (cases.size() > maxCases) {
+            throw new IllegalArgumentException("테스트 케이스는 최대 " + maxCases + "개까지 실행할 수 있습니다");
+        }
+        String compare = request.getCompare();
+        if (compare != null && !compare.equals("trimmed") && !compare.equals("exact")) {
+            throw new IllegalArgumentException("알 수 없는 비교 방식: " + compare);
+        }
+    }
+
+    /**
+     * 모든 케이스를 실행하고 요청 순서대로 결과를 돌려준다.
+     */
+    public BatchExecutionResult runAll(Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                                      BatchExecutionRequest request) throws InterruptedException {
+        List<BatchExecutionRequest.TestCase> cases = request.getCases();
+        boolean exact = "exact".equals(request.getCompare());
+        String destination = request.getSessionId() == null ? null : "/topic/output/" + request.getSessionId();
+        // 세션이 없으면 이 배치의 케이스끼리만 러너를 다시 쓴다
+        String owner = request.getSessionId() != null ? request.getSessionId() : UUID.randomUUID().toString();
+
+        List<Future<TestCaseResult>> futures = new ArrayList<>();
+        for (int i = 0; i < cases.size(); i++) {
+            int index = i;
+            BatchExecutionRequest.TestCase testCase = cases.get(i);
+            long timeoutMillis = Math.min(maxTimeoutMillis, firstNonNull(testCase.getTimeoutMillis(),
+                request.getTimeoutMillis(), defaultTimeoutMillis));
+            futures.add(caseExecutor.submit(() -> {
+                TestCaseResult result;
+                try {
+                    result = runCase(owner, classes, classPath, mainClass, index, testCase, timeoutMillis, exact);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // 러너를 띄우지 못한 경우 등은 해당 케이스만 실패로 기록한다
+                    System.err.println("테스트 케이스 " + index + " 실행 실패: " + e.getMessage());
+                    result = TestCaseResult.error(index, testCase.getId(), e.getMessage(),
+                        testCase.getExpectedOutput() != null);
+                }
+                if (destination != null) {
+                    // 출력은 최종 응답에만 담는다
+                    Map<String, Object> frame = new LinkedHashMap<>();
+                    frame.put("type", "case");
+                    frame.put("total", cases.size());
+                    frame.put("index", result.index());
+                    frame.put("id", result.id());
+                    frame.put("status", result.status());
+                    frame.put("passed", result.passed());
+                    frame.put("timeMillis", result.timeMillis());
+                    frame.put("memoryBytes", result.memoryBytes());
+                    messagingTemplate.convertAndSend(destination, frame);
+                }
+                return result;
+            }));
+        }
+
+        List<TestCaseResult> results = new ArrayList<>();
+        int passed = 0;
+        int failed = 0;
+        Map<String, Integer> statuses = new TreeMap<>();
+        try {
+            for (Future<TestCaseResult> future : futures) {
+                TestCaseResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("테스트 케이스 실행 실패: " + e.getCause().getMessage(), e.getCause());
+                }
+                results.add(result);
+                statuses.merge(result.status(), 1, Integer::sum);
+                if (Boolean.TRUE.equals(result.passed())) {
+                    passed++;
+                } else if (Boolean.FALSE.equals(result.passed())) {
+                    failed++;
+                }
+            }
+        } finally {
+            // 요청이 중단되면 아직 시작하지 않은 케이스는 실행하지 않는다
+            for (Future<TestCaseResult> future : futures) {
+                future.cancel(false);
+            }
+        }
+
+        return BatchExecutionResult.of(results,
+            new BatchExecutionResult.Summary(cases.size(), passed, failed, statuses), parallelism);
+    }
+
+    private TestCaseResult runCase(String owner, Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                                   int index, BatchExecutionRequest.TestCase testCase, long timeoutMillis,
+                                   boolean exact) throws IOException, InterruptedException {
+        byte[] stdin = testCase.getInput() == null ? new byte[0]
+            : testCase.getInput().getBytes(StandardCharsets.UTF_8);
+        ProgramOutput output = outputStreamPublisher.collect(maxOutputChars);
+
+        long startNanos = System.nanoTime();
+        RunnerPool.RunResult run = executionBackend.runCase(owner, classes, classPath, mainClass, stdin,
+            processWatchdog.caseBudget(timeoutMillis), output);
+        long wallNanos = System.nanoTime() - startNanos - run.getAcquireNanos();
+        output.complete(Collections.emptyMap());
+
+        ResourceUsage usage = run.getResourceUsage();
+        String status;
+        if (ExecutionBudget.WALL_TIME.equals(run.getExceededLimit())) {
+            status = "timeout";
+        } else if (ExecutionBudget.CPU_TIME.equals(run.getExceededLimit())) {
+            status = "cpu_limit";
+        } else if (ExecutionBudget.OUTPUT.equals(run.getExceededLimit())) {
+            status = "output_limit";
+        } else if (usage != null && usage.oomKilled()) {
+            status = "memory_limit";
+        } else if (run.getExitCode() != 0) {
+            status = "runtime_error";
+        } else {
+            status = "ok";
+        }
+        // System.exit()으로 끝나면 러너가 시간을 보내지 못하므로 바깥에서 잰 시간을 쓴다
+        long elapsedNanos = run.getElapsedNanos() >= 0 ? run.getElapsedNanos() : wallNanos;
+        meterRegistry.counter("webidle.batch.cases", "status", status).increment();
+
+        Boolean passed = null;
+        if (testCase.getExpectedOutput() != null) {
+            passed = status.equals("ok") && !output.isTruncated()
+                && outputMatches(output.getRetainedOutput(), testCase.getExpectedOutput(), exact);
+        }
+        return new TestCaseResult(index, testCase.getId(), status, run.getExitCode(), output.getRetainedOutput(),
+            output.isTruncated(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), timeoutMillis,
+            run.getPeakMemoryBytes() >= 0 ? run.getPeakMemoryBytes() : null, usage, passed, null);
+    }
+
+    /**
+     * trimmed 비교는 줄바꿈을 \n으로 맞추고, 줄 끝 공백과 마지막 빈 줄을 무시한다.
+     */
+    static boolean outputMatches(String actual, String expected, boolean exact) {
+        if (exact) {
+            return actual.equals(expected);
+        }
+        return normalize(actual).equals(normalize(expected));
+    }
+
+    private static String normalize(String text) {
+        String[] lines = text.replace("\r\n", "\n").split("\n", -1);
+        StringBuilder normalized = new StringBuilder();
+        for (String line : lines) {
+            normalized.append(line.stripTrailing()).append('\n');
+        }
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    private static long firstNonNull(Long first, Long second, long fallback) {
+        if (first != null && first > 0) {
+            return first;
+        }
+        if (second != null && second > 0) {
+            return second;
+        }
+        return fallback;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        caseExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.ResourceUsage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 사용자 프로그램 JVM마다 cgroup v2 그룹을 만들어 CPU, 메모리, 프로세스 수를 제한하고 사용량을 읽는다.
+ * <pre>
+ * {root}/                  cpu, memory, pids 컨트롤러를 하위 그룹에 켠다
+ *   webidle-server/        root가 이 프로세스의 그룹이면 서버를 여기로 옮긴다 (프로세스가 있는 그룹은 하위 그룹을 제한할 수 없다)
+ *   webidle-runners/
+ *     runner-{n}/          러너 JVM 하나 (cpu.max, memory.max, memory.swap.max, pids.max)
+ * </pre>
+ * root를 비워 두면 이 프로세스가 속한 그룹을 쓰므로, systemd의 Delegate=yes처럼 그룹을 위임받은 상태여야 한다.
+ * Linux가 아니거나 cgroup v2가 없거나 쓰기 권한이 없으면 이유를 남기고 제한 없이 실행한다.
+ */
+@Component
+public class CgroupManager {
+    private static final Path CGROUP_MOUNT = Paths.get("/sys/fs/cgroup");
+    private static final List<String> CONTROLLERS = List.of("cpu", "memory", "pids");
+    private static final String SERVER_GROUP = "webidle-server";
+    private static final String RUNNERS_GROUP = "webidle-runners";
+    private static final long REMOVE_TIMEOUT_MILLIS = 2000;
+
+    private final String cpuMax;
+    private final long memoryMaxBytes;
+    private final long memorySwapMaxBytes;
+    private final long pidsMax;
+    private final AtomicLong groupIds = new AtomicLong();
+    private final AtomicLong activeGroups = new AtomicLong();
+    private Path runnersGroup;
+    private Set<String> controllers = Set.of();
+    private String status;
+
+    public CgroupManager(@Value("${webidle.cgroup.enabled:true}") boolean enabled,
+                         @Value("${webidle.cgroup.root:}") String root,
+                         @Value("${webidle.cgroup.cpu-quota:1.0}") double cpuQuota,
+                         @Value("${webidle.cgroup.cpu-period-us:100000}") long cpuPeriodMicros,
+                         @Value("${webidle.cgroup.memory-max-bytes:536870912}") long memoryMaxBytes,
+                         @Value("${webidle.cgroup.memory-swap-max-bytes:0}") long memorySwapMaxBytes,
+                         @Value("${webidle.cgroup.pids-max:128}") long pidsMax) {
+        // 0 이하이면 제한하지 않는다
+        this.cpuMax = cpuQuota > 0 ? Math.round(cpuQuota * cpuPeriodMicros) + " " + cpuPeriodMicros : "max";
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.memorySwapMaxBytes = memorySwapMaxBytes;
+        this.pidsMax = pidsMax;
+
+        if (!enabled) {
+            status = "disabled";
+            return;
+        }
+        try {
+            initialize(root);
+            status = "active";
+            System.out.println("cgroup 격리 사용: " + runnersGroup + " (컨트롤러 " + controllers + ")");
+        } catch (IOException | RuntimeException e) {
+            runnersGroup = null;
+            status = "unavailable: " + e.getMessage();
+            System.err.println("cgroup v2를 사용할 수 없어 자원 제한 없이 실행합니다: " + e.getMessage());
+        }
+    }
+
+    private void initialize(String root) throws IOException {
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")) {
+            throw new IOException("Linux가 아닙니다");
+        }
+        if (!Files.exists(CGROUP_MOUNT.resolve("cgroup.controllers"))) {
+            throw new IOException("cgroup v2가 " + CGROUP_MOUNT + "에 마운트되어 있지 않습니다");
+        }
+        Path ownGroup = ownGroup();
+        Path base = root.isBlank() ? ownGroup : CGROUP_MOUNT.resolve(root.replaceFirst("^/+", "")).normalize();
+        if (!base.startsWith(CGROUP_MOUNT)) {
+            throw new IOException("cgroup 경로가 " + CGROUP_MOUNT + " 밖에 있습니다: " + root);
+        }
+
+        Set<String> available = new HashSet<>(Arrays.asList(read(base.resolve("cgroup.controllers")).split("\\s+")));
+        Set<String> enabledControllers = new LinkedHashSet<>();
+        for (String controller : CONTROLLERS) {
+            if (available.contains(controller)) {
+                enabledControllers.add(controller);
+            }
+        }
+        if (!enabledControllers.contains("memory") || !enabledControllers.contains("pids")) {
+            throw new IOException(base + "에서 memory/pids 컨트롤러를 쓸 수 없습니다 (사용 가능: " + available + ")");
+        }
+
+        if (base.equals(ownGroup)) {
+            Path serverGroup = base.resolve(SERVER_GROUP);
+            Files.createDirectories(serverGroup);
+            write(serverGroup.resolve("cgroup.procs"), String.valueOf(ProcessHandle.current().pid()));
+        }
+        enableControllers(base, enabledControllers);
+        Path runners = base.resolve(RUNNERS_GROUP);
+        Files.createDirectories(runners);
+        enableControllers(runners, enabledControllers);
+        removeStaleGroups(runners);
+
+        this.controllers = Collections.unmodifiableSet(enabledControllers);
+        this.runnersGroup = runners;
+    }
+
+    private static Path ownGroup() throws IOException {
+        for (String line : Files.readAllLines(Paths.get("/proc/self/cgroup"))) {
+            if (line.startsWith("0::")) {
+                return CGROUP_MOUNT.resolve(line.substring(3).replaceFirst("^/+", "")).normalize();
+            }
+        }
+        throw new IOException("이 프로세스의 cgroup v2 그룹을 찾을 수 없습니다");
+    }
+
+    private static void enableControllers(Path group, Set<String> enabledControllers) throws IOException {
+        StringBuilder control = new StringBuilder();
+        for (String controller : enabledControllers) {
+            control.append('+').append(controller).append(' ');
+        }
+        write(group.resolve("cgroup.subtree_control"), control.toString().trim());
+    }
+
+    /**
+     * 이전에 비정상 종료하면서 남긴 러너 그룹을 정리한다.
+     */
+    private static void removeStaleGroups(Path runners) {
+        try (DirectoryStream<Path> groups = Files.newDirectoryStream(runners, "runner-*")) {
+            for (Path stale : groups) {
+                killAndRemove(stale);
+            }
+        } catch (IOException e) {
+            System.err.println("이전 러너 cgroup 정리 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 러너 JVM 하나를 담을 그룹을 만든다. cgroup을 쓸 수 없거나 만들지 못하면 null을 돌려준다.
+     */
+    public Group create() {
+        Path runners = runnersGroup;
+        if (runners == null) {
+            return null;
+        }
+        Path path = runners.resolve("runner-" + ProcessHandle.current().pid() + "-" + groupIds.incrementAndGet());
+        try {
+            Files.createDirectory(path);
+            if (controllers.contains("cpu")) {
+                write(path.resolve("cpu.max"), cpuMax);
+            }
+            write(path.resolve("memory.max"), memoryMaxBytes > 0 ? String.valueOf(memoryMaxBytes) : "max");
+            if (Files.exists(path.resolve("memory.swap.max"))) {
+                write(path.resolve("memory.swap.max"), memorySwapMaxBytes >= 0 ? String.valueOf(memorySwapMaxBytes) : "max");
+            }
+            write(path.resolve("pids.max"), pidsMax > 0 ? String.valueOf(pidsMax) : "max");
+            activeGroups.incrementAndGet();
+            return new Group(path);
+        } catch (IOException e) {
+            System.err.println("러너 cgroup 생성 실패, 제한 없이 실행합니다: " + e.getMessage());
+            killAndRemove(path);
+            return null;
+        }
+    }
+
+    public boolean isActive() {
+        return runnersGroup != null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("status", status);
+        stats.put("group", runnersGroup == null ? null : runnersGroup.toString());
+        stats.put("controllers", controllers);
+        stats.put("cpuMax", cpuMax);
+        stats.put("memoryMaxBytes", memoryMaxBytes);
+        stats.put("pidsMax", pidsMax);
+        stats.put("activeGroups", activeGroups.get());
+        return stats;
+    }
+
+    private static void killAndRemove(Path path) {
+        try {
+            Path kill = path.resolve("cgroup.kill");
+            if (Files.exists(kill)) {
+                write(kill, "1");
+            }
+            // 프로세스가 모두 빠져나가야 그룹을 지울 수 있다
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REMOVE_TIMEOUT_MILLIS);
+            while (true) {
+                try {
+                    Files.deleteIfExists(path);
+                    return;
+                } catch (IOException e) {
+                    if (System.nanoTime() > deadline) {
+                        throw e;
+                    }
+                    Thread.sleep(20);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("러너 cgroup 삭제 실패: " + path + " - " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.US_ASCII).trim();
+    }
+
+    private static void write(Path file, String value) throws IOException {
+        Files.writeString(file, value, StandardCharsets.US_ASCII, StandardOpenOption.WRITE);
+    }
+
+    private static long statValue(Path file, String key) throws IOException {
+        for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+            if (line.startsWith(key + " ")) {
+                return Long.parseLong(line.substring(key.length() + 1).trim());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 러너 JVM 하나의 cgroup. 한 번에 한 실행만 재므로 {@link #begin()}과 {@link #end()}는 같은 실행에서 짝지어 부른다.
+     */
+    public class Group {
+        private final Path path;
+        private long cpuStartMicros;
+        private long oomKillsAtStart;
+        private FileChannel peakChannel;
+        private boolean removed;
+
+        Group(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * 셸이 자신을 그룹에 넣은 뒤 명령으로 바뀌게 해 JVM이 처음부터 그룹 안에서 시작하게 한다.
+         */
+        public List<String> wrap(List<String> command) {
+            List<String> wrapped = new ArrayList<>();
+            wrapped.add("/bin/sh");
+            wrapped.add("-c");
+            wrapped.add("echo $$ > \"$0\" && exec \"$@\"");
+            wrapped.add(path.resolve("cgroup.procs").toString());
+            wrapped.addAll(command);
+            return wrapped;
+        }
+
+        /**
+         * 이미 실행 중인 프로세스를 그룹으로 옮긴다. 명령을 감쌀 수 없는 경우(JDI가 띄우는 디버그 대상 등)에 쓴다.
+         * 옮기기 전에 만든 자식 프로세스는 따라오지 않으므로 대상이 멈춰 있을 때 불러야 한다.
+         */
+        public void add(long pid) throws IOException {
+            write(path.resolve("cgroup.procs"), String.valueOf(pid));
+        }
+
+        /**
+         * 실행 직전 사용량 기준점을 잡는다. memory.peak에 쓰면 커널(6.12 이상)은 그 파일 핸들로 읽는 최대값을 다시 잰다.
+         */
+        public synchronized void begin() {
+            try {
+                cpuStartMicros = statValue(path.resolve("cpu.stat"), "usage_usec");
+                oomKillsAtStart = statValue(path.resolve("memory.events"), "oom_kill");
+            } catch (IOException e) {
+                cpuStartMicros = -1;
+            }
+            closePeakChannel();
+            Path peak = path.resolve("memory.peak");
+            if (Files.exists(peak)) {
+                try {
+                    peakChannel = FileChannel.open(peak, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    peakChannel.write(ByteBuffer.wrap("reset\n".getBytes(StandardCharsets.US_ASCII)));
+                } catch (IOException e) {
+                    // 기준점을 다시 잡을 수 없는 커널에서는 그룹이 생긴 뒤의 최대값을 쓴다
+                    closePeakChannel();
+                }
+            }
+        }
+
+        /**
+         * begin() 이후의 CPU 시간과 최대 메모리 사용량. 읽을 수 없으면 null을 돌려준다.
+         */
+        public synchronized ResourceUsage end() {
+            try {
+                if (cpuStartMicros < 0 || removed) {
+                    return null;
+                }
+                long cpuMicros = statValue(path.resolve("cpu.stat"), "usage_usec") - cpuStartMicros;
+                boolean oomKilled = statValue(path.resolve("memory.events"), "oom_kill") > oomKillsAtStart;
+                return new ResourceUsage(TimeUnit.MICROSECONDS.toMillis(cpuMicros), readPeak(), oomKilled);
+            } catch (IOException | NumberFormatException e) {
+                return null;
+            } finally {
+                closePeakChannel();
+            }
+        }
+
+        private Long readPeak() {
+            try {
+                if (peakChannel != null) {
+                    ByteBuffer buffer = ByteBuffer.allocate(32);
+                    peakChannel.read(buffer, 0);
+                    return Long.parseLong(new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII).trim());
+                }
+                Path peak = path.resolve("memory.peak");
+                return Files.exists(peak) ? Long.parseLong(read(peak)) : null;
+            } catch (IOException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private void closePeakChannel() {
+            if (peakChannel != null) {
+                try {
+                    peakChannel.close();
+                } catch (IOException e) {
+                    // 닫지 못해도 다음 실행에는 영향이 없다
+                }
+                peakChannel = null;
+            }
+        }
+
+        /**
+         * 그룹이 생긴 뒤 그룹 안의 모든 프로세스가 쓴 CPU 시간. 읽을 수 없으면 -1이다.
+         */
+        public long cpuMicros() {
+            try {
+                return statValue(path.resolve("cpu.stat"), "usage_usec");
+            } catch (IOException | NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        /**
+         * 그룹을 지우지 않고 안의 프로세스만 모두 죽인다. 부모가 없어진 자식 프로세스까지 한 번에 죽일 수 있다.
+         */
+        public void kill() {
+            Path kill = path.resolve("cgroup.kill");
+            try {
+                if (Files.exists(kill)) {
+                    write(kill, "1");
+                }
+            } catch (IOException e) {
+                System.err.println("러너 cgroup 종료 실패: " + path + " - " + e.getMessage());
+            }
+        }
+
+        /**
+         * 그룹에 남은 프로세스(사용자 코드가 띄운 자식 포함)를 모두 죽이고 그룹을 지운다.
+         */
+        public synchronized void remove() {
+            if (removed) {
+                return;
+            }
+            removed = true;
+            closePeakChannel();
+            killAndRemove(path);
+            activeGroups.decrementAndGet();
+        }
+    }
+}
@@ -1,504 +1,577 @@
 package com.example.webidle.service;
 
+import com.example.webidle.model.BatchExecutionRequest;
+import com.example.webidle.model.BatchExecutionResult;
+import com.example.webidle.model.CompileError;
+import com.example.webidle.model.DebugEvent;
+import com.example.webidle.model.ExecutionResult;
+import com.sun.jdi.request.StepRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
-import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
-import org.eclipse.aether.RepositorySystem;
-import org.eclipse.aether.RepositorySystemSession;
-import org.eclipse.aether.artifact.DefaultArtifact;
-import org.eclipse.aether.collection.CollectRequest;
-import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
-import org.eclipse.aether.impl.DefaultServiceLocator;
-import org.eclipse.aether.graph.Dependency;
-import org.eclipse.aether.repository.LocalRepository;
-import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.DependencyRequest;
-import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
-import org.eclipse.aether.spi.connector.transport.TransporterFactory;
-import org.eclipse.aether.transport.file.FileTransporterFactory;
-import org.eclipse.aether.transport.http.HttpTransporterFactory;
-import org.eclipse.aether.util.repository.SimpleArtifactDescriptorPolicy;
-import org.eclipse.aether.util.artifact.JavaScopes;
-import org.eclipse.aether.DefaultRepositorySystemSession;
 
 import javax.tools.*;
 import java.io.*;
-import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.stream.Stream;
 
 @Service
 public class CodeExecutionService {
     private final SimpMessagingTemplate messagingTemplate;
-    private final ExecutorService executorService;
     private static final Pattern MAVEN_DEPENDENCY_PATTERN = Pattern.compile("//\\s*@maven\\s+([\\w\\.-]+:[\\w\\.-]+:[\\w\\.-]+)");
-    private final File localRepository;
-    private final RepositorySystem repositorySystem;
-    private final RepositorySystemSession repositorySystemSession;
-    private final RemoteRepository mavenCentral;
-    private final Map<String, Process> debugProcesses = new ConcurrentHashMap<>();
-
-    public CodeExecutionService(SimpMessagingTemplate messagingTemplate) {
+    private final JavaSourceCompiler javaSourceCompiler;
+    private final CompilationCache compilationCache;
+    private final ExecutionBackend executionBackend;
+    private final BatchCaseRunner batchCaseRunner;
+    private final ProcessWatchdog processWatchdog;
+    private final OutputStreamPublisher outputStreamPublisher;
+    private final ExecutionScheduler executionScheduler;
+    private final MavenDependencyResolver dependencyResolver;
+    private final JdiDebugger jdiDebugger;
+    private final DebugSessionManager debugSessionManager;
+    private final ProjectCompiler projectCompiler;
+    private final DocumentBufferService documentBufferService;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedExecutions;
+    private final DistributionSummary outputBytes;
+    private static final long DEBUG_WAIT_MILLIS = 5000;
+
+    public CodeExecutionService(SimpMessagingTemplate messagingTemplate, JavaSourceCompiler javaSourceCompiler,
+                                CompilationCache compilationCache, ExecutionBackend executionBackend,
+                                OutputStreamPublisher outputStreamPublisher, ExecutionScheduler executionScheduler,
+                                MavenDependencyResolver dependencyResolver, JdiDebugger jdiDebugger,
+                                DebugSessionManager debugSessionManager, ProjectCompiler projectCompiler,
+                                DocumentBufferService documentBufferService, MeterRegistry meterRegistry,
+                                BatchCaseRunner batchCaseRunner, ProcessWatchdog processWatchdog) {
         this.messagingTemplate = messagingTemplate;
-        this.executorService = Executors.newFixedThreadPool(1);
-        this.localRepository = new File(System.getProperty("user.home"), ".m2/repository");
-        
+        this.javaSourceCompiler = javaSourceCompiler;
+        this.compilationCache = compilationCache;
+        this.executionBackend = executionBackend;
+        this.batchCaseRunner = batchCaseRunner;
+        this.processWatchdog = processWatchdog;
+        this.outputStreamPublisher = outputStreamPublisher;
+        this.executionScheduler = executionScheduler;
+        this.dependencyResolver = dependencyResolver;
+        this.jdiDebugger = jdiDebugger;
+        this.debugSessionManager = debugSessionManager;
+        this.projectCompiler = projectCompiler;
+        this.documentBufferService = documentBufferService;
+        this.meterRegistry = meterRegistry;
+        this.rejectedExecutions = Counter.builder("webidle.execution.rejected")
+            .description("대기열이 가득 차거나 세션 한도를 넘어 거절된 실행 요청").register(meterRegistry);
+        this.outputBytes = DistributionSummary.builder("webidle.output.bytes")
+            .description("실행 한 건의 프로그램 출력 크기").baseUnit("bytes").publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * 실행 요청을 스케줄러에 넣는다. 대기열이 가득 차거나 세션 한도를 넘으면 즉시 오류 응답을 돌려준다.
+     */
+    public CompletableFuture<ExecutionResult> submitExecution(String code, String sessionId) {
         try {
-            DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
-            locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
-            locator.addService(TransporterFactory.class, FileTransporterFactory.class);
-            locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
-            
-            locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
-                @Override
-                public void serviceCreationFailed(Class<?> type, Class<?> impl, Throwable exception) {
-                    System.err.println("서비스 생성 실패: " + type.getName() + " -> " + impl.getName());
-                    exception.printStackTrace();
-                }
-            });
-            
-            this.repositorySystem = locator.getService(RepositorySystem.class);
-            if (this.repositorySystem == null) {
-                throw new IllegalStateException("RepositorySystem을 초기화할 수 없습니다.");
+            long submittedNanos = System.nanoTime();
+            return executionScheduler.submit(sessionId, () -> executeCode(code, sessionId, submittedNanos));
+        } catch (RejectedExecutionException e) {
+            rejectedExecutions.increment();
+            ExecutionResult rejected = ExecutionResult.failure("실행 거절", e.getMessage());
+            messagingTemplate.convertAndSend("/topic/error/" + sessionId, rejected);
+            return CompletableFuture.completedFuture(rejected);
+        }
+    }
+
+    /**
+     * 작업 공간의 프로젝트 디렉토리를 증분 빌드한 뒤 실행한다. 실행 요청과 같은 스케줄러를 거친다.
+     */
+    public CompletableFuture<ExecutionResult> submitProjectExecution(String project, String mainClass,
+                                                                     String sessionId) {
+        try {
+            long submittedNanos = System.nanoTime();
+            return executionScheduler.submit(sessionId,
+                () -> executeProject(project, mainClass, sessionId, submittedNanos));
+        } catch (RejectedExecutionException e) {
+            rejectedExecutions.increment();
+            return CompletableFuture.completedFuture(ExecutionResult.failure("실행 거절", e.getMessage()));
+        }
+    }
+
+    /**
+     * 한 번 컴파일한 프로그램을 테스트 케이스 입력마다 실행한다. 요청 하나가 스케줄러 자리 하나를 쓰고,
+     * 케이스는 {@link BatchCaseRunner}가 코어 수만큼 나누어 실행한다.
+     */
+    public CompletableFuture<BatchExecutionResult> submitBatch(BatchExecutionRequest request) {
+        String sessionId = request.getSessionId();
+        try {
+            batchCaseRunner.validate(request);
+            long submittedNanos = System.nanoTime();
+            return executionScheduler.submit(sessionId, () -> executeBatch(request, submittedNanos));
+        } catch (IllegalArgumentException | RejectedExecutionException e) {
+            boolean rejected = e instanceof RejectedExecutionException;
+            if (rejected) {
+                rejectedExecutions.increment();
             }
-            
-            DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
-            LocalRepository localRepo = new LocalRepository(localRepository);
-            session.setLocalRepositoryManager(
-                repositorySystem.newLocalRepositoryManager(session, localRepo)
-            );
-            
-            session.setArtifactDescriptorPolicy(new SimpleArtifactDescriptorPolicy(true, true));
-            
-            this.repositorySystemSession = session;
-            this.mavenCentral = new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2/").build();
-            
+            return CompletableFuture.completedFuture(BatchExecutionResult.failure(
+                ExecutionResult.failure(rejected ? "실행 거절" : "잘못된 요청", e.getMessage())));
+        }
+    }
+
+    private BatchExecutionResult executeBatch(BatchExecutionRequest request, long submittedNanos) {
+        System.out.println("배치 실행 시작: 테스트 케이스 " + request.getCases().size() + "개");
+        PhaseTimings timings = new PhaseTimings(meterRegistry, "batch");
+        timings.record("queue", timings.getStartNanos() - submittedNanos);
+        String code = request.getCode() == null ? "" : request.getCode();
+
+        try {
+            long phaseStart = System.nanoTime();
+            List<File> dependencyJars;
+            try {
+                dependencyJars = dependencyResolver.resolve(extractMavenDependencies(code));
+            } catch (MavenResolutionException e) {
+                timings.finish("dependency_error");
+                return BatchExecutionResult.failure(dependencyFailure(e));
+            }
+            timings.record("resolve", System.nanoTime() - phaseStart);
+
+            phaseStart = System.nanoTime();
+            CompilationResult compilation;
+            try {
+                compilation = compile(code, List.of("-g"), dependencyJars);
+            } catch (CompileTimeoutException e) {
+                timings.record("compile", System.nanoTime() - phaseStart);
+                return BatchExecutionResult.failure(compileTimeout(e, timings));
+            }
+            timings.record("compile", System.nanoTime() - phaseStart);
+            if (!compilation.isSuccess()) {
+                timings.finish("compile_error");
+                return BatchExecutionResult.failure(compileErrors(compilation, null));
+            }
+
+            phaseStart = System.nanoTime();
+            BatchExecutionResult result = batchCaseRunner.runAll(compilation.getClasses(), dependencyJars, "Main",
+                request);
+            timings.record("run", System.nanoTime() - phaseStart);
+            timings.finish("success");
+            return result.withTimings(timings.toMap());
+
         } catch (Exception e) {
-            throw new RuntimeException("Maven Repository System 초기화 실패", e);
+            timings.finish("error");
+            System.err.println("배치 실행 중 오류 발생: " + e.getMessage());
+            return BatchExecutionResult.failure(ExecutionResult.failure("실행 오류", e.getMessage()));
         }
     }
 
-    public String executeCode(String code, String sessionId) {
+    private ExecutionResult executeProject(String project, String mainClass, String sessionId,
+                                           long submittedNanos) {
+        System.out.println("프로젝트 실행 시작: " + project);
+        PhaseTimings timings = new PhaseTimings(meterRegistry, "project");
+        timings.record("queue", timings.getStartNanos() - submittedNanos);
+
+        try {
+            Path projectDir = projectCompiler.resolveProject(project);
+            // 편집기 버퍼에만 있는 변경을 먼저 디스크에 반영
+            documentBufferService.flushAll();
+
+            long phaseStart = System.nanoTime();
+            List<File> dependencyJars;
+            try {
+                dependencyJars = dependencyResolver.resolve(projectCompiler.collectMavenDependencies(projectDir));
+            } catch (MavenResolutionException e) {
+                timings.finish("dependency_error");
+                ExecutionResult failure = dependencyFailure(e);
+                messagingTemplate.convertAndSend("/topic/error/" + sessionId, failure);
+                return failure;
+            }
+
+            timings.record("resolve", System.nanoTime() - phaseStart);
+
+            ProjectCompiler.BuildResult build;
+            phaseStart = System.nanoTime();
+            try {
+                build = projectCompiler.build(projectDir, dependencyJars);
+            } catch (CompileTimeoutException e) {
+                timings.record("compile", System.nanoTime() - phaseStart);
+                ExecutionResult failure = compileTimeout(e, timings);
+                messagingTemplate.convertAndSend("/topic/error/" + sessionId, failure);
+                return failure;
+            }
+            timings.record("compile", TimeUnit.MILLISECONDS.toNanos(build.getCompileMillis()));
+            System.out.println("프로젝트 컴파일: " + build.getRecompiled().size() + "/" + build.getSourceCount()
+                + "개 파일, " + build.getCompileMillis() + "ms");
+            if (!build.getCompilation().isSuccess()) {
+                timings.finish("compile_error");
+                ExecutionResult failure = compileErrors(build.getCompilation(), projectDir);
+                messagingTemplate.convertAndSend("/topic/error/" + sessionId, failure);
+                return failure;
+            }
+
+            String entryPoint = mainClass == null || mainClass.isEmpty() ? "Main" : mainClass;
+            return runCompiled(build.getCompilation().getClasses(), dependencyJars, entryPoint, sessionId, timings)
+                .withBuild(build.getRecompiled(), build.getSourceCount());
+
+        } catch (Exception e) {
+            timings.finish("error");
+            System.err.println("프로젝트 실행 중 오류 발생: " + e.getMessage());
+            return ExecutionResult.failure("실행 오류", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getSchedulerStats() {
+        return executionScheduler.getStats();
+    }
+
+    public Map<String, Object> getExecutionBackendStats() {
+        return executionBackend.getStats();
+    }
+
+    public ExecutionResult executeCode(String code, String sessionId) {
+        return executeCode(code, sessionId, System.nanoTime());
+    }
+
+    /**
+     * submittedNanos는 스케줄러에 넣은 시각으로, 대기열에서 기다린 시간을 재는 데 쓴다.
+     */
+    private ExecutionResult executeCode(String code, String sessionId, long submittedNanos) {
         System.out.println("코드 실행 시작");
+        PhaseTimings timings = new PhaseTimings(meterRegistry, "snippet");
+        timings.record("queue", timings.getStartNanos() - submittedNanos);
         
         try {
             // Maven 의존성 처리
+            long phaseStart = System.nanoTime();
             List<String> dependencies = extractMavenDependencies(code);
-            List<File> dependencyJars = new ArrayList<>();
-            for (String dependency : dependencies) {
-                try {
-                    File jarFile = resolveMavenDependency(dependency);
-                    if (jarFile != null) {
-                        dependencyJars.add(jarFile);
-                    }
-                } catch (Exception e) {
-                    System.err.println("의존성 해결 실패: " + dependency + " - " + e.getMessage());
-                    Map<String, Object> errorResponse = new HashMap<>();
-                    errorResponse.put("error", "의존성 해결 실패");
-                    errorResponse.put("message", "의존성 '" + dependency + "' 해결 중 오류 발생: " + e.getMessage());
-                    String errorJson = new ObjectMapper().writeValueAsString(errorResponse);
-                    // WebSocket으로 오류 전송
-                    messagingTemplate.convertAndSend("/topic/error/" + sessionId, errorJson);
-                    return errorJson;
-                }
-            }
-
-            // 임시 디렉토리 생성
-            File tempDir = new File(System.getProperty("java.io.tmpdir"), "webidle_" + System.currentTimeMillis());
-            tempDir.mkdirs();
-            
-            // 소스 파일 생성
-            File sourceFile = new File(tempDir, "Main.java");
-            try (FileWriter writer = new FileWriter(sourceFile)) {
-                writer.write(code);
+            List<File> dependencyJars;
+            try {
+                dependencyJars = dependencyResolver.resolve(dependencies);
+            } catch (MavenResolutionException e) {
+                timings.finish("dependency_error");
+                System.err.println("의존성 해결 실패: " + e.getCoordinates() + " - " + e.getMessage());
+                ExecutionResult failure = dependencyFailure(e);
+                // WebSocket으로 오류 전송
+                messagingTemplate.convertAndSend("/topic/error/" + sessionId, failure);
+                return failure;
             }
 
-            // 컴파일
-            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-            StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+            timings.record("resolve", System.nanoTime() - phaseStart);
 
-            // 의존성 JAR 파일들을 클래스패스에 추가
+            // 메모리 컴파일
+            phaseStart = System.nanoTime();
             List<String> options = new ArrayList<>();
             options.add("-g");  // 디버그 정보 포함
-            if (!dependencyJars.isEmpty()) {
-                StringBuilder classPath = new StringBuilder();
-                for (File jar : dependencyJars) {
-                    if (classPath.length() > 0) {
-                        classPath.append(File.pathSeparator);
-                    }
-                    classPath.append(jar.getAbsolutePath());
-                }
-                options.addAll(Arrays.asList("-classpath", classPath.toString()));
+            CompilationResult compilation;
+            try {
+                compilation = compile(code, options, dependencyJars);
+            } catch (CompileTimeoutException e) {
+                timings.record("compile", System.nanoTime() - phaseStart);
+                ExecutionResult failure = compileTimeout(e, timings);
+                messagingTemplate.convertAndSend("/topic/error/" + sessionId, failure);
+                return failure;
             }
+            timings.record("compile", System.nanoTime() - phaseStart);
             
-            Iterable<? extends JavaFileObject> compilationUnits = fileManager
-                .getJavaFileObjectsFromFiles(Arrays.asList(sourceFile));
-            
-            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits);
-            boolean success = task.call();
-            
-            if (!success) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                List<Map<String, Object>> errorDetails = new ArrayList<>();
-                
-                for (Diagnostic<?> diagnostic : diagnostics.getDiagnostics()) {
-                    Map<String, Object> errorDetail = new HashMap<>();
-                    errorDetail.put("line", diagnostic.getLineNumber());
-                    errorDetail.put("column", diagnostic.getColumnNumber());
-                    errorDetail.put("message", diagnostic.getMessage(null));
-                    errorDetails.add(errorDetail);
-                }
-                
-                errorResponse.put("error", "컴파일 오류");
-                errorResponse.put("details", errorDetails);
-                
-                String errorJson = new ObjectMapper().writeValueAsString(errorResponse);
-                System.err.println("컴파일 오류: " + errorJson);
+            if (!compilation.isSuccess()) {
+                timings.finish("compile_error");
+                ExecutionResult failure = compileErrors(compilation, null);
+                System.err.println("컴파일 오류: " + failure.details().size() + "건");
                 
                 // WebSocket으로 오류 전송
-                messagingTemplate.convertAndSend("/topic/error/" + sessionId, errorJson);
+                messagingTemplate.convertAndSend("/topic/error/" + sessionId, failure);
                 
-                return errorJson;
+                return failure;
             }
 
-            // 실행
-            List<String> command = new ArrayList<>();
-            command.add("java");
-            if (!dependencyJars.isEmpty()) {
-                command.add("-cp");
-                StringBuilder classPath = new StringBuilder(tempDir.getAbsolutePath());
-                for (File jar : dependencyJars) {
-                    classPath.append(File.pathSeparator).append(jar.getAbsolutePath());
-                }
-                command.add(classPath.toString());
-            } else {
-                command.add("-cp");
-                command.add(tempDir.getAbsolutePath());
-            }
-            command.add("Main");
-
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-
-            // 출력 읽기
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
+            return runCompiled(compilation.getClasses(), dependencyJars, "Main", sessionId, timings);
+            
+        } catch (Exception e) {
+            timings.finish("error");
+            System.err.println("코드 실행 중 오류 발생: " + e.getMessage());
+            e.printStackTrace();
+            return ExecutionResult.failure("실행 오류", e.getMessage());
+        }
+    }
+
+    /**
+     * 컴파일된 클래스를 실행하고 출력을 /topic/output/{sessionId}로 스트리밍한 뒤 결과를 만든다.
+     * timings에는 호출한 쪽에서 잰 컴파일 시간 등이 들어 있다.
+     * 러너를 얻거나 프로세스를 띄운 시간(원격 실행이면 워커로 보내기까지)은 spawn,
+     * 그 뒤 실행이 끝날 때까지는 run 단계로 기록한다. 실행 한도를 넘으면 넘은 한도와 그때까지의 출력을 돌려준다.
+     */
+    private ExecutionResult runCompiled(Map<String, byte[]> classes, List<File> dependencyJars, String mainClass,
+                                        String sessionId, PhaseTimings timings) throws Exception {
+        ProgramOutput output = outputStreamPublisher.open(sessionId);
+        try {
+            long runStart = System.nanoTime();
+            ExecutionBudget budget = processWatchdog.defaultBudget();
+            RunnerPool.RunResult result = executionBackend.run(sessionId, classes, dependencyJars, mainClass, budget,
+                output);
+            timings.record("spawn", result.getAcquireNanos());
+            timings.record("run", System.nanoTime() - runStart - timings.getNanos("spawn"));
+            outputBytes.record(output.getTotalBytes());
+
+            String exceededLimit = result.getExceededLimit();
+            if (exceededLimit != null) {
+                timings.finish(exceededLimit);
+                ExecutionResult failure = ExecutionResult.limitExceeded(exceededLimit, budget.describe(exceededLimit),
+                    output.getRetainedOutput().trim(), timings.toMap(), result.getResourceUsage());
+                Map<String, Object> completion = new HashMap<>();
+                completion.put("error", failure.error());
+                completion.put("limit", exceededLimit);
+                completion.put("message", failure.message());
+                completion.put("timings", failure.timings());
+                if (result.getResourceUsage() != null) {
+                    completion.put("usage", result.getResourceUsage());
                 }
+                output.complete(completion);
+                return failure;
             }
-
-            // 프로세스 종료 대기
-            if (!process.waitFor(5, TimeUnit.SECONDS)) {
-                process.destroyForcibly();
-                throw new RuntimeException("실행 시간 초과");
+            int exitCode = result.getExitCode();
+            timings.finish("success");
+
+            Map<String, Object> timingMillis = timings.toMap();
+            Map<String, Object> completion = new HashMap<>();
+            completion.put("exitCode", exitCode);
+            completion.put("timings", timingMillis);
+            if (result.getResourceUsage() != null) {
+                completion.put("usage", result.getResourceUsage());
             }
+            output.complete(completion);
 
-            // 임시 파일 정리
-            sourceFile.delete();
-            new File(tempDir, "Main.class").delete();
-            tempDir.delete();
-
-            Map<String, Object> successResponse = new HashMap<>();
-            successResponse.put("output", output.toString().trim());
-            return new ObjectMapper().writeValueAsString(successResponse);
-            
+            return ExecutionResult.success(output.getRetainedOutput().trim(), exitCode, timingMillis,
+                result.getResourceUsage());
         } catch (Exception e) {
-            System.err.println("코드 실행 중 오류 발생: " + e.getMessage());
-            e.printStackTrace();
-            
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "실행 오류");
             errorResponse.put("message", e.getMessage());
-            
-            try {
-                return new ObjectMapper().writeValueAsString(errorResponse);
-            } catch (Exception jsonError) {
-                return "{\"error\":\"실행 오류\",\"message\":\"" + e.getMessage().replace("\"", "\\\"") + "\"}";
-            }
+            output.complete(errorResponse);
+            throw e;
         }
     }
 
-    private List<String> extractMavenDependencies(String code) {
-        List<String> dependencies = new ArrayList<>();
-        Matcher matcher = MAVEN_DEPENDENCY_PATTERN.matcher(code);
-        while (matcher.find()) {
-            dependencies.add(matcher.group(1));
+    /**
+     * 같은 소스/옵션/클래스패스로 이미 컴파일한 적이 있으면 javac를 건너뛴다.
+     */
+    private CompilationResult compile(String code, List<String> options, List<File> dependencyJars) {
+        String cacheKey = compilationCache.key("Main", code, options, dependencyJars);
+        Map<String, byte[]> cachedClasses = compilationCache.get(cacheKey);
+        meterRegistry.counter("webidle.compile.cache", "result", cachedClasses != null ? "hit" : "miss").increment();
+        if (cachedClasses != null) {
+            return new CompilationResult(true, cachedClasses, Collections.emptyList());
         }
-        return dependencies;
-    }
 
-    private File resolveMavenDependency(String coordinates) throws Exception {
-        String[] parts = coordinates.split(":");
-        if (parts.length != 3) {
-            throw new IllegalArgumentException("잘못된 Maven 좌표: " + coordinates);
+        CompilationResult compilation = javaSourceCompiler.compile("Main", code, options, dependencyJars);
+        if (compilation.isSuccess()) {
+            compilationCache.put(cacheKey, compilation.getClasses());
         }
+        return compilation;
+    }
 
-        String groupId = parts[0];
-        String artifactId = parts[1];
-        String version = parts[2];
-
-        // 로컬 저장소에서 JAR 파일 찾기
-        String relativePath = String.format("%s/%s/%s/%s-%s.jar",
-            groupId.replace('.', '/'), artifactId, version, artifactId, version);
-        File jarFile = new File(localRepository, relativePath);
-
-        if (jarFile.exists()) {
-            return jarFile;
+    /**
+     * 좌표 목록이 비어 있으면 프리페치 목록 파일을 사용한다.
+     */
+    public Map<String, Object> prefetchDependencies(List<String> coordinates) {
+        if (coordinates == null || coordinates.isEmpty()) {
+            coordinates = dependencyResolver.readPrefetchManifest();
         }
+        return dependencyResolver.prefetch(coordinates);
+    }
 
-        try {
-            // Maven Central에서 의존성 다운로드
-            DefaultArtifact artifact = new DefaultArtifact(coordinates);
-            Dependency dependency = new Dependency(artifact, JavaScopes.COMPILE);
+    public List<Map<String, Object>> getDebugSessions() {
+        return debugSessionManager.describeSessions();
+    }
 
-            CollectRequest collectRequest = new CollectRequest();
-            collectRequest.setRoot(dependency);
-            collectRequest.addRepository(mavenCentral);
-            
-            DependencyRequest dependencyRequest = new DependencyRequest(collectRequest, null);
+    public void stopDebug(String sessionId) {
+        debugSessionManager.terminate(sessionId);
+    }
 
-            // 의존성 해결 시도
-            repositorySystem.resolveDependencies(repositorySystemSession, dependencyRequest);
+    public Map<String, Object> getCompileCacheStats() {
+        return compilationCache.getStats();
+    }
 
-            // 파일이 존재하는지 다시 확인
-            if (jarFile.exists()) {
-                System.out.println("의존성 다운로드 성공: " + coordinates);
-                return jarFile;
+    /**
+     * projectDir가 있으면 오류마다 프로젝트 기준 파일 경로를 함께 담는다.
+     */
+    private ExecutionResult compileErrors(CompilationResult compilation, Path projectDir) {
+        List<CompileError> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : compilation.getDiagnostics()) {
+            String file = null;
+            if (projectDir != null && diagnostic.getSource() != null) {
+                file = projectDir.relativize(Paths.get(diagnostic.getSource().toUri())).toString();
             }
+            errors.add(new CompileError(file, diagnostic.getLineNumber(), diagnostic.getColumnNumber(),
+                diagnostic.getMessage(null)));
+        }
+        return ExecutionResult.compileFailure(errors);
+    }
 
-            // 직접 다운로드 시도
-            String mavenCentralUrl = String.format(
-                "https://repo.maven.apache.org/maven2/%s/%s/%s/%s-%s.jar",
-                groupId.replace('.', '/'), artifactId, version, artifactId, version
-            );
-
-            // 부모 디렉토리 생성
-            jarFile.getParentFile().mkdirs();
-
-            // 파일 다운로드
-            try (InputStream in = new URL(mavenCentralUrl).openStream();
-                 FileOutputStream out = new FileOutputStream(jarFile)) {
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                }
-            }
+    private static ExecutionResult compileTimeout(CompileTimeoutException e, PhaseTimings timings) {
+        timings.finish(ExecutionBudget.COMPILE_TIME);
+        return ExecutionResult.limitExceeded(ExecutionBudget.COMPILE_TIME, e.getMessage(), null, timings.toMap(), null);
+    }
 
-            System.out.println("의존성 직접 다운로드 성공: " + coordinates);
-            return jarFile;
+    private static ExecutionResult dependencyFailure(MavenResolutionException e) {
+        return ExecutionResult.failure("의존성 해결 실패",
+            "의존성 '" + e.getCoordinates() + "' 해결 중 오류 발생: " + e.getMessage());
+    }
 
-        } catch (Exception e) {
-            System.err.println("의존성 다운로드 실패: " + coordinates + " - " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("의존성 다운로드 실패: " + coordinates, e);
+    static void deleteRecursively(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("임시 디렉토리 정리 실패: " + directory + " - " + e.getMessage());
         }
     }
 
-    public String debugCode(String code, List<Integer> breakpoints, String sessionId) {
-        System.out.println("디버깅 시작");
-        
+    static List<String> extractMavenDependencies(String code) {
+        List<String> dependencies = new ArrayList<>();
+        Matcher matcher = MAVEN_DEPENDENCY_PATTERN.matcher(code);
+        while (matcher.find()) {
+            dependencies.add(matcher.group(1));
+        }
+        return dependencies;
+    }
+
+    /**
+     * 디버그 실행을 스케줄러에 넘긴다. 컴파일과 JVM 기동은 스케줄러 스레드에서 하고, 첫 정지 이벤트는
+     * 스레드를 붙잡지 않고 기다려 DEBUG_WAIT_MILLIS 안에 멈추지 않으면 running으로 완료한다.
+     * connectionId는 요청한 STOMP 연결의 id로, 그 연결이 끊기면 디버그 세션도 종료된다. REST 요청은 null이다.
+     */
+    public CompletableFuture<DebugEvent> submitDebug(String code, List<Integer> breakpoints, String sessionId,
+                                                     String connectionId) {
         try {
-            // 기존 디버그 프로세스 정리
-            if (debugProcesses.containsKey(sessionId)) {
-                Process oldProcess = debugProcesses.get(sessionId);
-                oldProcess.destroyForcibly();
-                debugProcesses.remove(sessionId);
-            }
+            return executionScheduler.submit(sessionId,
+                    () -> launchDebug(code, breakpoints, sessionId, connectionId))
+                // 세션의 정지 이벤트 future를 직접 완료하지 않도록 사본에 시간 제한을 건다
+                .thenCompose(firstStop -> firstStop.copy()
+                    .completeOnTimeout(DebugEvent.running(), DEBUG_WAIT_MILLIS, TimeUnit.MILLISECONDS))
+                .exceptionally(e -> DebugEvent.failure("디버깅 오류",
+                    (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e).getMessage()));
+        } catch (RejectedExecutionException e) {
+            rejectedExecutions.increment();
+            return CompletableFuture.completedFuture(DebugEvent.failure("실행 거절", e.getMessage()));
+        }
+    }
 
-            // Maven 의존성 처리
-            List<String> dependencies = extractMavenDependencies(code);
-            List<File> dependencyJars = new ArrayList<>();
-            for (String dependency : dependencies) {
-                try {
-                    File jarFile = resolveMavenDependency(dependency);
-                    if (jarFile != null) {
-                        dependencyJars.add(jarFile);
-                    }
-                } catch (Exception e) {
-                    Map<String, Object> errorResponse = new HashMap<>();
-                    errorResponse.put("error", "의존성 해결 실패");
-                    errorResponse.put("message", "의존성 '" + dependency + "' 해결 중 오류 발생: " + e.getMessage());
-                    return new ObjectMapper().writeValueAsString(errorResponse);
-                }
-            }
+    /**
+     * 컴파일하고 디버깅 대상 JVM을 띄운 뒤 첫 정지 이벤트의 future를 돌려준다.
+     */
+    private CompletableFuture<DebugEvent> launchDebug(String code, List<Integer> breakpoints, String sessionId,
+                                                      String connectionId) throws Exception {
+        System.out.println("디버깅 시작");
 
-            // 임시 디렉토리 생성
-            File tempDir = new File(System.getProperty("java.io.tmpdir"), "webidle_debug_" + sessionId);
-            tempDir.mkdirs();
-            
-            // 소스 파일 생성
-            File sourceFile = new File(tempDir, "Main.java");
-            try (FileWriter writer = new FileWriter(sourceFile)) {
-                writer.write(code);
-            }
+        // 기존 디버그 세션 정리
+        debugSessionManager.terminate(sessionId);
 
-            // 컴파일
-            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-            StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        // Maven 의존성 처리
+        List<String> dependencies = extractMavenDependencies(code);
+        List<File> dependencyJars;
+        try {
+            dependencyJars = dependencyResolver.resolve(dependencies);
+        } catch (MavenResolutionException e) {
+            ExecutionResult failure = dependencyFailure(e);
+            return CompletableFuture.completedFuture(DebugEvent.failure(failure.error(), failure.message()));
+        }
 
-            // 의존성 JAR 파일들을 클래스패스에 추가
-            List<String> options = new ArrayList<>();
-            if (!dependencyJars.isEmpty()) {
-                StringBuilder classPath = new StringBuilder();
-                for (File jar : dependencyJars) {
-                    if (classPath.length() > 0) {
-                        classPath.append(File.pathSeparator);
-                    }
-                    classPath.append(jar.getAbsolutePath());
-                }
-                options.addAll(Arrays.asList("-classpath", classPath.toString()));
-            }
-            
-            Iterable<? extends JavaFileObject> compilationUnits = fileManager
-                .getJavaFileObjectsFromFiles(Arrays.asList(sourceFile));
-            
-            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits);
-            boolean success = task.call();
-            
-            if (!success) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                List<Map<String, Object>> errorDetails = new ArrayList<>();
-                
-                for (Diagnostic<?> diagnostic : diagnostics.getDiagnostics()) {
-                    Map<String, Object> errorDetail = new HashMap<>();
-                    errorDetail.put("line", diagnostic.getLineNumber());
-                    errorDetail.put("column", diagnostic.getColumnNumber());
-                    errorDetail.put("message", diagnostic.getMessage(null));
-                    errorDetails.add(errorDetail);
-                }
-                
-                errorResponse.put("error", "컴파일 오류");
-                errorResponse.put("details", errorDetails);
-                
-                return new ObjectMapper().writeValueAsString(errorResponse);
-            }
+        // 메모리 컴파일 (지역 변수를 보여주기 위해 디버그 정보 포함)
+        List<String> options = new ArrayList<>();
+        options.add("-g");
+        CompilationResult compilation;
+        try {
+            compilation = compile(code, options, dependencyJars);
+        } catch (CompileTimeoutException e) {
+            return CompletableFuture.completedFuture(DebugEvent.failure(ExecutionResult.LIMIT_EXCEEDED,
+                e.getMessage()));
+        }
 
-            // 디버그 모드로 실행
-            List<String> command = new ArrayList<>();
-            command.add("jdb");
-            if (!dependencyJars.isEmpty()) {
-                command.add("-classpath");
-                StringBuilder classPath = new StringBuilder(tempDir.getAbsolutePath());
-                for (File jar : dependencyJars) {
-                    classPath.append(File.pathSeparator).append(jar.getAbsolutePath());
-                }
-                command.add(classPath.toString());
-            } else {
-                command.add("-classpath");
-                command.add(tempDir.getAbsolutePath());
-            }
-            command.add("Main");
+        if (!compilation.isSuccess()) {
+            return CompletableFuture.completedFuture(
+                DebugEvent.compileFailure(compileErrors(compilation, null).details()));
+        }
 
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            debugProcesses.put(sessionId, process);
-            
-            // 브레이크포인트 설정
-            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
-            for (Integer line : breakpoints) {
-                writer.write("stop at Main:" + line + "\n");
-                writer.flush();
-            }
-            writer.write("run\n");
-            writer.flush();
-
-            // 초기 출력 읽기
-            StringBuilder output = new StringBuilder();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null && !line.contains("Breakpoint hit")) {
-                output.append(line).append("\n");
-            }
-            if (line != null) {
-                output.append(line).append("\n");
-            }
+        // 디버그 대상 JVM이 읽을 수 있도록 클래스 파일을 한 번에 기록
+        Path tempDir = Files.createTempDirectory("webidle_debug_");
+        compilation.writeTo(tempDir);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "브레이크포인트에 도달");
-            response.put("output", output.toString());
-            return new ObjectMapper().writeValueAsString(response);
-            
+        List<File> classPath = new ArrayList<>();
+        classPath.add(tempDir.toFile());
+        classPath.addAll(dependencyJars);
+
+        JdiDebugSession session;
+        try {
+            session = jdiDebugger.launch(sessionId, classPath, "Main", breakpoints);
         } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", "디버깅 오류");
-            errorResponse.put("message", e.getMessage());
-            try {
-                return new ObjectMapper().writeValueAsString(errorResponse);
-            } catch (Exception jsonError) {
-                return "{\"error\":\"디버깅 오류\",\"message\":\"" + e.getMessage().replace("\"", "\\\"") + "\"}";
-            }
+            deleteRecursively(tempDir);
+            throw e;
         }
+        session.whenFinished().thenRun(() -> deleteRecursively(tempDir));
+        debugSessionManager.register(sessionId, session, connectionId);
+
+        // 이벤트는 /topic/debug/{sessionId}로 전송되고, 응답으로는 첫 정지 이벤트를 돌려준다
+        return session.start();
     }
 
-    public String continueDebug(String sessionId) {
-        Process process = debugProcesses.get(sessionId);
-        if (process == null) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("error", "디버그 세션이 존재하지 않습니다.");
-            try {
-                return new ObjectMapper().writeValueAsString(response);
-            } catch (Exception e) {
-                return "{\"error\":\"디버그 세션이 존재하지 않습니다.\"}";
-            }
+    public DebugEvent continueDebug(String sessionId) {
+        return debugCommand(sessionId, "cont");
+    }
+
+    /**
+     * command는 cont, over, into, out 중 하나다.
+     */
+    public DebugEvent debugCommand(String sessionId, String command) {
+        JdiDebugSession session = debugSessionManager.get(sessionId);
+        if (session == null) {
+            return DebugEvent.failure("디버그 세션이 존재하지 않습니다.", null);
         }
 
         try {
-            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            StringBuilder output = new StringBuilder();
+            return awaitDebugEvent(issueDebugCommand(session, command));
 
-            // cont 명령어 실행
-            writer.write("cont\n");
-            writer.flush();
+        } catch (Exception e) {
+            return DebugEvent.failure("디버깅 계속 실행 중 오류", e.getMessage());
+        }
+    }
 
-            boolean breakpointHit = false;
-            boolean applicationExited = false;
-            String line;
-            
-            // 출력 읽기
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-                
-                if (line.contains("Breakpoint hit")) {
-                    breakpointHit = true;
-                    break;
-                }
-                
-                if (line.contains("The application exited")) {
-                    applicationExited = true;
-                    break;
-                }
-            }
+    /**
+     * 결과를 기다리지 않는 디버그 명령. 이벤트는 /topic/debug/{sessionId}로 전달된다.
+     */
+    public void sendDebugCommand(String sessionId, String command) {
+        JdiDebugSession session = debugSessionManager.get(sessionId);
+        if (session == null) {
+            messagingTemplate.convertAndSend("/topic/debug/" + sessionId,
+                DebugEvent.failure("디버그 세션이 존재하지 않습니다.", null));
+            return;
+        }
+        issueDebugCommand(session, command);
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            if (applicationExited) {
-                response.put("status", "디버깅 완료");
-                response.put("finished", true);
-            } else {
-                response.put("status", breakpointHit ? "브레이크포인트에 도달" : "실행 중");
-            }
-            response.put("output", output.toString());
-            return new ObjectMapper().writeValueAsString(response);
+    private CompletableFuture<DebugEvent> issueDebugCommand(JdiDebugSession session, String command) {
+        if ("over".equals(command)) {
+            return session.step(StepRequest.STEP_OVER);
+        } else if ("into".equals(command)) {
+            return session.step(StepRequest.STEP_INTO);
+        } else if ("out".equals(command)) {
+            return session.step(StepRequest.STEP_OUT);
+        }
+        return session.resume();
+    }
 
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", "디버깅 계속 실행 중 오류");
-            errorResponse.put("message", e.getMessage());
-            try {
-                return new ObjectMapper().writeValueAsString(errorResponse);
-            } catch (Exception jsonError) {
-                return "{\"error\":\"디버깅 계속 실행 중 오류\",\"message\":\"" + e.getMessage().replace("\"", "\\\"") + "\"}";
-            }
+    /**
+     * 다음 정지 이벤트를 기다린다. 시간 안에 멈추지 않으면 실행 중 상태를 돌려주고,
+     * 이후 이벤트는 /topic/debug/{sessionId}로만 전달된다.
+     */
+    private DebugEvent awaitDebugEvent(CompletableFuture<DebugEvent> nextStop) throws Exception {
+        try {
+            return nextStop.get(DEBUG_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return DebugEvent.running();
         }
     }
-} 
\ No newline at end of file
+}
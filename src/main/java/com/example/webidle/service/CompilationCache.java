@@ -0,0 +1,254 @@
+package com.example.webidle.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 소스, 컴파일 옵션, 클래스패스를 해시한 키로 컴파일된 클래스를 보관하는 LRU 캐시.
+ * 메모리 계층은 항목 수와 총 바이트 수로 제한되고, 디렉토리가 설정되면 디스크 계층에도 기록해
+ * 재시작 후에도 재사용한다. 디스크 계층은 disk-max-bytes를 넘으면 마지막으로 쓰거나 읽은 시각(수정 시각)이
+ * 가장 오래된 파일부터 지운다.
+ */
+@Component
+public class CompilationCache {
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Path diskDirectory;
+    private final long diskMaxBytes;
+    private final LinkedHashMap<String, Map<String, byte[]>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final Object diskLock = new Object();
+    private long diskBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    public CompilationCache(@Value("${webidle.compile-cache.max-entries:256}") int maxEntries,
+                            @Value("${webidle.compile-cache.max-bytes:67108864}") long maxBytes,
+                            @Value("${webidle.compile-cache.disk-dir:}") String diskDirectory,
+                            @Value("${webidle.compile-cache.disk-max-bytes:536870912}") long diskMaxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.diskDirectory = diskDirectory.isEmpty() ? null : Paths.get(diskDirectory);
+        this.diskMaxBytes = diskMaxBytes;
+        if (this.diskDirectory != null) {
+            try {
+                Files.createDirectories(this.diskDirectory);
+                for (Path file : diskFiles()) {
+                    diskBytes += Files.size(file);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("컴파일 캐시 디렉토리를 만들 수 없습니다: " + diskDirectory, e);
+            }
+            evictFromDisk();
+        }
+    }
+
+    /**
+     * 캐시 키를 만든다. 의존성 JAR는 경로뿐 아니라 크기와 수정 시각까지 포함해
+     * 같은 좌표의 JAR가 교체되면 다른 키가 되도록 한다.
+     */
+    public String key(String className, String code, List<String> options, List<File> classPath) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, className);
+            update(digest, code);
+            for (String option : options) {
+                update(digest, option);
+            }
+            for (File entry : classPath) {
+                update(digest, entry.getAbsolutePath() + "|" + entry.length() + "|" + entry.lastModified());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    public Map<String, byte[]> get(String key) {
+        synchronized (this) {
+            Map<String, byte[]> classes = entries.get(key);
+            if (classes != null) {
+                hits.incrementAndGet();
+                return classes;
+            }
+        }
+
+        Map<String, byte[]> classes = readFromDisk(key);
+        if (classes != null) {
+            diskHits.incrementAndGet();
+            putInMemory(key, classes);
+            return classes;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, Map<String, byte[]> classes) {
+        putInMemory(key, classes);
+        writeToDisk(key, classes);
+    }
+
+    private synchronized void putInMemory(String key, Map<String, byte[]> classes) {
+        long size = sizeOf(classes);
+        if (size > maxBytes) {
+            return;
+        }
+        Map<String, byte[]> previous = entries.put(key, classes);
+        if (previous != null) {
+            totalBytes -= sizeOf(previous);
+        }
+        totalBytes += size;
+
+        Iterator<Map.Entry<String, Map<String, byte[]>>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<String, Map<String, byte[]>> eldest = iterator.next();
+            totalBytes -= sizeOf(eldest.getValue());
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private long sizeOf(Map<String, byte[]> classes) {
+        long size = 0;
+        for (byte[] bytes : classes.values()) {
+            size += bytes.length;
+        }
+        return size;
+    }
+
+    private Map<String, byte[]> readFromDisk(String key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path file = diskDirectory.resolve(key + ".bin");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int count = in.readInt();
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            // 수정 시각을 LRU 순서로 쓰므로 읽을 때도 갱신한다
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return classes;
+        } catch (NoSuchFileException e) {
+            // 확인한 뒤 다른 요청이 축출한 경우
+            return null;
+        } catch (IOException e) {
+            System.err.println("컴파일 캐시 읽기 실패: " + file + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, Map<String, byte[]> classes) {
+        if (diskDirectory == null) {
+            return;
+        }
+        try {
+            Path tempFile = Files.createTempFile(diskDirectory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            long size = Files.size(tempFile);
+            Path file = diskDirectory.resolve(key + ".bin");
+            synchronized (diskLock) {
+                long previous = Files.exists(file) ? Files.size(file) : 0;
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                diskBytes += size - previous;
+            }
+            evictFromDisk();
+        } catch (IOException e) {
+            System.err.println("컴파일 캐시 기록 실패: " + key + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * 디스크 계층이 disk-max-bytes를 넘으면 수정 시각이 오래된 .bin 파일부터 지운다.
+     */
+    private void evictFromDisk() {
+        synchronized (diskLock) {
+            if (diskMaxBytes <= 0 || diskBytes <= diskMaxBytes) {
+                return;
+            }
+            try {
+                List<Path> files = new ArrayList<>(diskFiles());
+                Map<Path, Long> modified = new HashMap<>();
+                for (Path file : files) {
+                    modified.put(file, Files.getLastModifiedTime(file).toMillis());
+                }
+                files.sort(Comparator.comparingLong(modified::get));
+                for (Path file : files) {
+                    if (diskBytes <= diskMaxBytes) {
+                        break;
+                    }
+                    long size = Files.size(file);
+                    if (Files.deleteIfExists(file)) {
+                        diskBytes -= size;
+                        diskEvictions.incrementAndGet();
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("컴파일 캐시 디스크 정리 실패: " + e.getMessage());
+            }
+        }
+    }
+
+    private List<Path> diskFiles() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diskDirectory, "*.bin")) {
+            List<Path> files = new ArrayList<>();
+            stream.forEach(files::add);
+            return files;
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("bytes", totalBytes);
+        stats.put("hits", hits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        if (diskDirectory != null) {
+            synchronized (diskLock) {
+                stats.put("diskBytes", diskBytes);
+            }
+            stats.put("diskEvictions", diskEvictions.get());
+        }
+        return stats;
+    }
+}
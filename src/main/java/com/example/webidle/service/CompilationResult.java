@@ -0,0 +1,49 @@
+package com.example.webidle.service;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메모리 컴파일 결과. 클래스 바이트코드는 실행이 필요할 때만 {@link #writeTo(Path)}로 디스크에 내려쓴다.
+ */
+public class CompilationResult {
+    private final boolean success;
+    private final Map<String, byte[]> classes;
+    private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+    public CompilationResult(boolean success, Map<String, byte[]> classes,
+                             List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        this.success = success;
+        this.classes = Collections.unmodifiableMap(classes);
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public Map<String, byte[]> getClasses() {
+        return classes;
+    }
+
+    public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * 모든 클래스 파일을 한 번에 디렉토리 아래 패키지 구조로 기록한다.
+     */
+    public void writeTo(Path directory) throws IOException {
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Path classFile = directory.resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.webidle.service;
+
+/**
+ * 컴파일이 webidle.compiler.timeout-ms 안에 끝나지 않았을 때 발생한다.
+ */
+public class CompileTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long timeoutMillis;
+
+    public CompileTimeoutException(long timeoutMillis) {
+        super("컴파일 시간 제한(" + timeoutMillis + "ms)을 넘었습니다");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
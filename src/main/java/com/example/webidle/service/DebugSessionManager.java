@@ -0,0 +1,190 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 디버그 세션의 수명을 관리한다.
+ * <p>
+ * 동시에 유지하는 세션 수는 maxSessions로 제한하며 넘치면 가장 오래 사용하지 않은 세션을 종료한다.
+ * 유휴 시간과 전체 수명을 넘긴 세션은 주기적으로 정리하고, 디버깅을 시작한 STOMP 연결이 끊기면
+ * 그 연결이 시작한 디버그 세션도 종료한다. 토픽 구독은 다른 연결도 할 수 있으므로 소유권 판단에 쓰지 않는다.
+ */
+@Component
+public class DebugSessionManager {
+    private final int maxSessions;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private final ScheduledExecutorService reaper;
+
+    public DebugSessionManager(@Value("${webidle.debug.max-sessions:20}") int maxSessions,
+                               @Value("${webidle.debug.idle-timeout-ms:600000}") long idleTimeoutMillis,
+                               @Value("${webidle.debug.max-lifetime-ms:1800000}") long maxLifetimeMillis,
+                               @Value("${webidle.debug.reap-interval-ms:10000}") long reapIntervalMillis,
+                               MeterRegistry meterRegistry) {
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "debug-session-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleWithFixedDelay(this::reap, reapIntervalMillis, reapIntervalMillis, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("webidle.debug.sessions", this, DebugSessionManager::size)
+            .description("유지 중인 디버그 세션 수").register(meterRegistry);
+    }
+
+    private synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * 세션을 등록한다. 같은 sessionId의 기존 세션과 한도를 넘는 오래된 세션은 종료한다.
+     * connectionId는 디버깅을 시작한 STOMP 연결이며, null이면(REST 요청) 시간 제한으로만 정리한다.
+     */
+    public void register(String sessionId, JdiDebugSession session, String connectionId) {
+        List<JdiDebugSession> evicted = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = sessions.put(sessionId, new Entry(session, connectionId));
+            if (previous != null) {
+                evicted.add(previous.session);
+            }
+            Iterator<Map.Entry<String, Entry>> iterator = sessions.entrySet().iterator();
+            while (sessions.size() > maxSessions && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                System.out.println("디버그 세션 한도 초과로 종료: " + eldest.getKey());
+                evicted.add(eldest.getValue().session);
+                iterator.remove();
+            }
+        }
+        session.whenFinished().thenRun(() -> remove(sessionId, session));
+        for (JdiDebugSession old : evicted) {
+            old.terminate();
+        }
+    }
+
+    public synchronized JdiDebugSession get(String sessionId) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastActivity = System.currentTimeMillis();
+        return entry.session;
+    }
+
+    private synchronized void remove(String sessionId, JdiDebugSession session) {
+        Entry entry = sessions.get(sessionId);
+        if (entry != null && entry.session == session) {
+            sessions.remove(sessionId);
+        }
+    }
+
+    public void terminate(String sessionId) {
+        Entry entry;
+        synchronized (this) {
+            entry = sessions.remove(sessionId);
+        }
+        if (entry != null) {
+            entry.session.terminate();
+        }
+    }
+
+    private void reap() {
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, Entry> entry : sessions.entrySet()) {
+                Entry value = entry.getValue();
+                if (now - value.lastActivity > idleTimeoutMillis || now - value.createdAt > maxLifetimeMillis) {
+                    expired.add(entry.getKey());
+                }
+            }
+        }
+        for (String sessionId : expired) {
+            System.out.println("시간 초과로 디버그 세션 종료: " + sessionId);
+            terminate(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String connectionId = event.getSessionId();
+        List<JdiDebugSession> owned = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> iterator = sessions.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (connectionId != null && connectionId.equals(entry.connectionId)) {
+                    owned.add(entry.session);
+                    iterator.remove();
+                }
+            }
+        }
+        for (JdiDebugSession session : owned) {
+            session.terminate();
+        }
+    }
+
+    /**
+     * 관리자 화면용 세션 목록. 대상 JVM의 CPU 시간과 상주 메모리를 함께 보여준다.
+     */
+    public List<Map<String, Object>> describeSessions() {
+        Map<String, Entry> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(sessions);
+        }
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> described = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+            Entry value = entry.getValue();
+            ProcessHandle process = value.session.getProcess().toHandle();
+            Map<String, Object> session = new LinkedHashMap<>();
+            session.put("sessionId", entry.getKey());
+            session.put("pid", process.pid());
+            session.put("alive", process.isAlive());
+            session.put("ageMillis", now - value.createdAt);
+            session.put("idleMillis", now - value.lastActivity);
+            session.put("cpuMillis", ProcessStats.cpuMillis(process));
+            session.put("residentBytes", ProcessStats.residentBytes(process.pid()));
+            described.add(session);
+        }
+        return described;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.shutdownNow();
+        List<String> sessionIds;
+        synchronized (this) {
+            sessionIds = new ArrayList<>(sessions.keySet());
+        }
+        for (String sessionId : sessionIds) {
+            terminate(sessionId);
+        }
+    }
+
+    private static class Entry {
+        private final JdiDebugSession session;
+        private final String connectionId;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastActivity = createdAt;
+
+        Entry(JdiDebugSession session, String connectionId) {
+            this.session = session;
+            this.connectionId = connectionId;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.webidle.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 편집 중인 코드를 입력하는 동안 진단(컴파일 오류/경고)을 계산해 돌려준다.
+ * <p>
+ * 세션마다 가장 최근 요청 하나만 유지한다. 새 요청이 들어오면 debounceMillis 동안 기다렸다가 분석하고,
+ * 그 사이에 들어온 이전 요청은 분석하지 않고 {@code superseded}로 끝낸다.
+ * 이미 분석 중인 요청도 javac의 단계 사이에서 중단되므로 오래된 분석이 대기열에 쌓이지 않는다.
+ * 분석은 구문 분석과 타입 검사까지만 하고 클래스 파일은 만들지 않으며,
+ * 결과는 {@code /topic/diagnostics/{sessionId}}로도 보낸다.
+ */
+@Component
+public class DiagnosticsService {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final JavaSourceCompiler javaSourceCompiler;
+    private final MavenDependencyResolver dependencyResolver;
+    private final long debounceMillis;
+    private final ScheduledExecutorService debounceScheduler;
+    private final ExecutorService analyzeExecutor;
+    private final Map<String, PendingAnalysis> pending = new ConcurrentHashMap<>();
+
+    public DiagnosticsService(SimpMessagingTemplate messagingTemplate,
+                              JavaSourceCompiler javaSourceCompiler,
+                              MavenDependencyResolver dependencyResolver,
+                              @Value("${webidle.diagnostics.debounce-ms:300}") long debounceMillis,
+                              @Value("${webidle.diagnostics.threads:2}") int threads) {
+        this.messagingTemplate = messagingTemplate;
+        this.javaSourceCompiler = javaSourceCompiler;
+        this.dependencyResolver = dependencyResolver;
+        this.debounceMillis = debounceMillis;
+        this.debounceScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("diagnostics-debounce"));
+        this.analyzeExecutor = Executors.newFixedThreadPool(threads, daemonThreads("diagnostics"));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 세션의 이전 요청을 대체하고 새 분석을 예약한다.
+     * 반환된 future는 분석 결과 또는 {@code {superseded: true}}로 완료된다.
+     * 세션 ID가 없는 요청끼리 서로의 분석을 대체하고 결과를 엿보지 않도록 세션 ID는 반드시 있어야 한다.
+     */
+    public CompletableFuture<Map<String, Object>> submit(String code, String sessionId, long version) {
+        if (sessionId == null || sessionId.isBlank()) {
+            throw new IllegalArgumentException("진단 요청에 세션 ID가 없습니다");
+        }
+        PendingAnalysis analysis = new PendingAnalysis(sessionId, code, version);
+
+        PendingAnalysis previous = pending.put(sessionId, analysis);
+        if (previous != null) {
+            previous.supersede();
+        }
+        analysis.scheduled = debounceScheduler.schedule(
+            () -> analyzeExecutor.execute(() -> run(analysis)), debounceMillis, TimeUnit.MILLISECONDS);
+        return analysis.result;
+    }
+
+    private void run(PendingAnalysis analysis) {
+        if (analysis.isSuperseded()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> response = new HashMap<>();
+        response.put("type", "diagnostics");
+        response.put("version", analysis.version);
+
+        try {
+            List<Map<String, Object>> diagnostics = new ArrayList<>();
+            List<File> classPath = Collections.emptyList();
+            try {
+                classPath = dependencyResolver.resolve(CodeExecutionService.extractMavenDependencies(analysis.code));
+            } catch (MavenResolutionException e) {
+                // 의존성을 못 찾아도 나머지 오류는 보여줄 수 있도록 의존성 없이 분석한다
+                Map<String, Object> warning = new HashMap<>();
+                warning.put("line", 1L);
+                warning.put("column", 1L);
+                warning.put("severity", "WARNING");
+                warning.put("message", "의존성 해결 실패: " + e.getMessage());
+                diagnostics.add(warning);
+            }
+
+            for (Diagnostic<? extends JavaFileObject> diagnostic
+                    : javaSourceCompiler.analyze("Main", analysis.code, classPath, analysis::isSuperseded)) {
+                Map<String, Object> detail = new HashMap<>();
+                detail.put("line", diagnostic.getLineNumber());
+                detail.put("column", diagnostic.getColumnNumber());
+                detail.put("severity", diagnostic.getKind().name());
+                detail.put("message", diagnostic.getMessage(null));
+                diagnostics.add(detail);
+            }
+            response.put("diagnostics", diagnostics);
+            response.put("analyzeMillis", System.currentTimeMillis() - startTime);
+        } catch (CancellationException e) {
+            // 분석 도중 새 요청이 들어와 중단됨
+            return;
+        } catch (Exception e) {
+            System.err.println("진단 분석 실패: " + e.getMessage());
+            response.put("error", "진단 오류");
+            response.put("message", e.getMessage());
+        } finally {
+            pending.remove(analysis.sessionId, analysis);
+        }
+
+        if (analysis.result.complete(response)) {
+            messagingTemplate.convertAndSend("/topic/diagnostics/" + analysis.sessionId, response);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        debounceScheduler.shutdownNow();
+        analyzeExecutor.shutdownNow();
+    }
+
+    private static class PendingAnalysis {
+        final String sessionId;
+        final String code;
+        final long version;
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        volatile boolean superseded;
+        volatile ScheduledFuture<?> scheduled;
+
+        PendingAnalysis(String sessionId, String code, long version) {
+            this.sessionId = sessionId;
+            this.code = code;
+            this.version = version;
+        }
+
+        boolean isSuperseded() {
+            return superseded;
+        }
+
+        void supersede() {
+            superseded = true;
+            ScheduledFuture<?> task = scheduled;
+            if (task != null) {
+                task.cancel(false);
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("type", "diagnostics");
+            response.put("version", version);
+            response.put("superseded", true);
+            result.complete(response);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.FileEditRequest;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 편집 중인 파일을 서버 메모리의 버퍼로 유지하고, 편집기에서 보낸 변경분만 적용한다.
+ * <p>
+ * 버퍼는 변경을 적용할 때마다 버전이 1씩 오르며, 클라이언트가 보낸 baseVersion이 현재 버전과 다르면
+ * 변경을 적용하지 않고 전체 내용을 다시 보내 달라고({@code resync}) 응답한다.
+ * 디스크 기록은 첫 변경 후 flushDelayMillis 뒤에 한 번만 하므로 그 사이의 변경은 한 번의 쓰기로 합쳐진다.
+ * 디스크의 파일이 다른 경로로 바뀌었으면 덮어쓰지 않고 버퍼의 내용을 버린 뒤, 그 버퍼를 편집한 세션에
+ * 디스크의 현재 ETag를 담은 {@code conflict}를 보낸다. 이 세션들의 변경은 디스크 내용을 다시 불러왔다는
+ * ETag나 덮어쓰겠다는 force를 담은 전체 내용을 보낼 때까지 {@code conflict}로 거절한다.
+ * 응답은 {@code /topic/file/{sessionId}}로 보낸다.
+ */
+@Component
+public class DocumentBufferService {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final WorkspaceFileService workspaceFileService;
+    private final long flushDelayMillis;
+    private final long idleTimeoutMillis;
+    private final ScheduledExecutorService flushScheduler;
+    private final Map<Path, DocumentBuffer> buffers = new ConcurrentHashMap<>();
+
+    public DocumentBufferService(SimpMessagingTemplate messagingTemplate, WorkspaceFileService workspaceFileService,
+                                 @Value("${webidle.files.flush-delay-ms:500}") long flushDelayMillis,
+                                 @Value("${webidle.files.buffer-idle-timeout-ms:600000}") long idleTimeoutMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.workspaceFileService = workspaceFileService;
+        this.flushDelayMillis = flushDelayMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "document-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long evictInterval = Math.max(1000, idleTimeoutMillis / 4);
+        flushScheduler.scheduleWithFixedDelay(this::evictIdle, evictInterval, evictInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void applyEdits(String sessionId, FileEditRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("path", request.getPath());
+        try {
+            Path file = workspaceFileService.resolve(request.getPath());
+            DocumentBuffer buffer = buffers.computeIfAbsent(file, path -> new DocumentBuffer(path, request.getPath()));
+            synchronized (buffer) {
+                buffer.sessions.add(sessionId);
+                if (request.getContent() != null ? !buffer.acceptsContent(sessionId, request)
+                        : buffer.conflicted.contains(sessionId)) {
+                    messagingTemplate.convertAndSend("/topic/file/" + sessionId, conflictResponse(buffer,
+                        buffer.currentDiskEtag(), "다른 곳에서 변경된 파일입니다. 다시 불러오거나 덮어써야 합니다"));
+                    return;
+                }
+                if (request.getContent() != null) {
+                    buffer.replace(request.getContent());
+                } else if (!buffer.loadIfNeeded() || request.getBaseVersion() == null
+                        || request.getBaseVersion() != buffer.version || !buffer.apply(request.getEdits())) {
+                    response.put("type", "resync");
+                    response.put("version", buffer.version);
+                    messagingTemplate.convertAndSend("/topic/file/" + sessionId, response);
+                    return;
+                }
+                scheduleFlush(buffer);
+                response.put("type", "ack");
+                response.put("version", buffer.version);
+            }
+        } catch (Exception e) {
+            System.err.println("파일 변경 적용 실패: " + request.getPath() + " - " + e.getMessage());
+            response.put("type", "error");
+            response.put("message", e.getMessage());
+        }
+        messagingTemplate.convertAndSend("/topic/file/" + sessionId, response);
+    }
+
+    /**
+     * 아직 디스크에 쓰지 않은 변경을 바로 기록한다. 프로젝트 빌드처럼 디스크 내용을 읽기 전에 호출한다.
+     */
+    public void flushAll() {
+        for (DocumentBuffer buffer : buffers.values()) {
+            flush(buffer);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int dirty = 0;
+        long chars = 0;
+        for (DocumentBuffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                if (buffer.dirty) {
+                    dirty++;
+                }
+                chars += buffer.content == null ? 0 : buffer.content.length();
+            }
+        }
+        stats.put("buffers", buffers.size());
+        stats.put("dirty", dirty);
+        stats.put("bufferedChars", chars);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdownNow();
+        flushAll();
+    }
+
+    private void scheduleFlush(DocumentBuffer buffer) {
+        buffer.dirty = true;
+        buffer.lastEdit = System.currentTimeMillis();
+        if (!buffer.flushScheduled) {
+            buffer.flushScheduled = true;
+            flushScheduler.schedule(() -> flush(buffer), flushDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(DocumentBuffer buffer) {
+        // 예약된 기록과 flushAll이 겹치면 두 번째 기록이 ETag 충돌로 오인되므로 버퍼마다 한 번에 하나만 기록한다
+        synchronized (buffer.flushLock) {
+            writeSnapshot(buffer);
+        }
+    }
+
+    private void writeSnapshot(DocumentBuffer buffer) {
+        String snapshot;
+        String expectedEtag;
+        long version;
+        synchronized (buffer) {
+            buffer.flushScheduled = false;
+            if (!buffer.dirty) {
+                return;
+            }
+            snapshot = buffer.content.toString();
+            expectedEtag = buffer.diskEtag;
+            version = buffer.version;
+        }
+
+        try {
+            String etag = workspaceFileService.save(buffer.path,
+                new ByteArrayInputStream(snapshot.getBytes(StandardCharsets.UTF_8)), expectedEtag);
+            synchronized (buffer) {
+                buffer.diskEtag = etag;
+                // 기록하는 동안 새 변경이 없었을 때만 깨끗한 상태로 본다
+                if (buffer.version == version) {
+                    buffer.dirty = false;
+                }
+            }
+        } catch (FileConflictException e) {
+            System.err.println("다른 곳에서 변경된 파일이라 버퍼를 버림: " + buffer.path);
+            Map<String, Object> conflict;
+            List<String> sessions;
+            synchronized (buffer) {
+                // 기록하는 동안 들어온 변경도 버린다. 다음 변경은 디스크 내용을 다시 읽어 시작한다
+                buffer.content = null;
+                buffer.diskEtag = null;
+                buffer.dirty = false;
+                buffer.version++;
+                buffer.conflicted.addAll(buffer.sessions);
+                sessions = new ArrayList<>(buffer.sessions);
+                conflict = conflictResponse(buffer, e.getCurrentEtag(), e.getMessage());
+            }
+            for (String sessionId : sessions) {
+                messagingTemplate.convertAndSend("/topic/file/" + sessionId, conflict);
+            }
+        } catch (IOException e) {
+            System.err.println("버퍼 기록 실패: " + buffer.path + " - " + e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> conflictResponse(DocumentBuffer buffer, String etag, String message) {
+        Map<String, Object> conflict = new HashMap<>();
+        conflict.put("type", "conflict");
+        conflict.put("path", buffer.requestPath);
+        conflict.put("version", buffer.version);
+        conflict.put("etag", etag);
+        conflict.put("message", message);
+        return conflict;
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (DocumentBuffer buffer : buffers.values()) {
+            if (now - buffer.lastEdit > idleTimeoutMillis) {
+                flush(buffer);
+                synchronized (buffer) {
+                    if (!buffer.dirty) {
+                        buffers.remove(buffer.path, buffer);
+                    }
+                }
+            }
+        }
+    }
+
+    private class DocumentBuffer {
+        final Path path;
+        final String requestPath;
+        final Object flushLock = new Object();
+        // 충돌을 알릴 세션. 버퍼는 유휴 시간이 지나면 없어지므로 따로 비우지 않는다
+        final Set<String> sessions = new LinkedHashSet<>();
+        // 충돌을 받고 아직 다시 불러오거나 덮어쓰지 않은 세션
+        final Set<String> conflicted = new HashSet<>();
+        StringBuilder content;
+        String diskEtag;
+        long version;
+        boolean dirty;
+        boolean flushScheduled;
+        long lastEdit = System.currentTimeMillis();
+
+        DocumentBuffer(Path path, String requestPath) {
+            this.path = path;
+            this.requestPath = requestPath;
+        }
+
+        /**
+         * 처음 변경이 들어올 때 디스크 내용을 읽는다. 파일이 없으면 false를 돌려 전체 내용을 요청한다.
+         */
+        boolean loadIfNeeded() throws IOException {
+            if (content != null) {
+                return true;
+            }
+            if (!Files.isRegularFile(path)) {
+                return false;
+            }
+            diskEtag = workspaceFileService.etag(path);
+            content = new StringBuilder(Files.readString(path, StandardCharsets.UTF_8));
+            return true;
+        }
+
+        String currentDiskEtag() throws IOException {
+            return Files.isRegularFile(path) ? workspaceFileService.etag(path) : null;
+        }
+
+        /**
+         * 충돌을 받은 세션의 전체 내용은 디스크의 현재 내용을 바탕으로 했거나(etag) 덮어쓰기로 했을 때(force)만 받는다.
+         */
+        boolean acceptsContent(String sessionId, FileEditRequest request) throws IOException {
+            if (conflicted.contains(sessionId) && !request.isForce()
+                    && (request.getEtag() == null || !request.getEtag().equals(currentDiskEtag()))) {
+                return false;
+            }
+            conflicted.remove(sessionId);
+            return true;
+        }
+
+        void replace(String newContent) throws IOException {
+            if (content == null && Files.isRegularFile(path)) {
+                diskEtag = workspaceFileService.etag(path);
+            }
+            content = new StringBuilder(newContent);
+            version++;
+        }
+
+        /**
+         * 변경 목록을 순서대로 적용한다. 범위가 맞지 않으면 아무것도 바꾸지 않고 false를 돌려준다.
+         */
+        boolean apply(List<FileEditRequest.Edit> edits) {
+            if (edits == null) {
+                return false;
+            }
+            // 적용하기 전에 길이 변화만 따라가며 모든 범위를 검사해 버퍼를 복사하지 않는다
+            int length = content.length();
+            for (FileEditRequest.Edit edit : edits) {
+                // offset + length는 int 범위를 넘을 수 있으므로 빼서 비교한다
+                if (edit.getOffset() < 0 || edit.getLength() < 0 || edit.getLength() > length - edit.getOffset()) {
+                    return false;
+                }
+                length += (edit.getText() == null ? 0 : edit.getText().length()) - edit.getLength();
+            }
+            for (FileEditRequest.Edit edit : edits) {
+                content.replace(edit.getOffset(), edit.getOffset() + edit.getLength(),
+                    edit.getText() == null ? "" : edit.getText());
+            }
+            version++;
+            return true;
+        }
+    }
+}
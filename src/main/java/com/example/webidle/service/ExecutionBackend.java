@@ -0,0 +1,38 @@
+package com.example.webidle.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 컴파일된 프로그램을 실제로 실행하는 곳. webidle.execution.backend로 고른다.
+ * <ul>
+ *   <li>local: 이 프로세스가 띄운 러너 JVM이나 fork한 JVM에서 실행한다({@link LocalExecutionBackend}).</li>
+ *   <li>remote: 다른 노드의 워커 프로세스로 보내 실행한다({@link RemoteExecutionBackend}).</li>
+ * </ul>
+ * 컴파일과 의존성 해결, 디버깅은 어느 쪽이든 이 프로세스에서 한다.
+ * 어느 쪽이든 실행 시간, CPU 시간, 출력 크기 한도({@link ExecutionBudget})를 출력을 읽는 것과 상관없이 지키고,
+ * 넘으면 프로세스 트리를 죽이고 넘은 한도를 결과에 담는다.
+ * <p>
+ * 실행용 JVM은 같은 owner(세션 ID 등 실행을 요청한 쪽)의 실행에만 다시 쓴다. 사용자 코드가 리플렉션으로 러너 내부에 손대거나
+ * 스레드를 남겨 다음 요청을 가로챌 수 있으므로, 다른 사용자의 실행을 거친 러너는 넘겨주지 않는다.
+ * owner가 null이면 실행이 끝난 러너를 다시 쓰지 않는다.
+ */
+public interface ExecutionBackend {
+
+    /**
+     * 프로그램을 실행하고 출력을 output으로 흘려보낸다. 한도를 넘기면 넘은 한도를 담은 결과를 돌려준다.
+     */
+    RunnerPool.RunResult run(String owner, Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                             ExecutionBudget budget, ProgramOutput output) throws IOException, InterruptedException;
+
+    /**
+     * 표준 입력을 넣어 실행하고 실행 시간과 최대 힙 사용량을 잰다. 테스트 케이스 실행에 쓴다.
+     */
+    RunnerPool.RunResult runCase(String owner, Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                                 byte[] stdin, ExecutionBudget budget, ProgramOutput output)
+            throws IOException, InterruptedException;
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,50 @@
+package com.example.webidle.service;
+
+/**
+ * 한 번의 실행에 허용하는 실행 시간, CPU 시간, 출력 크기.
+ * 출력을 읽는 쪽과 상관없이 {@link ProcessWatchdog}가 지키며, 넘으면 실행한 프로세스 트리를 통째로 죽인다.
+ * 0 이하인 한도는 제한하지 않는다.
+ */
+public class ExecutionBudget {
+    /** 넘은 한도의 이름. 응답의 limit 필드에 그대로 나간다. */
+    public static final String WALL_TIME = "wall_time";
+    public static final String CPU_TIME = "cpu_time";
+    public static final String OUTPUT = "output";
+    public static final String COMPILE_TIME = "compile_time";
+
+    private final long wallMillis;
+    private final long cpuMillis;
+    private final long maxOutputBytes;
+
+    public ExecutionBudget(long wallMillis, long cpuMillis, long maxOutputBytes) {
+        this.wallMillis = wallMillis;
+        this.cpuMillis = cpuMillis;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    public long getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public long getMaxOutputBytes() {
+        return maxOutputBytes;
+    }
+
+    /**
+     * 넘은 한도를 사용자에게 보여 줄 문장으로 바꾼다.
+     */
+    public String describe(String limit) {
+        if (WALL_TIME.equals(limit)) {
+            return "실행 시간 제한(" + wallMillis + "ms)을 넘었습니다";
+        } else if (CPU_TIME.equals(limit)) {
+            return "CPU 시간 제한(" + cpuMillis + "ms)을 넘었습니다";
+        } else if (OUTPUT.equals(limit)) {
+            return "출력 한도(" + maxOutputBytes + "바이트)를 넘었습니다";
+        }
+        return "실행 한도를 넘었습니다: " + limit;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 코드 실행 요청의 동시 실행 수와 대기열을 관리한다.
+ * <p>
+ * 동시에 실행되는 작업 수는 maxConcurrent로, 대기열 길이는 queueCapacity로 제한하며
+ * 한 세션이 실행 중이거나 대기 중인 작업은 maxPerSession개를 넘을 수 없다. sessionId가 없는 요청은
+ * 서로 다른 클라이언트일 수 있으므로 세션 한도를 적용하지 않고 전체 한도만 적용한다.
+ * 대기열이 가득 차면 {@link RejectedExecutionException}으로 거절하고,
+ * 대기 중인 작업에는 {@code /topic/output/{sessionId}}로 대기 순번을 알린다.
+ * 실제 작업은 프로세스 I/O에서 블로킹되므로 가능하면 가상 스레드에서 실행한다.
+ */
+@Component
+public class ExecutionScheduler {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final int maxPerSession;
+    private final ExecutorService workerExecutor;
+    private final Deque<Job<?>> queue = new ArrayDeque<>();
+    private final Map<String, Integer> sessionCounts = new HashMap<>();
+    private int running;
+
+    public ExecutionScheduler(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+                              @Value("${webidle.scheduler.max-concurrent:4}") int maxConcurrent,
+                              @Value("${webidle.scheduler.queue-capacity:32}") int queueCapacity,
+                              @Value("${webidle.scheduler.max-per-session:2}") int maxPerSession) {
+        this.messagingTemplate = messagingTemplate;
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.maxPerSession = maxPerSession;
+        this.workerExecutor = newWorkerExecutor();
+
+        Gauge.builder("webidle.scheduler.running", this, scheduler -> scheduler.getCount(true))
+            .description("실행 중인 작업 수").register(meterRegistry);
+        Gauge.builder("webidle.scheduler.queued", this, scheduler -> scheduler.getCount(false))
+            .description("대기 중인 작업 수").register(meterRegistry);
+    }
+
+    private synchronized int getCount(boolean runningJobs) {
+        return runningJobs ? running : queue.size();
+    }
+
+    /**
+     * Java 21 이상에서 실행되면 가상 스레드를, 아니면 데몬 스레드 풀을 사용한다.
+     */
+    private static ExecutorService newWorkerExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "execution-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String sessionId, Callable<T> task) {
+        Job<T> job = new Job<>(sessionId, task);
+        List<Job<?>> queuedJobs;
+        synchronized (this) {
+            int sessionCount = sessionId == null ? 0 : sessionCounts.getOrDefault(sessionId, 0);
+            if (sessionCount >= maxPerSession) {
+                throw new RejectedExecutionException("세션당 동시 실행 한도(" + maxPerSession + ")를 초과했습니다.");
+            }
+            if (running >= maxConcurrent && queue.size() >= queueCapacity) {
+                throw new RejectedExecutionException("실행 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.");
+            }
+            if (sessionId != null) {
+                sessionCounts.put(sessionId, sessionCount + 1);
+            }
+            queue.addLast(job);
+            queuedJobs = dispatch();
+        }
+        notifyQueuePositions(queuedJobs);
+        return job.future;
+    }
+
+    /**
+     * 빈 슬롯만큼 대기열의 작업을 꺼내 실행하고, 여전히 대기 중인 작업 목록을 돌려준다.
+     */
+    private List<Job<?>> dispatch() {
+        while (running < maxConcurrent && !queue.isEmpty()) {
+            Job<?> job = queue.pollFirst();
+            running++;
+            workerExecutor.execute(() -> runJob(job));
+        }
+        return new ArrayList<>(queue);
+    }
+
+    private void runJob(Job<?> job) {
+        try {
+            job.run();
+        } finally {
+            List<Job<?>> queuedJobs;
+            synchronized (this) {
+                running--;
+                if (job.sessionId != null) {
+                    int sessionCount = sessionCounts.getOrDefault(job.sessionId, 1) - 1;
+                    if (sessionCount <= 0) {
+                        sessionCounts.remove(job.sessionId);
+                    } else {
+                        sessionCounts.put(job.sessionId, sessionCount);
+                    }
+                }
+                queuedJobs = dispatch();
+            }
+            notifyQueuePositions(queuedJobs);
+        }
+    }
+
+    private void notifyQueuePositions(List<Job<?>> queuedJobs) {
+        for (int i = 0; i < queuedJobs.size(); i++) {
+            Job<?> job = queuedJobs.get(i);
+            if (job.sessionId == null || job.lastReportedPosition == i + 1) {
+                continue;
+            }
+            job.lastReportedPosition = i + 1;
+            Map<String, Object> frame = new HashMap<>();
+            frame.put("type", "queued");
+            frame.put("position", i + 1);
+            messagingTemplate.convertAndSend("/topic/output/" + job.sessionId, frame);
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("queued", queue.size());
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("queueCapacity", queueCapacity);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerExecutor.shutdownNow();
+    }
+
+    private static class Job<T> {
+        private final String sessionId;
+        private final Callable<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private volatile int lastReportedPosition;
+
+        Job(String sessionId, Callable<T> task) {
+            this.sessionId = sessionId;
+            this.task = task;
+        }
+
+        void run() {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
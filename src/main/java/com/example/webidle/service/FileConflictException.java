@@ -0,0 +1,22 @@
+package com.example.webidle.service;
+
+/**
+ * If-Match로 기대한 ETag와 저장하려는 파일의 현재 ETag가 다를 때 발생한다.
+ */
+public class FileConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String currentEtag;
+
+    public FileConflictException(String message, String currentEtag) {
+        super(message);
+        this.currentEtag = currentEtag;
+    }
+
+    /**
+     * 충돌을 확인한 시점의 디스크 파일 ETag. 파일이 없으면 null이다.
+     */
+    public String getCurrentEtag() {
+        return currentEtag;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.webidle.service;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 소스와 클래스 파일을 디스크 대신 메모리에 보관하는 파일 매니저.
+ * 컴파일 결과는 {@link #getCompiledClasses()}로 꺼내 쓴다.
+ * 감싸는 {@link StandardJavaFileManager}는 호출자가 수명을 관리한다.
+ */
+public class InMemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final Map<String, ClassFile> classFiles = new LinkedHashMap<>();
+
+    public InMemoryJavaFileManager(StandardJavaFileManager fileManager) {
+        super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                               JavaFileObject.Kind kind, FileObject sibling) {
+        ClassFile classFile = new ClassFile(className, kind);
+        classFiles.put(className, classFile);
+        return classFile;
+    }
+
+    /**
+     * 감싸고 있는 파일 매니저는 여러 컴파일이 공유하므로 닫지 않는다.
+     */
+    @Override
+    public void close() {
+        classFiles.clear();
+    }
+
+    public Map<String, byte[]> getCompiledClasses() {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (Map.Entry<String, ClassFile> entry : classFiles.entrySet()) {
+            classes.put(entry.getKey(), entry.getValue().getBytes());
+        }
+        return classes;
+    }
+
+    public static JavaFileObject sourceFile(String className, String code) {
+        return new SourceFile(className, code);
+    }
+
+    static class SourceFile extends SimpleJavaFileObject {
+        private final String code;
+
+        SourceFile(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    static class ClassFile extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String className, Kind kind) {
+            super(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+
+        byte[] getBytes() {
+            return bytes.toByteArray();
+        }
+    }
+}
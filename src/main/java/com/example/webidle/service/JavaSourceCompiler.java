@@ -0,0 +1,321 @@
+package com.example.webidle.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 소스 문자열을 디스크를 거치지 않고 메모리에서 컴파일한다.
+ * <p>
+ * javac의 파일 매니저는 한 번 연 JAR와 플랫폼 모듈 인덱스를 닫기 전까지 재사용하므로,
+ * 파일 매니저를 컴파일마다 새로 만들지 않고 webidle.compiler.max-concurrent개의 컨텍스트를 풀로 돌려 쓴다.
+ * 한 컨텍스트는 한 번에 하나의 컴파일만 사용하며, 클래스패스의 JAR가 바뀌면 그 컨텍스트를 새로 만든다.
+ * <p>
+ * 컴파일은 별도 스레드에서 돌리고 호출한 스레드는 webidle.compiler.timeout-ms까지만 기다린다. 시간을 넘긴 javac는
+ * 다음 단계로 넘어가는 순간 중단되고, 호출한 쪽은 {@link CompileTimeoutException}을 받는다.
+ */
+@Component
+public class JavaSourceCompiler {
+    private static final int MAX_OPEN_JARS = 512;
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    private final BlockingQueue<CompilerContext> contexts;
+    private final long timeoutMillis;
+    private final ExecutorService compileExecutor;
+
+    public JavaSourceCompiler(@Value("${webidle.compiler.max-concurrent:2}") int maxConcurrentCompiles,
+                              @Value("${webidle.compiler.timeout-ms:10000}") long timeoutMillis) {
+        this.contexts = new ArrayBlockingQueue<>(maxConcurrentCompiles, true);
+        for (int i = 0; i < maxConcurrentCompiles; i++) {
+            contexts.add(new CompilerContext());
+        }
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        // 시간을 넘겨 버려진 javac도 끝날 때까지 스레드를 차지하므로 동시에 도는 javac는 컨텍스트 수를 넘지 않는다
+        this.compileExecutor = Executors.newFixedThreadPool(maxConcurrentCompiles, runnable -> {
+            Thread thread = new Thread(runnable, "javac-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 동시에 실행되는 javac 수는 컨텍스트 수(webidle.compiler.max-concurrent)로 제한된다.
+     * 컨텍스트를 기다리는 시간도 컴파일 시간 제한에 들어간다.
+     */
+    public CompilationResult compile(String className, String code, List<String> options, List<File> classPath) {
+        return withDeadline((context, expired) ->
+            doCompile(context.prepare(classPath), className, code, options, expired));
+    }
+
+    /**
+     * 클래스 파일을 만들지 않고 구문 분석과 타입 검사만 한다. 컴파일과 같은 시간 제한을 받는다.
+     * cancelled가 true가 되면 javac의 다음 단계로 넘어가기 전에 {@link CancellationException}으로 중단한다.
+     */
+    public List<Diagnostic<? extends JavaFileObject>> analyze(String className, String code, List<File> classPath,
+                                                               BooleanSupplier cancelled) {
+        return withDeadline((context, expired) -> {
+            StandardJavaFileManager standardFileManager = context.prepare(classPath);
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            JavacTask task = (JavacTask) compiler.getTask(null, new InMemoryJavaFileManager(standardFileManager),
+                diagnostics, Collections.singletonList("-proc:none"), null,
+                Collections.singletonList(InMemoryJavaFileManager.sourceFile(className, code)));
+            task.addTaskListener(abortWhen(() -> expired.getAsBoolean() || cancelled.getAsBoolean()));
+            task.parse();
+            task.analyze();
+            return diagnostics.getDiagnostics();
+        });
+    }
+
+    /**
+     * 디스크의 소스 파일들을 outputDirectory로 컴파일한다. 프로젝트 증분 빌드에서 사용하며,
+     * 이전에 컴파일된 클래스를 참조할 수 있도록 classPath에 outputDirectory를 포함해야 한다.
+     */
+    public boolean compileFiles(List<File> sources, List<String> options, List<File> classPath, File outputDirectory,
+                                DiagnosticListener<? super JavaFileObject> diagnostics, Consumer<JavacTask> configure) {
+        return withDeadline((context, expired) -> {
+            StandardJavaFileManager standardFileManager = context.prepare(classPath);
+            standardFileManager.setLocation(StandardLocation.CLASS_OUTPUT,
+                Collections.singletonList(outputDirectory));
+            JavacTask task = (JavacTask) compiler.getTask(null, standardFileManager, diagnostics, options, null,
+                standardFileManager.getJavaFileObjectsFromFiles(sources));
+            if (configure != null) {
+                configure.accept(task);
+            }
+            task.addTaskListener(abortWhen(expired));
+            return task.call();
+        });
+    }
+
+    /**
+     * 컴파일 스레드에서 컨텍스트를 빌려 compilation을 실행하고 시간 제한까지 기다린다. compilation에 넘기는
+     * expired는 시간을 넘겼거나 호출한 쪽이 기다리기를 그만두면 true가 된다.
+     * 기다리기를 그만둔 컴파일이 쥔 컨텍스트는 javac가 아직 쓰고 있으므로 풀에 새 컨텍스트를 넣어 대신하고,
+     * 원래 컨텍스트는 컴파일 스레드가 끝날 때 버린다.
+     */
+    private <T> T withDeadline(Compilation<T> compilation) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Lease lease = new Lease();
+        BooleanSupplier expired = () -> lease.isAbandoned() || System.nanoTime() - deadline > 0;
+        Future<T> future = compileExecutor.submit(() -> {
+            CompilerContext context = lease.hold(borrow(deadline));
+            try {
+                return compilation.run(context, expired);
+            } catch (IOException e) {
+                context.discard();
+                throw new IllegalStateException("파일 매니저 준비 실패", e);
+            } finally {
+                lease.release();
+            }
+        });
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            lease.abandon();
+            future.cancel(true);
+            System.err.println("컴파일 시간 제한(" + timeoutMillis + "ms) 초과, 컴파일을 중단합니다");
+            throw new CompileTimeoutException(timeoutMillis);
+        } catch (InterruptedException e) {
+            lease.abandon();
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("컴파일 대기 중 중단되었습니다");
+        } catch (ExecutionException e) {
+            if (expired.getAsBoolean()) {
+                // javac가 단계 사이에서 먼저 시간 초과를 알아챈 경우
+                throw new CompileTimeoutException(timeoutMillis);
+            }
+            // javac는 TaskListener가 던진 예외를 RuntimeException으로 감싸므로 abortWhen의 중단을 꺼내 다시 던진다
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof CancellationException cancellation) {
+                    throw cancellation;
+                }
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("컴파일 실패", e.getCause());
+        }
+    }
+
+    private static TaskListener abortWhen(BooleanSupplier expired) {
+        return new TaskListener() {
+            @Override
+            public void started(TaskEvent event) {
+                if (expired.getAsBoolean()) {
+                    throw new CancellationException();
+                }
+            }
+        };
+    }
+
+    /**
+     * 마감 시각까지 컨텍스트를 기다린다. 기다리는 중에 호출한 쪽이 포기하면(인터럽트) 중단한다.
+     */
+    private CompilerContext borrow(long deadline) {
+        try {
+            CompilerContext context = contexts.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (context == null) {
+                throw new CompileTimeoutException(timeoutMillis);
+            }
+            return context;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("컴파일 컨텍스트 대기 중 중단되었습니다");
+        }
+    }
+
+    private CompilationResult doCompile(StandardJavaFileManager standardFileManager, String className, String code,
+                                        List<String> options, BooleanSupplier expired) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        InMemoryJavaFileManager fileManager = new InMemoryJavaFileManager(standardFileManager);
+
+        JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, options, null,
+            Collections.singletonList(InMemoryJavaFileManager.sourceFile(className, code)));
+        task.addTaskListener(abortWhen(expired));
+        boolean success = task.call();
+
+        return new CompilationResult(success, fileManager.getCompiledClasses(), diagnostics.getDiagnostics());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compileExecutor.shutdownNow();
+        for (CompilerContext context : contexts) {
+            context.discard();
+        }
+    }
+
+    public static String joinClassPath(List<File> entries) {
+        StringBuilder classPath = new StringBuilder();
+        for (File entry : entries) {
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(entry.getAbsolutePath());
+        }
+        return classPath.toString();
+    }
+
+    @FunctionalInterface
+    private interface Compilation<T> {
+        T run(CompilerContext context, BooleanSupplier expired) throws IOException;
+    }
+
+    /**
+     * 컴파일 하나가 빌린 컨텍스트. 호출한 쪽이 기다리기를 그만두는 것과 컴파일 스레드가 끝나는 것이
+     * 어느 순서로 일어나도 풀의 컨텍스트 수가 그대로 유지되게 한다.
+     */
+    private class Lease {
+        private CompilerContext context;
+        private boolean abandoned;
+
+        synchronized CompilerContext hold(CompilerContext borrowed) {
+            if (abandoned) {
+                contexts.add(borrowed);
+                throw new CancellationException();
+            }
+            context = borrowed;
+            return borrowed;
+        }
+
+        synchronized void abandon() {
+            abandoned = true;
+            if (context != null) {
+                contexts.add(new CompilerContext());
+            }
+        }
+
+        synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+
+        synchronized void release() {
+            if (context == null) {
+                return;
+            }
+            if (abandoned) {
+                context.discard();
+            } else {
+                contexts.add(context);
+            }
+            context = null;
+        }
+    }
+
+    private class CompilerContext {
+        private StandardJavaFileManager fileManager;
+        private final Map<File, Long> jarStamps = new HashMap<>();
+
+        /**
+         * 이전에 열었던 JAR의 수정 시각이 달라졌으면(로컬 저장소에서 교체된 경우) 파일 매니저를 새로 만든다.
+         * 열린 JAR가 너무 많이 쌓여도 새로 만들어 메모리를 돌려받는다.
+         */
+        StandardJavaFileManager prepare(List<File> classPath) throws IOException {
+            boolean stale = jarStamps.size() > MAX_OPEN_JARS;
+            // 디렉토리는 매번 새로 읽히므로 JAR만 추적한다 (프로젝트 출력 디렉토리는 빌드마다 바뀐다)
+            for (File entry : classPath) {
+                if (!entry.isFile()) {
+                    continue;
+                }
+                Long seen = jarStamps.get(entry);
+                if (seen != null && seen != entry.lastModified()) {
+                    stale = true;
+                    break;
+                }
+            }
+            if (stale) {
+                discard();
+            }
+            if (fileManager == null) {
+                fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+            }
+            for (File entry : classPath) {
+                if (entry.isFile()) {
+                    jarStamps.put(entry, entry.lastModified());
+                }
+            }
+
+            // 서버 자신의 클래스패스가 보이지 않도록 의존성이 없어도 명시적으로 설정한다
+            fileManager.setLocation(StandardLocation.CLASS_PATH, classPath);
+            return fileManager;
+        }
+
+        void discard() {
+            if (fileManager != null) {
+                try {
+                    fileManager.close();
+                } catch (IOException e) {
+                    System.err.println("파일 매니저 종료 실패: " + e.getMessage());
+                }
+                fileManager = null;
+            }
+            jarStamps.clear();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.DebugEvent;
+import com.example.webidle.model.ExecutionResult;
+import com.sun.jdi.*;
+import com.sun.jdi.event.*;
+import com.sun.jdi.request.*;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * JDI로 대상 JVM 하나를 디버깅하는 세션.
+ * <p>
+ * 전용 이벤트 스레드가 {@link EventQueue#remove()}에서 블로킹하며 이벤트를 기다리고,
+ * 브레이크포인트/스텝/예외/종료 이벤트를 스택 프레임과 변수를 담은 {@link DebugEvent}로
+ * {@code /topic/debug/{sessionId}}에 보낸다. 대상 프로그램의 출력은 {@link ProgramOutput}으로 스트리밍한다.
+ * 대상이 멈춰 있는 동안에는 CPU 시간 감시를 멈추고, 한도를 넘어 죽으면 종료 이벤트 앞에 실패 이벤트를 보낸다.
+ */
+public class JdiDebugSession {
+    private static final int MAX_FRAMES = 20;
+    private static final int MAX_VALUE_LENGTH = 200;
+    private static final String[] STEP_EXCLUDES = {"java.*", "javax.*", "jdk.*", "sun.*", "com.sun.*"};
+
+    private final String sessionId;
+    private final VirtualMachine vm;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ProgramOutput output;
+    private final CgroupManager.Group group;
+    private final ExecutionBudget budget;
+    private final ProcessWatchdog.Watch watch;
+    private final Set<Integer> breakpointLines;
+    private final String mainClass;
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private CompletableFuture<DebugEvent> nextStop = new CompletableFuture<>();
+    private ThreadReference suspendedThread;
+
+    JdiDebugSession(String sessionId, VirtualMachine vm, String mainClass, Collection<Integer> breakpointLines,
+                    SimpMessagingTemplate messagingTemplate, ProgramOutput output, CgroupManager.Group group,
+                    ExecutionBudget budget, ProcessWatchdog.Watch watch) {
+        this.sessionId = sessionId;
+        this.vm = vm;
+        this.mainClass = mainClass;
+        this.breakpointLines = new TreeSet<>(breakpointLines);
+        this.messagingTemplate = messagingTemplate;
+        this.output = output;
+        this.group = group;
+        this.budget = budget;
+        this.watch = watch;
+        finished.whenComplete((ignored, failure) -> {
+            watch.cancel();
+            if (group != null) {
+                group.remove();
+            }
+        });
+    }
+
+    /**
+     * VMStart 상태로 멈춰 있는 대상 JVM에 이벤트 요청을 걸고 실행을 시작한다.
+     * 반환값은 첫 번째 정지(브레이크포인트, 예외, 종료) 이벤트다.
+     */
+    synchronized CompletableFuture<DebugEvent> start() {
+        EventRequestManager requests = vm.eventRequestManager();
+        for (String filter : new String[] {mainClass, mainClass + "$*"}) {
+            ClassPrepareRequest classPrepare = requests.createClassPrepareRequest();
+            classPrepare.addClassFilter(filter);
+            classPrepare.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+            classPrepare.enable();
+        }
+        ExceptionRequest uncaught = requests.createExceptionRequest(null, false, true);
+        uncaught.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+        uncaught.enable();
+
+        Process process = vm.process();
+        startPump(process.getInputStream(), "stdout");
+        startPump(process.getErrorStream(), "stderr");
+
+        Thread eventThread = new Thread(this::eventLoop, "jdi-events-" + sessionId);
+        eventThread.setDaemon(true);
+        eventThread.start();
+        return nextStop;
+    }
+
+    private void startPump(InputStream in, String name) {
+        Thread pump = new Thread(() -> {
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            try (in) {
+                while ((bytesRead = in.read(buffer)) != -1) {
+                    output.write(buffer, 0, bytesRead);
+                }
+            } catch (IOException e) {
+                // 대상 JVM 종료
+            }
+        }, "jdi-" + name + "-" + sessionId);
+        pump.setDaemon(true);
+        pump.start();
+    }
+
+    private void eventLoop() {
+        EventQueue queue = vm.eventQueue();
+        try {
+            while (true) {
+                EventSet eventSet = queue.remove();
+                boolean resume = true;
+                for (Event event : eventSet) {
+                    if (event instanceof ClassPrepareEvent) {
+                        setBreakpoints(((ClassPrepareEvent) event).referenceType());
+                    } else if (event instanceof BreakpointEvent) {
+                        resume = false;
+                        onStop("breakpoint", "브레이크포인트에 도달", ((LocatableEvent) event).thread(), null);
+                    } else if (event instanceof StepEvent) {
+                        resume = false;
+                        vm.eventRequestManager().deleteEventRequest(event.request());
+                        onStop("step", "한 줄 실행", ((LocatableEvent) event).thread(), null);
+                    } else if (event instanceof ExceptionEvent) {
+                        resume = false;
+                        ExceptionEvent exceptionEvent = (ExceptionEvent) event;
+                        onStop("exception", "처리되지 않은 예외", exceptionEvent.thread(), exceptionEvent.exception());
+                    } else if (event instanceof VMDeathEvent || event instanceof VMDisconnectEvent) {
+                        onExit();
+                        return;
+                    }
+                }
+                if (resume) {
+                    eventSet.resume();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onExit();
+        } catch (VMDisconnectedException e) {
+            onExit();
+        }
+    }
+
+    private void setBreakpoints(ReferenceType type) {
+        EventRequestManager requests = vm.eventRequestManager();
+        for (Integer line : breakpointLines) {
+            try {
+                for (Location location : type.locationsOfLine(line)) {
+                    BreakpointRequest breakpoint = requests.createBreakpointRequest(location);
+                    breakpoint.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+                    breakpoint.enable();
+                }
+            } catch (AbsentInformationException e) {
+                // 디버그 정보가 없는 클래스
+            }
+        }
+    }
+
+    private void onStop(String type, String status, ThreadReference thread, ObjectReference exception) {
+        watch.pause();
+        Integer line = null;
+        List<DebugEvent.Variable> variables = null;
+        List<DebugEvent.Frame> described;
+        try {
+            List<StackFrame> frames = thread.frames();
+            if (!frames.isEmpty()) {
+                line = frames.get(0).location().lineNumber();
+                variables = describeVariables(frames.get(0));
+            }
+            described = describeFrames(frames);
+        } catch (IncompatibleThreadStateException e) {
+            described = Collections.emptyList();
+        }
+        String exceptionType = exception != null ? exception.referenceType().name() : null;
+
+        output.flush();
+        publish(DebugEvent.stopped(type, status, thread.name(), line, variables, described, exceptionType), thread);
+    }
+
+    private void onExit() {
+        Integer exitCode = null;
+        try {
+            Process process = vm.process();
+            process.waitFor();
+            exitCode = process.exitValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        watch.cancel();
+        Map<String, Object> completion = new HashMap<>();
+        completion.put("exitCode", exitCode);
+        String limit = watch.getExceededLimit();
+        if (limit != null) {
+            completion.put("limit", limit);
+        }
+        output.complete(completion);
+        if (limit != null) {
+            publish(DebugEvent.failure(ExecutionResult.LIMIT_EXCEEDED, budget.describe(limit)), null);
+        }
+        publish(DebugEvent.exited(exitCode), null);
+        finished.complete(null);
+    }
+
+    private void publish(DebugEvent event, ThreadReference thread) {
+        synchronized (this) {
+            suspendedThread = thread;
+            nextStop.complete(event);
+        }
+        try {
+            messagingTemplate.convertAndSend("/topic/debug/" + sessionId, event);
+        } catch (RuntimeException e) {
+            System.err.println("디버그 이벤트 전송 실패: " + e.getMessage());
+        }
+    }
+
+    private List<DebugEvent.Frame> describeFrames(List<StackFrame> frames) {
+        List<DebugEvent.Frame> described = new ArrayList<>();
+        for (StackFrame frame : frames.subList(0, Math.min(MAX_FRAMES, frames.size()))) {
+            Location location = frame.location();
+            described.add(new DebugEvent.Frame(location.declaringType().name(), location.method().name(),
+                location.lineNumber()));
+        }
+        return described;
+    }
+
+    private List<DebugEvent.Variable> describeVariables(StackFrame frame) {
+        List<DebugEvent.Variable> variables = new ArrayList<>();
+        try {
+            for (LocalVariable variable : frame.visibleVariables()) {
+                variables.add(new DebugEvent.Variable(variable.name(), variable.typeName(),
+                    describeValue(frame.getValue(variable))));
+            }
+        } catch (AbsentInformationException e) {
+            // -g 없이 컴파일된 경우 지역 변수 정보가 없다
+        }
+        return variables;
+    }
+
+    private String describeValue(Value value) {
+        String described;
+        if (value == null) {
+            described = "null";
+        } else if (value instanceof StringReference) {
+            described = "\"" + ((StringReference) value).value() + "\"";
+        } else if (value instanceof ArrayReference) {
+            described = value.type().name() + "[" + ((ArrayReference) value).length() + "]";
+        } else if (value instanceof ObjectReference) {
+            described = value.type().name() + "@" + ((ObjectReference) value).uniqueID();
+        } else {
+            described = value.toString();
+        }
+        return described.length() > MAX_VALUE_LENGTH ? described.substring(0, MAX_VALUE_LENGTH) + "..." : described;
+    }
+
+    /**
+     * 다음 정지 이벤트까지 실행을 계속한다.
+     */
+    public synchronized CompletableFuture<DebugEvent> resume() {
+        if (finished.isDone()) {
+            return nextStop;
+        }
+        nextStop = new CompletableFuture<>();
+        suspendedThread = null;
+        watch.resume();
+        vm.resume();
+        return nextStop;
+    }
+
+    /**
+     * depth는 {@link StepRequest#STEP_OVER}, {@link StepRequest#STEP_INTO}, {@link StepRequest#STEP_OUT} 중 하나다.
+     */
+    public synchronized CompletableFuture<DebugEvent> step(int depth) {
+        if (finished.isDone() || suspendedThread == null) {
+            return resume();
+        }
+        EventRequestManager requests = vm.eventRequestManager();
+        requests.deleteEventRequests(requests.stepRequests());
+        StepRequest step = requests.createStepRequest(suspendedThread, StepRequest.STEP_LINE, depth);
+        for (String exclude : STEP_EXCLUDES) {
+            step.addClassExclusionFilter(exclude);
+        }
+        step.addCountFilter(1);
+        step.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+        step.enable();
+        return resume();
+    }
+
+    public void terminate() {
+        try {
+            vm.exit(-1);
+        } catch (VMDisconnectedException e) {
+            // 이미 종료됨
+        }
+        vm.process().destroyForcibly();
+        if (group != null) {
+            group.kill();
+        }
+    }
+
+    public CompletableFuture<Void> whenFinished() {
+        return finished;
+    }
+
+    public boolean isFinished() {
+        return finished.isDone();
+    }
+
+    public Process getProcess() {
+        return vm.process();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.webidle.service;
+
+import com.sun.jdi.Bootstrap;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.connect.Connector;
+import com.sun.jdi.connect.LaunchingConnector;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDWP로 대상 JVM을 띄우고 {@link JdiDebugSession}을 만든다.
+ * <p>
+ * 대상 JVM은 러너와 같은 JVM 옵션으로 띄우고, 시작 직후 멈춰 있는 동안 cgroup 그룹으로 옮긴다.
+ * 실행 중에는 {@link ProcessWatchdog#debugBudget()}의 CPU 시간과 출력 한도를 건다.
+ */
+@Component
+public class JdiDebugger {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final OutputStreamPublisher outputStreamPublisher;
+    private final RunnerLaunchProfile launchProfile;
+    private final CgroupManager cgroupManager;
+    private final ProcessWatchdog processWatchdog;
+
+    public JdiDebugger(SimpMessagingTemplate messagingTemplate, OutputStreamPublisher outputStreamPublisher,
+                       RunnerLaunchProfile launchProfile, CgroupManager cgroupManager,
+                       ProcessWatchdog processWatchdog) {
+        this.messagingTemplate = messagingTemplate;
+        this.outputStreamPublisher = outputStreamPublisher;
+        this.launchProfile = launchProfile;
+        this.cgroupManager = cgroupManager;
+        this.processWatchdog = processWatchdog;
+    }
+
+    public JdiDebugSession launch(String sessionId, List<File> classPath, String mainClass,
+                                  List<Integer> breakpoints) throws Exception {
+        LaunchingConnector connector = Bootstrap.virtualMachineManager().defaultConnector();
+        Map<String, Connector.Argument> arguments = connector.defaultArguments();
+        arguments.get("main").setValue(mainClass);
+        arguments.get("options").setValue(String.join(" ", launchProfile.getJvmOptions())
+            + " -Dfile.encoding=UTF-8 -cp \"" + JavaSourceCompiler.joinClassPath(classPath) + "\"");
+        arguments.get("suspend").setValue("true");
+
+        VirtualMachine vm = connector.launch(arguments);
+        CgroupManager.Group group = cgroupManager.create();
+        if (group != null) {
+            try {
+                group.add(vm.process().pid());
+            } catch (IOException e) {
+                System.err.println("디버그 대상 cgroup 이동 실패, 제한 없이 실행합니다: " + e.getMessage());
+                group.remove();
+                group = null;
+            }
+        }
+        ProgramOutput output = outputStreamPublisher.open(sessionId);
+        ExecutionBudget budget = processWatchdog.debugBudget();
+        // 첫 정지까지는 실행 중이므로 감시를 멈추지 않고 시작한다
+        ProcessWatchdog.Watch watch = processWatchdog.watch(vm.process(), group, budget, output);
+        return new JdiDebugSession(sessionId, vm, mainClass, breakpoints, messagingTemplate, output, group,
+            budget, watch);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.webidle.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 이 프로세스에서 실행한다. 미리 띄워 둔 러너 JVM을 쓰고, 사용할 수 있는 러너가 없으면 프로그램 JVM을 fork한다.
+ * fork한 JVM의 출력은 따로 읽고, 요청 스레드는 프로세스가 끝나기만 기다린다. 한도는 {@link ProcessWatchdog}가 지킨다.
+ */
+@Component
+@ConditionalOnProperty(name = "webidle.execution.backend", havingValue = "local", matchIfMissing = true)
+public class LocalExecutionBackend implements ExecutionBackend {
+    // 프로세스가 끝난 뒤 출력 파이프가 닫히기를 기다리는 시간. 파이프를 물려받은 자손이 살아 있으면 닫히지 않는다
+    private static final long OUTPUT_DRAIN_MILLIS = 500;
+
+    private final RunnerPool runnerPool;
+    private final RunnerLaunchProfile launchProfile;
+    private final CgroupManager cgroupManager;
+    private final ProcessWatchdog processWatchdog;
+    private final ExecutorService outputReaders;
+
+    public LocalExecutionBackend(RunnerPool runnerPool, RunnerLaunchProfile launchProfile,
+                                 CgroupManager cgroupManager, ProcessWatchdog processWatchdog) {
+        this.runnerPool = runnerPool;
+        this.launchProfile = launchProfile;
+        this.cgroupManager = cgroupManager;
+        this.processWatchdog = processWatchdog;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.outputReaders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fork-output-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public RunnerPool.RunResult run(String owner, Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                                    ExecutionBudget budget, ProgramOutput output)
+            throws IOException, InterruptedException {
+        RunnerPool.RunResult pooledResult = runnerPool.run(owner, classes, classPath, mainClass, budget, output);
+        if (pooledResult != null) {
+            return pooledResult;
+        }
+        // 실행이 필요할 때만 클래스 파일을 한 번에 기록
+        Path tempDir = Files.createTempDirectory("webidle_");
+        try {
+            new CompilationResult(true, classes, Collections.emptyList()).writeTo(tempDir);
+            return runForked(tempDir, classPath, mainClass, budget, output);
+        } finally {
+            // 임시 파일 정리
+            CodeExecutionService.deleteRecursively(tempDir);
+        }
+    }
+
+    @Override
+    public RunnerPool.RunResult runCase(String owner, Map<String, byte[]> classes, List<File> classPath,
+                                        String mainClass, byte[] stdin, ExecutionBudget budget, ProgramOutput output)
+            throws IOException, InterruptedException {
+        return runnerPool.runCase(owner, classes, classPath, mainClass, stdin, budget, output);
+    }
+
+    private RunnerPool.RunResult runForked(Path tempDir, List<File> dependencyJars, String mainClass,
+                                           ExecutionBudget budget, ProgramOutput output)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.addAll(launchProfile.getJvmOptions());
+        command.add("-Dfile.encoding=UTF-8");
+        command.add("-cp");
+        StringBuilder classPath = new StringBuilder(tempDir.toAbsolutePath().toString());
+        for (File jar : dependencyJars) {
+            classPath.append(File.pathSeparator).append(jar.getAbsolutePath());
+        }
+        command.add(classPath.toString());
+        command.add(mainClass);
+
+        CgroupManager.Group group = cgroupManager.create();
+        try {
+            return runProcess(group == null ? command : group.wrap(command), group, budget, output);
+        } finally {
+            if (group != null) {
+                group.remove();
+            }
+        }
+    }
+
+    private RunnerPool.RunResult runProcess(List<String> command, CgroupManager.Group group, ExecutionBudget budget,
+                                            ProgramOutput output) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        if (group != null) {
+            group.begin();
+        }
+        long spawnStart = System.nanoTime();
+        Process process = processBuilder.start();
+        long spawnNanos = System.nanoTime() - spawnStart;
+        // 표준 입력을 읽는 프로그램이 입력을 기다리며 멈추지 않도록 바로 닫는다
+        process.getOutputStream().close();
+        ProcessWatchdog.Watch watch = processWatchdog.watch(process, group, budget, output);
+
+        // 출력은 다른 스레드에서 읽는다. 출력을 끝없이 쏟아내는 프로그램도 한도에 걸리면 워치독이 죽인다
+        AtomicBoolean abandoned = new AtomicBoolean();
+        Future<?> reader = outputReaders.submit(() -> {
+            try (InputStream in = process.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int bytesRead;
+                while ((bytesRead = in.read(buffer)) != -1 && !abandoned.get()) {
+                    output.write(buffer, 0, bytesRead);
+                }
+            }
+            return null;
+        });
+        try {
+            process.onExit().get();
+            try {
+                reader.get(OUTPUT_DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // 출력 파이프를 물려받은 자손이 남은 경우. 결과에 섞이지 않도록 이후 출력은 버린다
+                abandoned.set(true);
+            }
+        } catch (ExecutionException e) {
+            System.err.println("프로그램 출력 읽기 실패: " + e.getCause().getMessage());
+        } finally {
+            watch.cancel();
+            // 정상 종료했어도 백그라운드로 남긴 자손이 출력 파이프를 쥐고 있을 수 있으므로 항상 정리한다
+            if (group != null) {
+                group.kill();
+            }
+            watch.destroyTree();
+            closeStreams(process);
+        }
+
+        String exceededLimit = watch.getExceededLimit();
+        RunnerPool.RunResult result = new RunnerPool.RunResult(exceededLimit != null ? -1 : process.exitValue(),
+            exceededLimit, false);
+        result.setAcquireNanos(spawnNanos);
+        if (group != null) {
+            result.setResourceUsage(group.end());
+        }
+        return result;
+    }
+
+    /**
+     * 출력 읽기 스레드가 파이프에서 막혀 있지 않도록 프로세스의 스트림을 닫는다.
+     */
+    private static void closeStreams(Process process) {
+        for (Closeable stream : List.of(process.getInputStream(), process.getErrorStream(),
+                process.getOutputStream())) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // 이미 닫힌 스트림
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backend", "local");
+        stats.put("cgroup", cgroupManager.getStats());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outputReaders.shutdownNow();
+    }
+}
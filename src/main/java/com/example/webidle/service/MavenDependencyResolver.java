@@ -0,0 +1,404 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResult;
+import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transport.file.FileTransporterFactory;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.filter.DependencyFilterUtils;
+import org.eclipse.aether.util.repository.SimpleArtifactDescriptorPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code // @maven} 좌표를 전이 의존성까지 포함한 JAR 목록으로 해결한다.
+ * <p>
+ * 해결 결과는 정규화된 좌표 집합별로 TTL과 최대 항목 수가 있는 LRU 캐시에 보관한다.
+ * 서로 독립적인 좌표는 병렬로 해결하고, 같은 좌표 집합에 대한 해결이 이미 진행 중이면
+ * 새로 시작하지 않고 그 결과를 함께 기다린다.
+ * <p>
+ * 저장소 목록은 webidle.maven.repositories로 설정하며 file:// 미러를 쓸 수 있다.
+ * webidle.maven.offline=true이면 로컬 저장소와 file:// 미러만 사용한다.
+ */
+@Component
+public class MavenDependencyResolver {
+    private final File localRepository;
+    private final RepositorySystem repositorySystem;
+    private final RepositorySystemSession repositorySystemSession;
+    private final List<RemoteRepository> repositories;
+    private final boolean offline;
+    private final Resource prefetchManifest;
+    private final long cacheTtlMillis;
+    private final int cacheMaxEntries;
+    private final long resolveTimeoutMillis;
+    private final LinkedHashMap<String, CacheEntry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<List<File>>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService resolveExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter localArtifacts;
+    private final Counter downloadedArtifacts;
+
+    public MavenDependencyResolver(@Value("${webidle.maven.cache-ttl-ms:3600000}") long cacheTtlMillis,
+                                   @Value("${webidle.maven.cache-max-entries:128}") int cacheMaxEntries,
+                                   @Value("${webidle.maven.resolve-threads:4}") int resolveThreads,
+                                   @Value("${webidle.maven.resolve-timeout-ms:120000}") long resolveTimeoutMillis,
+                                   @Value("${webidle.maven.local-repository:${user.home}/.m2/repository}") String localRepository,
+                                   @Value("${webidle.maven.repositories:central::https://repo.maven.apache.org/maven2/}") List<String> repositories,
+                                   @Value("${webidle.maven.offline:false}") boolean offline,
+                                   @Value("${webidle.maven.prefetch-manifest:classpath:maven-prefetch.txt}") Resource prefetchManifest,
+                                   @Value("${webidle.maven.prefetch-on-startup:false}") boolean prefetchOnStartup,
+                                   MeterRegistry meterRegistry) {
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.resolveTimeoutMillis = resolveTimeoutMillis;
+        this.localRepository = new File(localRepository);
+        this.offline = offline;
+        this.prefetchManifest = prefetchManifest;
+        this.meterRegistry = meterRegistry;
+        this.cacheHits = Counter.builder("webidle.maven.cache").tag("result", "hit")
+            .description("좌표 해결 결과 캐시 적중").register(meterRegistry);
+        this.cacheMisses = Counter.builder("webidle.maven.cache").tag("result", "miss")
+            .description("좌표 해결 결과 캐시 미스").register(meterRegistry);
+        this.localArtifacts = Counter.builder("webidle.maven.artifacts").tag("source", "local")
+            .description("해결된 artifact 수 (로컬 저장소/원격 다운로드)").register(meterRegistry);
+        this.downloadedArtifacts = Counter.builder("webidle.maven.artifacts").tag("source", "remote")
+            .description("해결된 artifact 수 (로컬 저장소/원격 다운로드)").register(meterRegistry);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.resolveExecutor = Executors.newFixedThreadPool(resolveThreads, runnable -> {
+            Thread thread = new Thread(runnable, "maven-resolve-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+            locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
+            locator.addService(TransporterFactory.class, FileTransporterFactory.class);
+            locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+            
+            locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
+                @Override
+                public void serviceCreationFailed(Class<?> type, Class<?> impl, Throwable exception) {
+                    System.err.println("서비스 생성 실패: " + type.getName() + " -> " + impl.getName());
+                    exception.printStackTrace();
+                }
+            });
+            
+            this.repositorySystem = locator.getService(RepositorySystem.class);
+            if (this.repositorySystem == null) {
+                throw new IllegalStateException("RepositorySystem을 초기화할 수 없습니다.");
+            }
+            
+            DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+            LocalRepository localRepo = new LocalRepository(localRepository);
+            session.setLocalRepositoryManager(
+                repositorySystem.newLocalRepositoryManager(session, localRepo)
+            );
+            
+            session.setArtifactDescriptorPolicy(new SimpleArtifactDescriptorPolicy(true, true));
+
+            // 오프라인 모드에서는 네트워크 저장소를 막고 file:// 미러만 허용한다
+            session.setOffline(offline);
+            session.setConfigProperty("aether.offline.protocols", "file");
+            
+            this.repositorySystemSession = session;
+            this.repositories = parseRepositories(repositories);
+            
+        } catch (Exception e) {
+            throw new RuntimeException("Maven Repository System 초기화 실패", e);
+        }
+
+        if (prefetchOnStartup) {
+            // prefetch()는 해결 스레드의 결과를 기다리므로 해결 스레드 풀 밖에서 돌린다
+            Thread prefetchThread = new Thread(() -> prefetch(readPrefetchManifest()), "maven-prefetch");
+            prefetchThread.setDaemon(true);
+            prefetchThread.start();
+        }
+    }
+
+    /**
+     * {@code id::url} 형식의 저장소 목록을 읽는다. id를 생략하면 순번으로 만든다.
+     * url은 {@code file:///srv/maven-mirror} 같은 로컬 미러도 가능하다.
+     */
+    private List<RemoteRepository> parseRepositories(List<String> definitions) {
+        List<RemoteRepository> parsed = new ArrayList<>();
+        for (String definition : definitions) {
+            String trimmed = definition.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.indexOf("::");
+            String id = separator < 0 ? "repo" + (parsed.size() + 1) : trimmed.substring(0, separator);
+            String url = separator < 0 ? trimmed : trimmed.substring(separator + 2);
+            parsed.add(new RemoteRepository.Builder(id, "default", url).build());
+            System.out.println("Maven 저장소 등록: " + id + " -> " + url + (offline ? " (오프라인)" : ""));
+        }
+        return Collections.unmodifiableList(parsed);
+    }
+
+    public List<String> readPrefetchManifest() {
+        List<String> coordinates = new ArrayList<>();
+        if (prefetchManifest == null || !prefetchManifest.exists()) {
+            return coordinates;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(prefetchManifest.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    coordinates.add(line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("프리페치 목록 읽기 실패: " + e.getMessage());
+        }
+        return coordinates;
+    }
+
+    /**
+     * 자주 쓰이는 의존성을 미리 해결해 로컬 저장소와 캐시를 채운다.
+     */
+    public Map<String, Object> prefetch(List<String> coordinates) {
+        Map<String, CompletableFuture<List<File>>> futures = new LinkedHashMap<>();
+        for (String coordinate : coordinates) {
+            futures.putIfAbsent(coordinate.trim(), resolveAsync(coordinate.trim()));
+        }
+
+        List<String> resolved = new ArrayList<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<List<File>>> entry : futures.entrySet()) {
+            try {
+                await(entry.getKey(), entry.getValue());
+                resolved.add(entry.getKey());
+            } catch (RuntimeException e) {
+                failed.put(entry.getKey(), e.getMessage());
+            }
+        }
+        System.out.println("의존성 프리페치 완료: 성공 " + resolved.size() + "개, 실패 " + failed.size() + "개");
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("resolved", resolved);
+        summary.put("failed", failed);
+        summary.put("offline", offline);
+        return summary;
+    }
+
+    /**
+     * 좌표 목록을 클래스패스에 넣을 JAR 목록으로 해결한다. 같은 artifact가 여러 버전으로 나오면
+     * 먼저 선언된 좌표 쪽 버전을 사용한다.
+     */
+    public List<File> resolve(List<String> coordinates) {
+        if (coordinates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        SortedSet<String> normalized = new TreeSet<>();
+        for (String coordinate : coordinates) {
+            normalized.add(coordinate.trim());
+        }
+        if (normalized.size() == 1) {
+            return await(normalized.first(), resolveAsync(normalized.first()));
+        }
+
+        String key = String.join(",", normalized);
+        List<File> cached = getCached(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        // 좌표별 해결은 병렬로 진행하고 선언 순서대로 합친다
+        Map<String, CompletableFuture<List<File>>> futures = new LinkedHashMap<>();
+        for (String coordinate : coordinates) {
+            futures.putIfAbsent(coordinate.trim(), resolveAsync(coordinate.trim()));
+        }
+        Map<String, File> merged = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<List<File>>> entry : futures.entrySet()) {
+            for (File jar : await(entry.getKey(), entry.getValue())) {
+                merged.putIfAbsent(artifactKey(jar), jar);
+            }
+        }
+        List<File> jars = Collections.unmodifiableList(new ArrayList<>(merged.values()));
+        putCached(key, jars);
+        return jars;
+    }
+
+    /**
+     * 로컬 저장소 경로({@code group/artifact/version/file})에서 버전을 뺀 부분을 artifact 식별자로 쓴다.
+     */
+    private String artifactKey(File jar) {
+        File versionDirectory = jar.getParentFile();
+        File artifactDirectory = versionDirectory == null ? null : versionDirectory.getParentFile();
+        if (artifactDirectory == null) {
+            return jar.getAbsolutePath();
+        }
+        String classifierAndExtension = jar.getName().substring(
+            Math.min(jar.getName().length(), artifactDirectory.getName().length() + versionDirectory.getName().length() + 1));
+        return artifactDirectory.getAbsolutePath() + classifierAndExtension;
+    }
+
+    private CompletableFuture<List<File>> resolveAsync(String coordinates) {
+        List<File> cached = getCached(coordinates);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        cacheMisses.increment();
+
+        CompletableFuture<List<File>> created = new CompletableFuture<>();
+        CompletableFuture<List<File>> existing = inFlight.putIfAbsent(coordinates, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        resolveExecutor.execute(() -> {
+            try {
+                List<File> jars = Collections.unmodifiableList(resolveTransitively(coordinates));
+                putCached(coordinates, jars);
+                created.complete(jars);
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(coordinates, created);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * 해결 결과를 resolve-timeout-ms까지만 기다린다. 시간이 지나도 해결 작업은 계속되어 다음 요청이 결과를 쓴다.
+     */
+    private List<File> await(String coordinates, CompletableFuture<List<File>> future) {
+        try {
+            return future.get(resolveTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new MavenResolutionException(coordinates,
+                "의존성 해결 시간 초과 (" + resolveTimeoutMillis + "ms): " + coordinates, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("의존성 해결이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MavenResolutionException) {
+                throw (MavenResolutionException) e.getCause();
+            }
+            throw new IllegalStateException("의존성 해결 실패", e.getCause());
+        }
+    }
+
+    private synchronized List<File> getCached(String key) {
+        CacheEntry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.resolvedAt > cacheTtlMillis) {
+            cache.remove(key);
+            return null;
+        }
+        return entry.jars;
+    }
+
+    private synchronized void putCached(String key, List<File> jars) {
+        cache.put(key, new CacheEntry(jars, System.currentTimeMillis()));
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (cache.size() > cacheMaxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private List<File> resolveTransitively(String coordinates) {
+        if (coordinates.split(":").length != 3) {
+            throw new MavenResolutionException(coordinates, "잘못된 Maven 좌표: " + coordinates, null);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            // 전이 의존성까지 포함해 해결
+            DefaultArtifact artifact = new DefaultArtifact(coordinates);
+            Dependency dependency = new Dependency(artifact, JavaScopes.COMPILE);
+
+            CollectRequest collectRequest = new CollectRequest();
+            collectRequest.setRoot(dependency);
+            collectRequest.setRepositories(repositories);
+            
+            DependencyRequest dependencyRequest = new DependencyRequest(collectRequest,
+                DependencyFilterUtils.classpathFilter(JavaScopes.RUNTIME));
+
+            DependencyResult result = repositorySystem.resolveDependencies(repositorySystemSession, dependencyRequest);
+
+            List<File> jars = new ArrayList<>();
+            for (ArtifactResult artifactResult : result.getArtifactResults()) {
+                Artifact resolved = artifactResult.getArtifact();
+                if (resolved != null && resolved.getFile() != null) {
+                    jars.add(resolved.getFile());
+                    // 원격 저장소에서 가져왔으면 RemoteRepository, 로컬 저장소에 있었으면 LocalRepository
+                    if (artifactResult.getRepository() instanceof RemoteRepository) {
+                        downloadedArtifacts.increment();
+                    } else {
+                        localArtifacts.increment();
+                    }
+                }
+            }
+            outcome = "success";
+            System.out.println("의존성 해결 성공: " + coordinates + " (" + jars.size() + "개 JAR)");
+            return jars;
+
+        } catch (Exception e) {
+            System.err.println("의존성 해결 실패: " + coordinates + " - " + e.getMessage());
+            String reason = offline ? "오프라인 모드에서 로컬 저장소/미러에 없는 의존성입니다: " : "의존성 다운로드 실패: ";
+            throw new MavenResolutionException(coordinates, reason + coordinates, e);
+        } finally {
+            sample.stop(Timer.builder("webidle.maven.resolve")
+                .description("좌표 하나의 전이 의존성 해결 시간")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        resolveExecutor.shutdownNow();
+    }
+
+    private static class CacheEntry {
+        private final List<File> jars;
+        private final long resolvedAt;
+
+        CacheEntry(List<File> jars, long resolvedAt) {
+            this.jars = jars;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
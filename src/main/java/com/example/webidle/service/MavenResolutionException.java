@@ -0,0 +1,19 @@
+package com.example.webidle.service;
+
+/**
+ * {@code // @maven} 좌표를 해결하지 못했을 때 발생한다.
+ */
+public class MavenResolutionException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String coordinates;
+
+    public MavenResolutionException(String coordinates, String message, Throwable cause) {
+        super(message, cause);
+        this.coordinates = coordinates;
+    }
+
+    public String getCoordinates() {
+        return coordinates;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실행 중인 프로그램의 출력을 {@code /topic/output/{sessionId}}로 흘려보내는 {@link ProgramOutput}을 만든다.
+ * 작은 출력은 일정 주기마다, 큰 출력은 프레임 크기에 도달할 때마다 묶어서 보낸다.
+ * 아웃바운드 채널이 밀려 있는 동안에는 주기적 전송을 미뤄 작은 프레임을 더 큰 프레임으로 합친다.
+ */
+@Component
+public class OutputStreamPublisher {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ScheduledExecutorService flushScheduler;
+    private final long flushIntervalMillis;
+    private final int maxFrameChars;
+    private final int maxRetainedChars;
+    private final WebSocketTransportMonitor transportMonitor;
+    private final Counter deferredFlushes;
+
+    public OutputStreamPublisher(SimpMessagingTemplate messagingTemplate, WebSocketTransportMonitor transportMonitor,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${webidle.output.flush-interval-ms:50}") long flushIntervalMillis,
+                                 @Value("${webidle.output.max-frame-chars:8192}") int maxFrameChars,
+                                 @Value("${webidle.output.max-retained-chars:1048576}") int maxRetainedChars) {
+        this.messagingTemplate = messagingTemplate;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxFrameChars = maxFrameChars;
+        this.maxRetainedChars = maxRetainedChars;
+        this.transportMonitor = transportMonitor;
+        this.deferredFlushes = Counter.builder("webidle.output.flushes.deferred")
+            .description("아웃바운드 채널이 밀려 다음으로 미룬 출력 전송").register(meterRegistry);
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "output-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * sessionId가 null이면 WebSocket으로 보내지 않고 출력만 모은다.
+     */
+    public ProgramOutput open(String sessionId) {
+        String destination = sessionId == null ? null : "/topic/output/" + sessionId;
+        ProgramOutput output = new ProgramOutput(messagingTemplate, destination, maxFrameChars, maxRetainedChars,
+            transportMonitor::isOutboundCongested);
+        if (destination != null) {
+            output.setFlushTask(flushScheduler.scheduleWithFixedDelay(() -> {
+                if (!output.periodicFlush()) {
+                    deferredFlushes.increment();
+                }
+            }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS));
+        }
+        return output;
+    }
+
+    /**
+     * WebSocket으로 보내지 않고 앞부분 최대 maxRetainedChars 글자만 모은다. 테스트 케이스 출력처럼
+     * 응답에만 담는 출력에 쓴다.
+     */
+    public ProgramOutput collect(int maxRetainedChars) {
+        return new ProgramOutput(messagingTemplate, null, maxFrameChars, maxRetainedChars, () -> false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdownNow();
+    }
+}
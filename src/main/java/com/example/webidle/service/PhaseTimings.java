@@ -0,0 +1,74 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실행 한 건의 단계별 소요 시간을 모은다.
+ * <p>
+ * 단계마다 {@code webidle.execution.phase} 타이머(phase, type 태그)에 기록하고, 같은 값을
+ * {@code <phase>Millis} 항목으로 실행 응답의 timings에 넣는다. {@link #finish(String)}는 전체 시간을
+ * {@code webidle.execution} 타이머(outcome, type 태그)에 한 번만 기록한다.
+ */
+class PhaseTimings {
+    private final MeterRegistry meterRegistry;
+    private final String type;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> nanos = new HashMap<>();
+    private final Map<String, Object> millis = new LinkedHashMap<>();
+    private boolean finished;
+
+    PhaseTimings(MeterRegistry meterRegistry, String type) {
+        this.meterRegistry = meterRegistry;
+        this.type = type;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    void record(String phase, long elapsedNanos) {
+        long value = Math.max(0, elapsedNanos);
+        nanos.merge(phase, value, Long::sum);
+        millis.put(phase + "Millis", TimeUnit.NANOSECONDS.toMillis(nanos.get(phase)));
+        Timer.builder("webidle.execution.phase")
+            .description("실행 단계별 소요 시간")
+            .tag("phase", phase)
+            .tag("type", type)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(value, TimeUnit.NANOSECONDS);
+    }
+
+    long getNanos(String phase) {
+        return nanos.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * 지금까지 기록한 단계 시간과 전체 시간을 응답용 맵으로 돌려준다.
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>(millis);
+        result.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return result;
+    }
+
+    void finish(String outcome) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        Timer.builder("webidle.execution")
+            .description("실행 요청 전체 소요 시간")
+            .tag("type", type)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
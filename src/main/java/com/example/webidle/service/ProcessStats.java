@@ -0,0 +1,45 @@
+package com.example.webidle.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 자식 프로세스의 CPU/메모리 사용량을 읽는다. 메모리는 Linux의 /proc에서만 읽을 수 있고,
+ * 읽지 못하면 -1을 돌려준다.
+ */
+public final class ProcessStats {
+    private ProcessStats() {
+    }
+
+    public static long cpuMillis(ProcessHandle process) {
+        return process.info().totalCpuDuration().map(Duration::toMillis).orElse(-1L);
+    }
+
+    /**
+     * 현재 상주 메모리(VmRSS).
+     */
+    public static long residentBytes(long pid) {
+        long kilobytes = readStatusKilobytes(pid, "VmRSS:");
+        return kilobytes >= 0 ? kilobytes * 1024 : -1;
+    }
+
+    private static long readStatusKilobytes(long pid, String field) {
+        Path status = Paths.get("/proc", Long.toString(pid), "status");
+        try {
+            List<String> lines = Files.readAllLines(status);
+            for (String line : lines) {
+                if (line.startsWith(field)) {
+                    String value = line.substring(field.length()).trim();
+                    return Long.parseLong(value.split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // /proc가 없거나 프로세스가 이미 종료됨
+        }
+        return -1;
+    }
+}
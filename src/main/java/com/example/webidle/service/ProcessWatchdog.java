@@ -0,0 +1,220 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 실행 중인 프로세스가 {@link ExecutionBudget}을 넘지 않는지 출력을 읽는 스레드와 따로 지켜본다.
+ * <p>
+ * 실행 시간은 마감 시각에 맞춰 예약한 작업으로, CPU 시간은 check-interval-ms마다 프로세스 트리(cgroup이 있으면
+ * 그룹 전체)의 사용량으로, 출력 크기는 {@link ProgramOutput}에 쓰이는 순간 확인한다. 하나라도 넘으면 어느 한도를
+ * 넘었는지 기록하고 프로세스 트리를 통째로 죽인다. 프로세스가 먼저 끝나면 onExit()으로 감시를 거둔다.
+ */
+@Component
+public class ProcessWatchdog {
+    private final long wallMillis;
+    private final long cpuMillis;
+    private final long maxOutputBytes;
+    private final long checkIntervalMillis;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService scheduler;
+
+    public ProcessWatchdog(@Value("${webidle.execution.budget.wall-ms:5000}") long wallMillis,
+                           @Value("${webidle.execution.budget.cpu-ms:5000}") long cpuMillis,
+                           @Value("${webidle.execution.budget.max-output-bytes:4194304}") long maxOutputBytes,
+                           @Value("${webidle.execution.budget.check-interval-ms:50}") long checkIntervalMillis,
+                           MeterRegistry meterRegistry) {
+        this.wallMillis = wallMillis;
+        this.cpuMillis = cpuMillis;
+        this.maxOutputBytes = maxOutputBytes;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.meterRegistry = meterRegistry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "process-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 코드/프로젝트 실행에 쓰는 설정된 한도.
+     */
+    public ExecutionBudget defaultBudget() {
+        return new ExecutionBudget(wallMillis, cpuMillis, maxOutputBytes);
+    }
+
+    /**
+     * 테스트 케이스 한도. 케이스의 시간 제한을 CPU 시간 제한으로도 쓴다.
+     */
+    public ExecutionBudget caseBudget(long timeoutMillis) {
+        return new ExecutionBudget(timeoutMillis, timeoutMillis, maxOutputBytes);
+    }
+
+    /**
+     * 디버그 대상 JVM 한도. 브레이크포인트에서 사용자를 기다리는 시간은 세션 수명으로 따로 제한하므로
+     * 실행 시간 제한 없이 CPU 시간과 출력만 제한한다.
+     */
+    public ExecutionBudget debugBudget() {
+        return new ExecutionBudget(0, cpuMillis, maxOutputBytes);
+    }
+
+    /**
+     * process를 budget 안에서 감시하기 시작한다. group이 있으면 CPU 시간을 그룹에서 읽고, 한도를 넘으면 그룹째 죽인다.
+     * output이 있으면 출력 한도를 건다. 실행이 끝나면 {@link Watch#cancel()}을 불러야 한다.
+     */
+    public Watch watch(Process process, CgroupManager.Group group, ExecutionBudget budget, ProgramOutput output) {
+        return new Watch(process, group, budget, output);
+    }
+
+    /**
+     * 프로세스와 그 자손을 모두 강제로 종료한다. 부모를 죽이면 자손이 목록에서 빠지므로 자손 목록을 먼저 잡는다.
+     */
+    static void destroyTree(ProcessHandle process) {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        process.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+
+    private static long cpuNanos(ProcessHandle process) {
+        return process.info().totalCpuDuration().map(Duration::toNanos).orElse(0L);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 한 번의 실행에 대한 감시. 러너를 다시 쓰는 경우에도 실행마다 새로 만든다.
+     */
+    public class Watch {
+        private final Process process;
+        private final CgroupManager.Group group;
+        private final ExecutionBudget budget;
+        private final boolean groupCpu;
+        private final long cpuStartNanos;
+        private long pausedNanos;
+        private long pausedAtNanos = -1;
+        private final AtomicReference<String> exceeded = new AtomicReference<>();
+        // 부모가 끝나면 자손은 init으로 입양되어 descendants()에서 빠지므로 감시 중에 본 자손을 기억해 둔다
+        private final Set<ProcessHandle> seenDescendants = ConcurrentHashMap.newKeySet();
+        private final ScheduledFuture<?> wallTask;
+        private final ScheduledFuture<?> cpuTask;
+
+        Watch(Process process, CgroupManager.Group group, ExecutionBudget budget, ProgramOutput output) {
+            this.process = process;
+            this.group = group;
+            this.budget = budget;
+            this.groupCpu = group != null && group.cpuMicros() >= 0;
+            this.cpuStartNanos = cpuNanos();
+            if (output != null && budget.getMaxOutputBytes() > 0) {
+                output.limitBytes(budget.getMaxOutputBytes(), () -> trip(ExecutionBudget.OUTPUT));
+            }
+            this.wallTask = budget.getWallMillis() > 0
+                ? scheduler.schedule(() -> trip(ExecutionBudget.WALL_TIME), budget.getWallMillis(), TimeUnit.MILLISECONDS)
+                : null;
+            this.cpuTask = budget.getCpuMillis() > 0
+                ? scheduler.scheduleWithFixedDelay(this::checkCpu, checkIntervalMillis, checkIntervalMillis,
+                    TimeUnit.MILLISECONDS)
+                : null;
+            process.onExit().thenRun(this::cancel);
+        }
+
+        /**
+         * 감시를 시작한 뒤 프로세스 트리가 쓴 CPU 시간. 그룹이 없으면 아직 살아 있는 자손만 더한다.
+         */
+        private long cpuNanos() {
+            if (groupCpu) {
+                return TimeUnit.MICROSECONDS.toNanos(group.cpuMicros());
+            }
+            ProcessHandle handle = process.toHandle();
+            long total = ProcessWatchdog.cpuNanos(handle);
+            for (ProcessHandle descendant : handle.descendants().toList()) {
+                seenDescendants.add(descendant);
+                total += ProcessWatchdog.cpuNanos(descendant);
+            }
+            return total;
+        }
+
+        private void checkCpu() {
+            long used;
+            synchronized (this) {
+                if (pausedAtNanos >= 0) {
+                    return;
+                }
+                used = cpuNanos() - cpuStartNanos - pausedNanos;
+            }
+            if (used > TimeUnit.MILLISECONDS.toNanos(budget.getCpuMillis())) {
+                trip(ExecutionBudget.CPU_TIME);
+            }
+        }
+
+        /**
+         * 디버거가 대상을 멈춰 둔 동안 쓴 CPU 시간(JVM의 GC, JIT 스레드 등)은 한도에 넣지 않는다.
+         * {@link #resume()}과 짝지어 부른다.
+         */
+        public synchronized void pause() {
+            if (pausedAtNanos < 0) {
+                pausedAtNanos = cpuNanos();
+            }
+        }
+
+        public synchronized void resume() {
+            if (pausedAtNanos >= 0) {
+                pausedNanos += Math.max(0, cpuNanos() - pausedAtNanos);
+                pausedAtNanos = -1;
+            }
+        }
+
+        private void trip(String limit) {
+            if (!exceeded.compareAndSet(null, limit)) {
+                return;
+            }
+            cancel();
+            Counter.builder("webidle.execution.limit.exceeded").description("한도를 넘어 강제로 종료한 실행")
+                .tag("limit", limit).register(meterRegistry).increment();
+            if (group != null) {
+                group.kill();
+            }
+            destroyTree();
+        }
+
+        /**
+         * 프로세스와 지금의 자손, 그리고 감시 중에 본 적이 있는 자손을 모두 죽인다. 프로세스가 이미 끝났어도
+         * 남은 자손을 정리하도록 실행이 끝날 때마다 부른다. 그룹이 있으면 그룹으로 죽이는 편이 확실하다.
+         */
+        public void destroyTree() {
+            ProcessWatchdog.destroyTree(process.toHandle());
+            seenDescendants.forEach(ProcessHandle::destroyForcibly);
+        }
+
+        public void cancel() {
+            if (wallTask != null) {
+                wallTask.cancel(false);
+            }
+            if (cpuTask != null) {
+                cpuTask.cancel(false);
+            }
+        }
+
+        /**
+         * 넘은 한도의 이름({@link ExecutionBudget#WALL_TIME} 등). 넘지 않았으면 null이다.
+         */
+        public String getExceededLimit() {
+            return exceeded.get();
+        }
+    }
+}
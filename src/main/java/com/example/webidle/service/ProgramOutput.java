@@ -0,0 +1,167 @@
+package com.example.webidle.service;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 한 번의 실행에서 나온 출력. 바이트를 UTF-8로 디코딩해 WebSocket 프레임으로 묶어 보내고,
+ * 최종 응답용으로는 앞부분 최대 maxRetainedChars 글자만 보관해 메모리 사용량을 제한한다.
+ * 아웃바운드 채널이 밀려 있으면 주기적 전송을 건너뛰고 프레임 크기가 찰 때까지 출력을 모아 메시지 수를 줄인다.
+ * 출력 한도({@link #limitBytes})를 걸면 넘은 부분은 버리고 한도를 넘었다고 바로 알린다.
+ */
+public class ProgramOutput {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final String destination;
+    private final int maxFrameChars;
+    private final int maxRetainedChars;
+    private final BooleanSupplier congested;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder pending = new StringBuilder();
+    private final StringBuilder retained = new StringBuilder();
+    private ByteBuffer leftover = ByteBuffer.allocate(0);
+    private long totalBytes;
+    private boolean truncated;
+    private long maxBytes;
+    private Runnable onLimitExceeded;
+    private boolean limitExceeded;
+    private ScheduledFuture<?> flushTask;
+
+    ProgramOutput(SimpMessagingTemplate messagingTemplate, String destination, int maxFrameChars, int maxRetainedChars,
+                  BooleanSupplier congested) {
+        this.messagingTemplate = messagingTemplate;
+        this.destination = destination;
+        this.maxFrameChars = maxFrameChars;
+        this.maxRetainedChars = maxRetainedChars;
+        this.congested = congested;
+    }
+
+    void setFlushTask(ScheduledFuture<?> flushTask) {
+        this.flushTask = flushTask;
+    }
+
+    /**
+     * 출력이 maxBytes를 넘으면 넘은 부분을 버리고 onExceeded를 한 번 부른다. 출력을 쓰는 스레드에서 바로 불리므로
+     * 주기적인 확인을 기다리지 않고 실행을 멈출 수 있다.
+     */
+    synchronized void limitBytes(long maxBytes, Runnable onExceeded) {
+        this.maxBytes = maxBytes;
+        this.onLimitExceeded = onExceeded;
+    }
+
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        if (limitExceeded) {
+            return;
+        }
+        if (maxBytes > 0 && totalBytes + length > maxBytes) {
+            limitExceeded = true;
+            length = (int) (maxBytes - totalBytes);
+            decode(bytes, offset, length);
+            onLimitExceeded.run();
+            return;
+        }
+        decode(bytes, offset, length);
+    }
+
+    private void decode(byte[] bytes, int offset, int length) {
+        totalBytes += length;
+
+        // 이전 청크에서 잘린 멀티바이트 문자를 이어 붙여 디코딩한다
+        ByteBuffer input = ByteBuffer.allocate(leftover.remaining() + length);
+        input.put(leftover).put(bytes, offset, length).flip();
+        CharBuffer chars = CharBuffer.allocate(input.remaining());
+        decoder.decode(input, chars, false);
+        chars.flip();
+        leftover = input.slice();
+
+        append(chars);
+    }
+
+    private void append(CharSequence chars) {
+        if (!truncated) {
+            int room = maxRetainedChars - retained.length();
+            if (chars.length() <= room) {
+                retained.append(chars);
+            } else {
+                retained.append(chars, 0, room);
+                truncated = true;
+            }
+        }
+
+        if (destination != null) {
+            pending.append(chars);
+            if (pending.length() >= maxFrameChars) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * 주기적 전송. 아웃바운드 채널이 밀려 있으면 보내지 않고 다음 주기나 프레임 크기 도달까지 모은다.
+     * 이번에 보내지 않았으면 false를 돌려준다.
+     */
+    synchronized boolean periodicFlush() {
+        if (pending.length() == 0) {
+            return true;
+        }
+        if (congested.getAsBoolean()) {
+            return false;
+        }
+        flush();
+        return true;
+    }
+
+    public synchronized void flush() {
+        if (destination == null || pending.length() == 0) {
+            return;
+        }
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", "output");
+        frame.put("data", pending.toString());
+        pending.setLength(0);
+        messagingTemplate.convertAndSend(destination, frame);
+    }
+
+    /**
+     * 남은 출력을 보내고 종료 메시지를 보낸다. completion에는 종료 코드, 시간 정보 등을 담는다.
+     */
+    public synchronized void complete(Map<String, Object> completion) {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        if (leftover.hasRemaining()) {
+            append(StandardCharsets.UTF_8.decode(leftover));
+            leftover = ByteBuffer.allocate(0);
+        }
+        flush();
+        if (destination != null) {
+            Map<String, Object> frame = new HashMap<>(completion);
+            frame.put("type", "exit");
+            frame.put("totalBytes", totalBytes);
+            frame.put("truncated", truncated);
+            messagingTemplate.convertAndSend(destination, frame);
+        }
+    }
+
+    public synchronized String getRetainedOutput() {
+        return truncated ? retained + "\n...(출력이 너무 길어 잘렸습니다)" : retained.toString();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,530 @@
+package com.example.webidle.service;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+import com.sun.source.util.JavacTask;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 작업 공간의 디렉토리 하나를 프로젝트로 보고 그 아래 모든 .java 파일을 증분 컴파일한다.
+ * <p>
+ * 프로젝트마다 소스 내용 해시, 소스가 정의한 최상위 타입, 소스가 참조한 타입, 타입별 API 해시를 기억하고
+ * 클래스 파일은 프로젝트별 출력 디렉토리에 유지한다. 빌드할 때는 내용이 바뀐 소스만 컴파일하고,
+ * 컴파일 결과 API(비공개가 아닌 멤버의 시그니처와 상수 값)가 달라진 타입을 참조하는 소스만 이어서 다시 컴파일한다.
+ * 상속한 멤버도 하위 타입의 API이므로 API가 달라진 타입의 하위 타입(간접 하위 타입 포함)도 달라진 것으로 본다.
+ * 의존성 JAR 목록이 바뀌거나 출력 디렉토리가 사라지면 전체를 다시 컴파일한다.
+ * <p>
+ * 상태는 최근에 빌드한 max-cached개 프로젝트만 유지한다. 그보다 오래된 프로젝트와 디렉토리가 지워진 프로젝트는
+ * 다음 빌드 때 상태와 출력 디렉토리를 함께 지운다. 이전 실행이 남긴 출력 디렉토리는 시작할 때 지운다.
+ */
+@Component
+public class ProjectCompiler {
+    private final JavaSourceCompiler javaSourceCompiler;
+    private final Path workspaceRoot;
+    private final Path outputRoot;
+    private final int maxCachedProjects;
+    // 접근 순서로 정렬해 가장 오래 빌드하지 않은 프로젝트가 앞에 온다
+    private final Map<Path, ProjectState> projects = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ProjectCompiler(JavaSourceCompiler javaSourceCompiler,
+                           @Value("${webidle.workspace.root:workspace}") String workspaceRoot,
+                           @Value("${webidle.project.output-dir:${java.io.tmpdir}/webidle-projects}") String outputRoot,
+                           @Value("${webidle.project.max-cached:32}") int maxCachedProjects) {
+        this.javaSourceCompiler = javaSourceCompiler;
+        this.workspaceRoot = Paths.get(workspaceRoot).toAbsolutePath().normalize();
+        this.outputRoot = Paths.get(outputRoot).toAbsolutePath().normalize();
+        this.maxCachedProjects = maxCachedProjects;
+        removeStaleOutputs();
+    }
+
+    /**
+     * 출력 디렉토리의 증분 상태는 메모리에만 있으므로 이전 실행이 남긴 디렉토리는 다시 쓰지 못한다.
+     */
+    private void removeStaleOutputs() {
+        if (!Files.isDirectory(outputRoot)) {
+            return;
+        }
+        try (Stream<Path> stale = Files.list(outputRoot)) {
+            stale.forEach(CodeExecutionService::deleteRecursively);
+        } catch (IOException e) {
+            System.err.println("이전 프로젝트 출력 정리 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 작업 공간 기준 경로(예: "/myproject")를 실제 디렉토리로 바꾼다. 작업 공간 밖을 가리키면 거부한다.
+     */
+    public Path resolveProject(String project) {
+        String relative = project == null ? "" : project.replaceFirst("^/+", "");
+        Path projectDir = workspaceRoot.resolve(relative).normalize();
+        if (!projectDir.startsWith(workspaceRoot)) {
+            throw new IllegalArgumentException("작업 공간 밖의 경로입니다: " + project);
+        }
+        if (!Files.isDirectory(projectDir)) {
+            throw new IllegalArgumentException("프로젝트 디렉토리가 없습니다: " + project);
+        }
+        return projectDir;
+    }
+
+    /**
+     * 프로젝트의 모든 소스를 읽어 @maven 주석의 좌표를 모은다.
+     */
+    public List<String> collectMavenDependencies(Path projectDir) throws IOException {
+        Set<String> coordinates = new LinkedHashSet<>();
+        for (Path source : listSources(projectDir)) {
+            coordinates.addAll(CodeExecutionService.extractMavenDependencies(Files.readString(source)));
+        }
+        return new ArrayList<>(coordinates);
+    }
+
+    public BuildResult build(Path projectDir, List<File> dependencyJars) throws IOException {
+        ProjectState state;
+        List<Path> evicted = new ArrayList<>();
+        synchronized (projects) {
+            state = projects.computeIfAbsent(projectDir, dir -> new ProjectState(outputDirectoryFor(dir)));
+            Iterator<Path> eldest = projects.keySet().iterator();
+            for (int excess = projects.size() - Math.max(1, maxCachedProjects); eldest.hasNext(); ) {
+                Path cached = eldest.next();
+                if (!cached.equals(projectDir) && (excess > 0 || !Files.isDirectory(cached))) {
+                    evicted.add(cached);
+                    excess--;
+                }
+            }
+        }
+        evicted.forEach(this::forget);
+        synchronized (state) {
+            return state.build(projectDir, dependencyJars);
+        }
+    }
+
+    /**
+     * 프로젝트의 증분 상태와 출력 디렉토리를 지운다. 빌드 중이면 빌드가 끝난 뒤 지운다.
+     */
+    public void forget(Path projectDir) {
+        ProjectState state;
+        synchronized (projects) {
+            state = projects.remove(projectDir);
+        }
+        if (state != null) {
+            synchronized (state) {
+                CodeExecutionService.deleteRecursively(state.outputDir);
+            }
+        }
+    }
+
+    private Path outputDirectoryFor(Path projectDir) {
+        return outputRoot.resolve(sha256(projectDir.toString()).substring(0, 16));
+    }
+
+    private static List<Path> listSources(Path projectDir) throws IOException {
+        try (Stream<Path> paths = Files.walk(projectDir)) {
+            return paths.filter(path -> path.toString().endsWith(".java") && Files.isRegularFile(path))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class BuildResult {
+        private final CompilationResult compilation;
+        private final List<String> recompiled;
+        private final int sourceCount;
+        private final long compileMillis;
+
+        BuildResult(CompilationResult compilation, List<String> recompiled, int sourceCount, long compileMillis) {
+            this.compilation = compilation;
+            this.recompiled = recompiled;
+            this.sourceCount = sourceCount;
+            this.compileMillis = compileMillis;
+        }
+
+        /** 성공하면 프로젝트의 모든 클래스를, 실패하면 진단만 담는다. */
+        public CompilationResult getCompilation() {
+            return compilation;
+        }
+
+        /** 이번 빌드에서 실제로 컴파일한 소스 (프로젝트 기준 경로). */
+        public List<String> getRecompiled() {
+            return recompiled;
+        }
+
+        public int getSourceCount() {
+            return sourceCount;
+        }
+
+        public long getCompileMillis() {
+            return compileMillis;
+        }
+    }
+
+    private class ProjectState {
+        final Path outputDir;
+        final Map<Path, String> sourceHashes = new HashMap<>();
+        final Map<Path, Set<String>> definedTypes = new HashMap<>();
+        final Map<Path, Set<String>> references = new HashMap<>();
+        final Map<String, String> apiHashes = new HashMap<>();
+        final Map<String, Set<String>> supertypes = new HashMap<>();
+        String classPathKey;
+
+        ProjectState(Path outputDir) {
+            this.outputDir = outputDir;
+        }
+
+        BuildResult build(Path projectDir, List<File> dependencyJars) throws IOException {
+            long startTime = System.currentTimeMillis();
+            String currentClassPathKey = JavaSourceCompiler.joinClassPath(dependencyJars);
+            if (!currentClassPathKey.equals(classPathKey) || !Files.isDirectory(outputDir)) {
+                reset();
+                classPathKey = currentClassPathKey;
+            }
+
+            Map<Path, String> currentHashes = new LinkedHashMap<>();
+            for (Path source : listSources(projectDir)) {
+                currentHashes.put(source, sha256(Files.readAllBytes(source)));
+            }
+
+            Set<Path> dirty = new LinkedHashSet<>();
+            for (Map.Entry<Path, String> entry : currentHashes.entrySet()) {
+                if (!entry.getValue().equals(sourceHashes.get(entry.getKey()))) {
+                    dirty.add(entry.getKey());
+                }
+            }
+
+            // 삭제된 소스의 클래스를 지우고, 그 타입을 참조하던 소스를 다시 컴파일한다
+            Set<String> removedTypes = new HashSet<>();
+            for (Path removed : new ArrayList<>(definedTypes.keySet())) {
+                if (!currentHashes.containsKey(removed)) {
+                    Set<String> types = forgetSource(removed);
+                    removedTypes.addAll(types);
+                    types.forEach(apiHashes::remove);
+                    types.forEach(supertypes::remove);
+                }
+            }
+            dirty.addAll(dependentsOf(removedTypes, Collections.emptySet()));
+
+            List<File> classPath = new ArrayList<>();
+            classPath.add(outputDir.toFile());
+            classPath.addAll(dependencyJars);
+
+            Set<Path> compiled = new LinkedHashSet<>();
+            while (!dirty.isEmpty()) {
+                for (Path source : dirty) {
+                    deleteClassFiles(definedTypes.getOrDefault(source, Collections.emptySet()));
+                }
+
+                DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+                DependencyRecorder recorder = new DependencyRecorder();
+                List<File> sources = dirty.stream().map(Path::toFile).collect(Collectors.toList());
+                boolean success;
+                try {
+                    success = javaSourceCompiler.compileFiles(sources,
+                        Arrays.asList("-g", "-proc:none", "-implicit:none"), classPath, outputDir.toFile(),
+                        diagnostics, recorder::attach);
+                } catch (RuntimeException e) {
+                    // 시간 제한 등으로 중간에 멈춘 소스는 다음 빌드에서 다시 컴파일되도록 해시를 지운다
+                    dirty.forEach(sourceHashes::remove);
+                    throw e;
+                }
+                compiled.addAll(dirty);
+
+                if (!success) {
+                    // 실패한 소스는 다음 빌드에서 다시 컴파일되도록 해시를 지운다
+                    dirty.forEach(sourceHashes::remove);
+                    return new BuildResult(
+                        new CompilationResult(false, Collections.emptyMap(), diagnostics.getDiagnostics()),
+                        relativize(projectDir, compiled), currentHashes.size(),
+                        System.currentTimeMillis() - startTime);
+                }
+
+                Set<String> changedApis = new HashSet<>();
+                for (Path source : dirty) {
+                    Set<String> previousTypes = definedTypes.getOrDefault(source, Collections.emptySet());
+                    Set<String> newTypes = recorder.definedTypes.getOrDefault(source, Collections.emptySet());
+                    for (String type : previousTypes) {
+                        if (!newTypes.contains(type)) {
+                            changedApis.add(type);
+                            apiHashes.remove(type);
+                            supertypes.remove(type);
+                        }
+                    }
+                    sourceHashes.put(source, currentHashes.get(source));
+                    definedTypes.put(source, newTypes);
+                    references.put(source, recorder.references.getOrDefault(source, Collections.emptySet()));
+                }
+                supertypes.putAll(recorder.supertypes);
+                for (Map.Entry<String, String> api : recorder.apiHashes.entrySet()) {
+                    if (!api.getValue().equals(apiHashes.put(api.getKey(), api.getValue()))) {
+                        changedApis.add(api.getKey());
+                    }
+                }
+
+                dirty = dependentsOf(changedApis, compiled);
+            }
+
+            return new BuildResult(new CompilationResult(true, readClasses(), Collections.emptyList()),
+                relativize(projectDir, compiled), currentHashes.size(), System.currentTimeMillis() - startTime);
+        }
+
+        private Set<Path> dependentsOf(Set<String> changedTypes, Set<Path> exclude) {
+            Set<Path> dependents = new LinkedHashSet<>();
+            if (changedTypes.isEmpty()) {
+                return dependents;
+            }
+            Set<String> types = withSubtypes(changedTypes);
+            for (Map.Entry<Path, Set<String>> entry : references.entrySet()) {
+                if (!exclude.contains(entry.getKey()) && sourceHashes.containsKey(entry.getKey())
+                        && !Collections.disjoint(entry.getValue(), types)) {
+                    dependents.add(entry.getKey());
+                }
+            }
+            return dependents;
+        }
+
+        /**
+         * types와 기록된 상위 타입을 따라 찾은 모든 하위 타입. 하위 타입을 참조하는 소스는 상위 타입을 이름으로
+         * 참조하지 않아도 상속한 멤버를 쓰고, 하위 타입을 정의한 소스는 새로 생긴 추상 메서드 등을 다시 검사해야 한다.
+         */
+        private Set<String> withSubtypes(Set<String> types) {
+            Set<String> expanded = new HashSet<>(types);
+            Deque<String> pending = new ArrayDeque<>(types);
+            while (!pending.isEmpty()) {
+                String type = pending.poll();
+                for (Map.Entry<String, Set<String>> entry : supertypes.entrySet()) {
+                    if (entry.getValue().contains(type) && expanded.add(entry.getKey())) {
+                        pending.add(entry.getKey());
+                    }
+                }
+            }
+            return expanded;
+        }
+
+        private Set<String> forgetSource(Path source) throws IOException {
+            Set<String> types = definedTypes.getOrDefault(source, Collections.emptySet());
+            deleteClassFiles(types);
+            sourceHashes.remove(source);
+            definedTypes.remove(source);
+            references.remove(source);
+            return types;
+        }
+
+        /**
+         * 최상위 타입과 그 중첩/익명 클래스 파일(Outer$*.class)을 지운다.
+         */
+        private void deleteClassFiles(Set<String> types) throws IOException {
+            for (String type : types) {
+                int lastDot = type.lastIndexOf('.');
+                Path packageDir = lastDot < 0 ? outputDir : outputDir.resolve(type.substring(0, lastDot).replace('.', '/'));
+                String simpleName = type.substring(lastDot + 1);
+                if (!Files.isDirectory(packageDir)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.list(packageDir)) {
+                    for (Path file : files.collect(Collectors.toList())) {
+                        String name = file.getFileName().toString();
+                        if (name.equals(simpleName + ".class") || (name.startsWith(simpleName + "$") && name.endsWith(".class"))) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                }
+            }
+        }
+
+        private Map<String, byte[]> readClasses() throws IOException {
+            Map<String, byte[]> classes = new HashMap<>();
+            try (Stream<Path> files = Files.walk(outputDir)) {
+                for (Path file : files.filter(path -> path.toString().endsWith(".class")).collect(Collectors.toList())) {
+                    String relative = outputDir.relativize(file).toString();
+                    String className = relative.substring(0, relative.length() - ".class".length())
+                        .replace(File.separatorChar, '.');
+                    classes.put(className, Files.readAllBytes(file));
+                }
+            }
+            return classes;
+        }
+
+        private void reset() throws IOException {
+            sourceHashes.clear();
+            definedTypes.clear();
+            references.clear();
+            apiHashes.clear();
+            supertypes.clear();
+            if (Files.exists(outputDir)) {
+                CodeExecutionService.deleteRecursively(outputDir);
+            }
+            Files.createDirectories(outputDir);
+        }
+
+        private List<String> relativize(Path projectDir, Collection<Path> sources) {
+            List<String> paths = new ArrayList<>();
+            for (Path source : sources) {
+                paths.add(projectDir.relativize(source).toString());
+            }
+            return paths;
+        }
+    }
+
+    /**
+     * javac가 타입 검사를 마친 컴파일 단위마다 정의한 타입, 참조한 타입, 타입의 API 해시와 직접 상위 타입을 기록한다.
+     */
+    private static class DependencyRecorder implements TaskListener {
+        final Map<Path, Set<String>> definedTypes = new HashMap<>();
+        final Map<Path, Set<String>> references = new HashMap<>();
+        final Map<String, String> apiHashes = new HashMap<>();
+        final Map<String, Set<String>> supertypes = new HashMap<>();
+        private final Set<CompilationUnitTree> scannedUnits = Collections.newSetFromMap(new IdentityHashMap<>());
+        private Trees trees;
+
+        void attach(JavacTask task) {
+            trees = Trees.instance(task);
+            task.addTaskListener(this);
+        }
+
+        @Override
+        public void finished(TaskEvent event) {
+            if (event.getKind() != TaskEvent.Kind.ANALYZE || event.getTypeElement() == null) {
+                return;
+            }
+            Path source = Paths.get(event.getSourceFile().toUri());
+            TypeElement type = event.getTypeElement();
+            definedTypes.computeIfAbsent(source, key -> new HashSet<>()).add(type.getQualifiedName().toString());
+            apiHashes.put(type.getQualifiedName().toString(), sha256(apiSignature(type)));
+            Set<String> direct = new HashSet<>();
+            collectSupertypes(type, direct);
+            direct.remove(type.getQualifiedName().toString());
+            supertypes.put(type.getQualifiedName().toString(), direct);
+
+            CompilationUnitTree unit = event.getCompilationUnit();
+            if (scannedUnits.add(unit)) {
+                Set<String> referenced = references.computeIfAbsent(source, key -> new HashSet<>());
+                new TreePathScanner<Void, Void>() {
+                    @Override
+                    public Void visitIdentifier(IdentifierTree node, Void unused) {
+                        record(trees.getElement(getCurrentPath()));
+                        return super.visitIdentifier(node, unused);
+                    }
+
+                    @Override
+                    public Void visitMemberSelect(MemberSelectTree node, Void unused) {
+                        record(trees.getElement(getCurrentPath()));
+                        return super.visitMemberSelect(node, unused);
+                    }
+
+                    private void record(Element element) {
+                        String topLevel = topLevelTypeName(element);
+                        if (topLevel != null) {
+                            referenced.add(topLevel);
+                        }
+                    }
+                }.scan(unit, null);
+            }
+        }
+
+        private static String topLevelTypeName(Element element) {
+            Element current = element;
+            TypeElement outermost = null;
+            while (current != null && current.getKind() != ElementKind.PACKAGE
+                    && current.getKind() != ElementKind.MODULE) {
+                if (current instanceof TypeElement) {
+                    outermost = (TypeElement) current;
+                }
+                current = current.getEnclosingElement();
+            }
+            return outermost == null ? null : outermost.getQualifiedName().toString();
+        }
+
+        /**
+         * type과 그 중첩 타입이 직접 상속하거나 구현하는 타입의 최상위 타입 이름을 모은다.
+         */
+        private static void collectSupertypes(TypeElement type, Set<String> supertypes) {
+            List<TypeMirror> direct = new ArrayList<>(type.getInterfaces());
+            direct.add(type.getSuperclass());
+            for (TypeMirror supertype : direct) {
+                if (supertype instanceof DeclaredType) {
+                    String topLevel = topLevelTypeName(((DeclaredType) supertype).asElement());
+                    if (topLevel != null) {
+                        supertypes.add(topLevel);
+                    }
+                }
+            }
+            for (Element member : type.getEnclosedElements()) {
+                if (member instanceof TypeElement) {
+                    collectSupertypes((TypeElement) member, supertypes);
+                }
+            }
+        }
+
+        /**
+         * 다른 소스가 볼 수 있는 부분(비공개가 아닌 멤버의 시그니처, 상위 타입, 상수 값)만 문자열로 만든다.
+         * 메서드 본문만 바뀐 경우에는 같은 값이 나오므로 참조하는 소스를 다시 컴파일하지 않는다.
+         */
+        private static String apiSignature(TypeElement type) {
+            StringBuilder signature = new StringBuilder();
+            signature.append(type.getKind()).append(' ').append(type.getModifiers()).append(' ')
+                .append(type.getQualifiedName()).append(type.getTypeParameters())
+                .append(" extends ").append(type.getSuperclass())
+                .append(" implements ").append(type.getInterfaces()).append('\n');
+            for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+                signature.append(annotation).append('\n');
+            }
+            for (Element member : type.getEnclosedElements()) {
+                if (member.getModifiers().contains(Modifier.PRIVATE)) {
+                    continue;
+                }
+                if (member instanceof TypeElement) {
+                    signature.append(apiSignature((TypeElement) member));
+                    continue;
+                }
+                TypeMirror memberType = member.asType();
+                signature.append(member.getKind()).append(' ').append(member.getModifiers()).append(' ')
+                    .append(member).append(" : ").append(memberType);
+                if (member instanceof VariableElement) {
+                    signature.append(" = ").append(((VariableElement) member).getConstantValue());
+                }
+                if (member instanceof ExecutableElement) {
+                    signature.append(" throws ").append(((ExecutableElement) member).getThrownTypes());
+                }
+                signature.append('\n');
+            }
+            return signature.toString();
+        }
+    }
+}
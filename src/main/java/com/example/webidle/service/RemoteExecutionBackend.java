@@ -0,0 +1,447 @@
+package com.example.webidle.service;
+
+import com.example.webidle.runner.WorkerMain;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 워커 프로세스({@link WorkerMain})로 프로그램을 보내 실행한다.
+ * <p>
+ * 워커 목록은 webidle.execution.remote.workers(host:port, 쉼표 구분)로 주고, local-workers가 0보다 크면
+ * 이 호스트에 그만큼 워커를 직접 띄워 목록에 더한다. 주기적으로 ping을 보내 응답하지 않는 워커는 빼고,
+ * 실행할 때마다 (진행 중인 실행 수 / 동시 실행 수)가 가장 낮은 워커를 고른다.
+ * 워커와의 연결이 끊기면 그 워커를 빼고 다른 워커에서 다시 실행한다. 단 이미 출력을 보낸 실행은
+ * 같은 출력이 두 번 나가지 않도록 다시 실행하지 않고 오류로 끝낸다. 실행 한도는 워커가 지킨다.
+ * 워커와의 연결은 webidle.execution.remote.secret으로 인증한다. 비워 두면 직접 띄우는 로컬 워커에만 쓸 임의의 키를 만든다.
+ */
+@Component
+@ConditionalOnProperty(name = "webidle.execution.backend", havingValue = "remote")
+public class RemoteExecutionBackend implements ExecutionBackend {
+    private static final byte[] NO_INPUT = new byte[0];
+    // 경로, 크기, 수정 시각이 바뀔 때마다 새 항목이 생기므로 오래 쓰지 않은 항목부터 버린다
+    private static final int MAX_JAR_DIGESTS = 4096;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<Process> localWorkers = new ArrayList<>();
+    private final int connectTimeoutMillis;
+    private final long responseGraceMillis;
+    private final int maxAttempts;
+    private final MeterRegistry meterRegistry;
+    private final Counter retries;
+    private final ScheduledExecutorService healthExecutor;
+    private final byte[] secret;
+    private final Map<String, JarDigest> jarDigests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JarDigest> eldest) {
+            return size() > MAX_JAR_DIGESTS;
+        }
+    };
+    private int nextStart;
+
+    public RemoteExecutionBackend(@Value("${webidle.execution.remote.workers:}") List<String> workerAddresses,
+                                  @Value("${webidle.execution.remote.local-workers:0}") int localWorkerCount,
+                                  @Value("${webidle.execution.remote.local-worker-base-port:9101}") int localWorkerBasePort,
+                                  @Value("${webidle.execution.remote.local-worker-capacity:2}") int localWorkerCapacity,
+                                  @Value("${webidle.execution.remote.connect-timeout-ms:1000}") int connectTimeoutMillis,
+                                  @Value("${webidle.execution.remote.response-grace-ms:5000}") long responseGraceMillis,
+                                  @Value("${webidle.execution.remote.max-attempts:3}") int maxAttempts,
+                                  @Value("${webidle.execution.remote.health-check-interval-ms:2000}") long healthCheckIntervalMillis,
+                                  @Value("${webidle.execution.remote.secret:}") String secret,
+                                  MeterRegistry meterRegistry, RunnerLaunchProfile launchProfile) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.responseGraceMillis = responseGraceMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.meterRegistry = meterRegistry;
+        this.retries = Counter.builder("webidle.execution.remote.retries")
+            .description("워커를 잃어 다른 워커에서 다시 실행한 횟수").register(meterRegistry);
+
+        for (String address : workerAddresses) {
+            if (!address.isBlank()) {
+                workers.add(parseWorker(address.trim()));
+            }
+        }
+        if (secret.isBlank()) {
+            if (!workers.isEmpty()) {
+                System.err.println("webidle.execution.remote.secret이 비어 있어 원격 워커에 인증할 수 없습니다");
+            }
+            byte[] generated = new byte[32];
+            new SecureRandom().nextBytes(generated);
+            secret = HexFormat.of().formatHex(generated);
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < localWorkerCount; i++) {
+            int port = localWorkerBasePort + i;
+            try {
+                ProcessBuilder processBuilder = new ProcessBuilder(launchProfile.workerCommand(port, localWorkerCapacity));
+                processBuilder.environment().put(WorkerMain.SECRET_ENV, secret);
+                processBuilder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+                processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+                localWorkers.add(processBuilder.start());
+                workers.add(new Worker("127.0.0.1", port));
+            } catch (IOException e) {
+                System.err.println("로컬 워커 시작 실패 (포트 " + port + "): " + e.getMessage());
+            }
+        }
+        if (workers.isEmpty()) {
+            System.err.println("원격 실행 워커가 설정되지 않았습니다: webidle.execution.remote.workers");
+        }
+        Gauge.builder("webidle.execution.remote.workers.healthy", workers,
+                list -> list.stream().filter(worker -> worker.healthy).count())
+            .description("응답하는 워커 수").register(meterRegistry);
+
+        this.healthExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "remote-worker-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthExecutor.scheduleWithFixedDelay(this::checkHealth, 0, healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static Worker parseWorker(String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("워커 주소는 host:port 형식이어야 합니다: " + address);
+        }
+        return new Worker(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)));
+    }
+
+    private void checkHealth() {
+        for (Worker worker : workers) {
+            boolean wasHealthy = worker.healthy;
+            ping(worker);
+            if (wasHealthy != worker.healthy) {
+                System.out.println("워커 " + worker.address() + (worker.healthy ? " 사용 가능" : " 응답 없음"));
+            }
+        }
+    }
+
+    private void ping(Worker worker) {
+        try (Socket socket = connect(worker)) {
+            socket.setSoTimeout(connectTimeoutMillis);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            authenticate(in, out);
+            out.writeInt(WorkerMain.REQUEST_PING);
+            out.flush();
+            if (in.readByte() != WorkerMain.FRAME_PONG) {
+                throw new IOException("잘못된 ping 응답");
+            }
+            worker.reportedActive = in.readInt();
+            worker.capacity = Math.max(1, in.readInt());
+            worker.healthy = true;
+            worker.lastError = null;
+        } catch (IOException e) {
+            worker.healthy = false;
+            worker.lastError = e.getMessage();
+        }
+    }
+
+    @Override
+    public RunnerPool.RunResult run(String owner, Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                                    ExecutionBudget budget, ProgramOutput output)
+            throws IOException, InterruptedException {
+        return dispatch(owner, classes, classPath, mainClass, NO_INPUT, false, budget, output);
+    }
+
+    @Override
+    public RunnerPool.RunResult runCase(String owner, Map<String, byte[]> classes, List<File> classPath,
+                                        String mainClass, byte[] stdin, ExecutionBudget budget, ProgramOutput output)
+            throws IOException, InterruptedException {
+        return dispatch(owner, classes, classPath, mainClass, stdin, true, budget, output);
+    }
+
+    private RunnerPool.RunResult dispatch(String owner, Map<String, byte[]> classes, List<File> classPath,
+                                          String mainClass, byte[] stdin, boolean measure, ExecutionBudget budget,
+                                          ProgramOutput output)
+            throws IOException, InterruptedException {
+        long dispatchStart = System.nanoTime();
+        List<JarDigest> jars = digests(classPath);
+        Set<Worker> failed = new HashSet<>();
+        IOException lastFailure = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Worker worker = leastLoaded(failed);
+            if (worker == null) {
+                break;
+            }
+            if (attempt > 0) {
+                retries.increment();
+            }
+            long outputBefore = output.getTotalBytes();
+            try {
+                RunnerPool.RunResult result = runOn(worker, owner, jars, classes, mainClass, stdin, measure,
+                    budget, output, dispatchStart);
+                worker.dispatched.incrementAndGet();
+                meterRegistry.counter("webidle.execution.remote.dispatches", "worker", worker.address()).increment();
+                return result;
+            } catch (IOException e) {
+                worker.healthy = false;
+                worker.failures.incrementAndGet();
+                worker.lastError = e.getMessage();
+                failed.add(worker);
+                lastFailure = e;
+                System.err.println("워커 " + worker.address() + " 실행 실패: " + e.getMessage());
+                if (output.getTotalBytes() != outputBefore) {
+                    throw new IOException("실행 중 워커와의 연결이 끊겼습니다: " + worker.address(), e);
+                }
+            } finally {
+                worker.inFlight.decrementAndGet();
+            }
+        }
+        throw new IOException("사용 가능한 워커가 없습니다", lastFailure);
+    }
+
+    /**
+     * 응답하는 워커 중 부하가 가장 낮은 워커. 다른 노드가 보낸 실행도 반영하도록 ping으로 받은 실행 수와
+     * 이 노드가 보낸 실행 수 중 큰 쪽을 쓴다. 고른 워커의 진행 중인 실행 수를 하나 늘려 두고,
+     * 응답하는 워커가 없으면 한 번 더 확인한다.
+     */
+    private Worker leastLoaded(Set<Worker> excluded) {
+        Worker best = selectLeastLoaded(excluded);
+        if (best == null) {
+            for (Worker worker : workers) {
+                if (!excluded.contains(worker)) {
+                    ping(worker);
+                }
+            }
+            best = selectLeastLoaded(excluded);
+        }
+        return best;
+    }
+
+    private synchronized Worker selectLeastLoaded(Set<Worker> excluded) {
+        Worker best = null;
+        double bestLoad = Double.MAX_VALUE;
+        // 부하가 같으면 돌아가며 고르도록 매번 다른 워커부터 본다
+        int start = Math.floorMod(nextStart++, Math.max(1, workers.size()));
+        for (int i = 0; i < workers.size(); i++) {
+            Worker worker = workers.get((start + i) % workers.size());
+            if (!worker.healthy || excluded.contains(worker)) {
+                continue;
+            }
+            double load = (double) Math.max(worker.inFlight.get(), worker.reportedActive) / worker.capacity;
+            if (load < bestLoad) {
+                best = worker;
+                bestLoad = load;
+            }
+        }
+        if (best != null) {
+            // 같은 순간에 고른 요청이 한 워커로 몰리지 않도록 고르면서 바로 센다
+            best.inFlight.incrementAndGet();
+        }
+        return best;
+    }
+
+    private RunnerPool.RunResult runOn(Worker worker, String owner, List<JarDigest> jars,
+                                       Map<String, byte[]> classes, String mainClass, byte[] stdin, boolean measure,
+                                       ExecutionBudget budget, ProgramOutput output, long dispatchStart)
+            throws IOException {
+        try (Socket socket = connect(worker)) {
+            // 워커가 멈춰도 영원히 기다리지 않도록 실행 시간 제한에 여유를 더해 읽기 제한을 건다.
+            // 실행 시간 제한이 없으면(디버깅 등) 출력이 한동안 없을 수 있으므로 읽기 제한도 걸지 않는다
+            long wallMillis = budget.getWallMillis();
+            socket.setSoTimeout(wallMillis > 0
+                ? (int) Math.min(Integer.MAX_VALUE, wallMillis + responseGraceMillis) : 0);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            authenticate(in, out);
+            out.writeInt(WorkerMain.REQUEST_RUN);
+            out.writeLong(budget.getWallMillis());
+            out.writeLong(budget.getCpuMillis());
+            out.writeLong(budget.getMaxOutputBytes());
+            out.writeUTF(owner == null ? "" : owner);
+            out.writeInt(jars.size());
+            for (JarDigest jar : jars) {
+                out.writeUTF(jar.sha256);
+                out.writeUTF(jar.file.getName());
+            }
+            out.flush();
+
+            if (in.readByte() != WorkerMain.FRAME_JARS) {
+                throw new IOException("잘못된 워커 응답");
+            }
+            int missing = in.readInt();
+            for (int i = 0; i < missing; i++) {
+                File jar = jars.get(in.readInt()).file;
+                out.writeLong(jar.length());
+                Files.copy(jar.toPath(), out);
+            }
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+            out.writeUTF(mainClass);
+            out.writeInt(stdin.length);
+            out.write(stdin);
+            out.writeBoolean(measure);
+            out.flush();
+            long acquireNanos = System.nanoTime() - dispatchStart;
+
+            while (true) {
+                byte frame = in.readByte();
+                if (frame == WorkerMain.FRAME_OUTPUT) {
+                    byte[] chunk = new byte[in.readInt()];
+                    in.readFully(chunk);
+                    output.write(chunk, 0, chunk.length);
+                } else if (frame == WorkerMain.FRAME_EXIT) {
+                    int exitCode = in.readInt();
+                    String exceededLimit = in.readUTF();
+                    long elapsedNanos = in.readLong();
+                    long peakMemoryBytes = in.readLong();
+                    RunnerPool.RunResult result = new RunnerPool.RunResult(exitCode,
+                        exceededLimit.isEmpty() ? null : exceededLimit, false, elapsedNanos, peakMemoryBytes);
+                    result.setAcquireNanos(acquireNanos);
+                    return result;
+                } else {
+                    throw new IOException("알 수 없는 워커 응답: " + frame);
+                }
+            }
+        }
+    }
+
+    /**
+     * 워커가 보낸 challenge에 비밀 키로 만든 HMAC을 돌려준다. 키가 틀리면 워커가 연결을 닫아 이어지는 읽기가 실패한다.
+     */
+    private void authenticate(DataInputStream in, DataOutputStream out) throws IOException {
+        if (in.readByte() != WorkerMain.FRAME_CHALLENGE) {
+            throw new IOException("워커가 인증을 요청하지 않았습니다");
+        }
+        byte[] challenge = new byte[WorkerMain.CHALLENGE_BYTES];
+        in.readFully(challenge);
+        out.write(WorkerMain.hmac(secret, challenge));
+    }
+
+    private Socket connect(Worker worker) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(worker.host, worker.port), connectTimeoutMillis);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 워커가 이미 가진 JAR를 다시 보내지 않도록 내용 해시를 붙인다. 경로, 크기, 수정 시각이 같으면 해시를 다시 계산하지 않는다.
+     */
+    private List<JarDigest> digests(List<File> classPath) throws IOException {
+        List<JarDigest> jars = new ArrayList<>();
+        for (File file : classPath) {
+            String key = file.getAbsolutePath() + ':' + file.length() + ':' + file.lastModified();
+            JarDigest digest;
+            synchronized (jarDigests) {
+                digest = jarDigests.get(key);
+            }
+            if (digest == null) {
+                digest = new JarDigest(file, sha256(file));
+                synchronized (jarDigests) {
+                    jarDigests.put(key, digest);
+                }
+            }
+            jars.add(digest);
+        }
+        return jars;
+    }
+
+    private static String sha256(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backend", "remote");
+        stats.put("retries", (long) retries.count());
+        List<Map<String, Object>> workerStats = new ArrayList<>();
+        for (Worker worker : workers) {
+            Map<String, Object> workerStat = new LinkedHashMap<>();
+            workerStat.put("address", worker.address());
+            workerStat.put("healthy", worker.healthy);
+            workerStat.put("capacity", worker.capacity);
+            workerStat.put("activeRuns", worker.reportedActive);
+            workerStat.put("inFlight", worker.inFlight.get());
+            workerStat.put("dispatched", worker.dispatched.get());
+            workerStat.put("failures", worker.failures.get());
+            workerStat.put("lastError", worker.lastError);
+            workerStats.add(workerStat);
+        }
+        stats.put("workers", workerStats);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        healthExecutor.shutdownNow();
+        for (Process process : localWorkers) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    private static class Worker {
+        private final String host;
+        private final int port;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile boolean healthy;
+        private volatile int reportedActive;
+        private volatile int capacity = 1;
+        private volatile String lastError;
+
+        Worker(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        String address() {
+            return host + ":" + port;
+        }
+    }
+
+    private static class JarDigest {
+        private final File file;
+        private final String sha256;
+
+        JarDigest(File file, String sha256) {
+            this.file = file;
+            this.sha256 = sha256;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package com.example.webidle.service;
+
+import com.example.webidle.runner.RunnerMain;
+import com.example.webidle.runner.WorkerMain;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * 사용자 프로그램을 실행하는 JVM의 기동 옵션과 러너용 CDS(Class Data Sharing) 아카이브를 관리한다.
+ * <p>
+ * 모든 실행 JVM에는 짧게 끝나는 프로그램에 맞춘 옵션(webidle.runner.jvm-options)을 붙인다.
+ * 러너 JVM에는 추가로 CDS 아카이브를 붙이는데, 아카이브는 다음 순서로 만든다.
+ * <ol>
+ *   <li>러너 클래스를 고정된 경로의 JAR로 쓴다. CDS는 디렉토리가 아닌 JAR의 클래스만 담는다.</li>
+ *   <li>클래스 목록을 기록하는 러너 JVM에서 학습 프로그램(runner/CdsTraining.java)을 실행해
+ *       사용자 코드가 흔히 쓰는 JDK 클래스를 목록에 남긴다.</li>
+ *   <li>학습 프로그램이 출력한 프리페치 의존성 JAR의 클래스를 사용자 클래스 로더용 항목으로 목록에 덧붙인다.
+ *       런타임에는 같은 JAR의 같은 클래스 파일일 때만 아카이브의 클래스가 쓰인다.</li>
+ *   <li>{@code -Xshare:dump}로 아카이브를 만든다.</li>
+ * </ol>
+ * 아카이브 이름에는 JDK, 옵션, 러너 JAR, 의존성 JAR의 해시가 들어가므로 같은 조건으로 재시작하면 그대로 재사용한다.
+ */
+@Component
+public class RunnerLaunchProfile {
+    private static final String TRAINING_CLASS = "CdsTraining";
+    private static final String[] RUNNER_CLASSES = {
+        "RunnerMain", "RunnerMain$FrameOutputStream", "RunnerMain$MemoryClassLoader",
+        "WorkerMain", "WorkerMain$Runner", "WorkerMain$Watch"
+    };
+    /** JVM 경고가 표준 출력(러너 프로토콜)에 섞이지 않도록 로그를 표준 에러로 돌린다. */
+    private static final List<String> RUNNER_LOGGING = List.of("-Xlog:disable", "-Xlog:all=warning:stderr");
+    /** 러너가 실행마다 셧다운 훅이 추가되었는지 확인할 수 있게 한다. */
+    private static final String RUNNER_OPENS = "--add-opens=java.base/java.lang=ALL-UNNAMED";
+    private static final long TRAINING_TIMEOUT_MILLIS = 120_000;
+
+    private final List<String> jvmOptions;
+    private final boolean cdsEnabled;
+    private final Path cdsDirectory;
+    private final boolean includePrefetchDependencies;
+    private final int maxDependencyClasses;
+    private final JavaSourceCompiler javaSourceCompiler;
+    private final MavenDependencyResolver dependencyResolver;
+    private final ExecutorService archiveExecutor;
+    private volatile Path runnerJar;
+    private volatile Path archive;
+    private volatile String archiveStatus;
+    private volatile long archiveBuildMillis;
+    private volatile int archivedDependencyClasses;
+
+    public RunnerLaunchProfile(@Value("${webidle.runner.jvm-options:-XX:+UseSerialGC,-XX:TieredStopAtLevel=1,-Xms16m,-Xmx256m,-XX:-UsePerfData}") List<String> jvmOptions,
+                               @Value("${webidle.runner.cds.enabled:true}") boolean cdsEnabled,
+                               @Value("${webidle.runner.cds.directory:${java.io.tmpdir}/webidle-cds}") String cdsDirectory,
+                               @Value("${webidle.runner.cds.include-prefetch-dependencies:true}") boolean includePrefetchDependencies,
+                               @Value("${webidle.runner.cds.max-dependency-classes:20000}") int maxDependencyClasses,
+                               JavaSourceCompiler javaSourceCompiler, MavenDependencyResolver dependencyResolver) {
+        List<String> options = new ArrayList<>();
+        for (String option : jvmOptions) {
+            if (!option.isBlank()) {
+                options.add(option.trim());
+            }
+        }
+        this.jvmOptions = Collections.unmodifiableList(options);
+        this.cdsEnabled = cdsEnabled;
+        this.cdsDirectory = Paths.get(cdsDirectory).toAbsolutePath();
+        this.includePrefetchDependencies = includePrefetchDependencies;
+        this.maxDependencyClasses = maxDependencyClasses;
+        this.javaSourceCompiler = javaSourceCompiler;
+        this.dependencyResolver = dependencyResolver;
+        this.archiveStatus = cdsEnabled ? "pending" : "disabled";
+        this.archiveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "runner-cds-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 러너 클래스를 JAR로 쓴다. 내용이 같으면 기존 파일을 그대로 두어 수정 시각이 바뀌지 않게 한다.
+     * CDS는 JAR의 크기와 수정 시각으로 아카이브가 유효한지 판단하기 때문이다.
+     */
+    public synchronized Path prepareRunnerJar() throws IOException {
+        if (runnerJar != null) {
+            return runnerJar;
+        }
+        Files.createDirectories(cdsDirectory);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (JarOutputStream jar = new JarOutputStream(content)) {
+            String packagePath = RunnerMain.class.getPackageName().replace('.', '/') + "/";
+            for (String className : RUNNER_CLASSES) {
+                try (InputStream in = RunnerMain.class.getResourceAsStream(className + ".class")) {
+                    if (in == null) {
+                        throw new FileNotFoundException(className + ".class");
+                    }
+                    JarEntry entry = new JarEntry(packagePath + className + ".class");
+                    // 빌드마다 JAR 바이트가 같도록 항목 시각을 고정한다
+                    entry.setTime(0);
+                    jar.putNextEntry(entry);
+                    in.transferTo(jar);
+                    jar.closeEntry();
+                }
+            }
+        }
+        byte[] bytes = content.toByteArray();
+        Path target = cdsDirectory.resolve("webidle-runner-" + hash(bytes).substring(0, 16) + ".jar");
+        if (!Files.exists(target) || Files.size(target) != bytes.length) {
+            Path temp = Files.createTempFile(cdsDirectory, "runner", ".jar.tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        runnerJar = target;
+        return target;
+    }
+
+    /**
+     * 러너 JVM 기동 명령. 아카이브가 준비되어 있으면 함께 붙인다.
+     */
+    public List<String> runnerCommand() throws IOException {
+        return runnerCommand(true);
+    }
+
+    List<String> runnerCommand(boolean useArchive) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable());
+        command.addAll(jvmOptions);
+        command.addAll(RUNNER_LOGGING);
+        command.add(RUNNER_OPENS);
+        Path currentArchive = archive;
+        if (useArchive && currentArchive != null) {
+            command.add("-XX:SharedArchiveFile=" + currentArchive);
+            command.add("-Xshare:auto");
+        }
+        command.add("-Dfile.encoding=UTF-8");
+        command.add("-cp");
+        command.add(prepareRunnerJar().toString());
+        command.add(RunnerMain.class.getName());
+        return command;
+    }
+
+    /**
+     * 이 호스트에서 워커 프로세스({@link WorkerMain})를 띄우는 명령. 워커가 띄우는 러너도 같은 JVM 옵션과 아카이브를 쓴다.
+     */
+    public List<String> workerCommand(int port, int capacity) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable());
+        command.addAll(jvmOptions);
+        command.addAll(RUNNER_LOGGING);
+        command.add("-Dfile.encoding=UTF-8");
+        command.add("-cp");
+        command.add(prepareRunnerJar().toString());
+        command.add(WorkerMain.class.getName());
+        command.add("--port");
+        command.add(String.valueOf(port));
+        command.add("--capacity");
+        command.add(String.valueOf(capacity));
+        // 서버가 비정상 종료해도 워커가 남지 않게 한다
+        command.add("--parent-pid");
+        command.add(String.valueOf(ProcessHandle.current().pid()));
+        command.add("--");
+        List<String> runnerCommand = runnerCommand();
+        // 자바 실행 파일과 -cp 이후(클래스패스, 메인 클래스)를 뺀 러너 옵션
+        command.addAll(runnerCommand.subList(1, runnerCommand.indexOf("-cp")));
+        return command;
+    }
+
+    /**
+     * 러너 풀을 쓸 수 없어 프로그램을 직접 띄울 때 붙이는 옵션. 클래스패스가 매번 달라 러너 아카이브는 쓸 수 없다.
+     */
+    public List<String> getJvmOptions() {
+        return jvmOptions;
+    }
+
+    public boolean isArchiveReady() {
+        return archive != null;
+    }
+
+    /**
+     * 아카이브를 백그라운드에서 준비한다. 새로 쓸 수 있는 아카이브가 생기면 true로 완료된다.
+     */
+    public CompletableFuture<Boolean> buildArchiveAsync() {
+        if (!cdsEnabled) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(this::buildArchive, archiveExecutor);
+    }
+
+    synchronized boolean buildArchive() {
+        long start = System.currentTimeMillis();
+        archiveStatus = "building";
+        try {
+            Path jar = prepareRunnerJar();
+            List<File> dependencyJars = includePrefetchDependencies ? resolvePrefetchDependencies() : List.of();
+            String training = new String(new ClassPathResource("runner/" + TRAINING_CLASS + ".java")
+                .getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+            String key = archiveKey(jar, training, dependencyJars);
+            Path target = cdsDirectory.resolve("runner-" + key + ".jsa");
+            if (Files.exists(target)) {
+                archive = target;
+                archiveStatus = "ready";
+                System.out.println("러너 CDS 아카이브 재사용: " + target);
+                return true;
+            }
+
+            CompilationResult compilation = javaSourceCompiler.compile(TRAINING_CLASS, training, List.of(), List.of());
+            if (!compilation.isSuccess()) {
+                throw new IllegalStateException("학습 프로그램 컴파일 실패: " + compilation.getDiagnostics());
+            }
+
+            Path classList = cdsDirectory.resolve("runner-" + key + ".classlist");
+            List<String> dependencyClasses = train(classList, compilation.getClasses(), dependencyJars);
+            appendDependencyEntries(classList, dependencyClasses);
+            dump(classList, target);
+            Files.deleteIfExists(classList);
+            deleteStaleArchives(target);
+
+            archive = target;
+            archiveStatus = "ready";
+            archiveBuildMillis = System.currentTimeMillis() - start;
+            System.out.println("러너 CDS 아카이브 생성 완료: " + target + " (" + archiveBuildMillis + "ms, 의존성 클래스 "
+                + archivedDependencyClasses + "개)");
+            return true;
+        } catch (Exception e) {
+            archiveStatus = "failed: " + e.getMessage();
+            System.err.println("러너 CDS 아카이브 생성 실패, 아카이브 없이 실행합니다: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("jvmOptions", jvmOptions);
+        stats.put("cdsEnabled", cdsEnabled);
+        stats.put("archiveStatus", archiveStatus);
+        Path currentArchive = archive;
+        stats.put("archive", currentArchive == null ? null : currentArchive.toString());
+        try {
+            stats.put("archiveBytes", currentArchive == null ? 0 : Files.size(currentArchive));
+        } catch (IOException e) {
+            stats.put("archiveBytes", 0);
+        }
+        stats.put("archiveBuildMillis", archiveBuildMillis);
+        stats.put("archivedDependencyClasses", archivedDependencyClasses);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        archiveExecutor.shutdownNow();
+    }
+
+    private List<File> resolvePrefetchDependencies() {
+        try {
+            List<File> jars = new ArrayList<>();
+            for (File jar : dependencyResolver.resolve(dependencyResolver.readPrefetchManifest())) {
+                // 클래스 목록 형식상 공백이 있는 경로는 넣을 수 없다
+                if (jar.isFile() && !jar.getAbsolutePath().contains(" ")) {
+                    jars.add(jar);
+                }
+            }
+            return jars;
+        } catch (RuntimeException e) {
+            System.err.println("CDS용 의존성 해결 실패, JDK 클래스만 아카이브합니다: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 클래스 목록을 기록하는 러너에서 학습 프로그램을 실행하고, 출력된 의존성 클래스 줄을 돌려준다.
+     */
+    private List<String> train(Path classList, Map<String, byte[]> classes, List<File> dependencyJars)
+            throws IOException, InterruptedException {
+        List<String> command = runnerCommand(false);
+        command.add(1, "-XX:DumpLoadedClassList=" + classList);
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            int exitCode = runOnce(process, classes, dependencyJars, TRAINING_CLASS, output);
+            if (exitCode != 0) {
+                throw new IllegalStateException("학습 프로그램 실행 실패: " + output.toString(StandardCharsets.UTF_8));
+            }
+        } finally {
+            process.getOutputStream().close();
+            if (!process.waitFor(TRAINING_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IllegalStateException("학습 러너가 종료되지 않습니다");
+            }
+        }
+
+        List<String> dependencyClasses = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (line.startsWith("@cds ")) {
+                dependencyClasses.add(line.substring(5).trim());
+            }
+        }
+        return dependencyClasses;
+    }
+
+    /**
+     * 사용자 클래스 로더용 항목은 {@code 이름 id: N super: M interfaces: A B source: JAR} 형식이며,
+     * 상위 타입은 목록에서 먼저 id를 받아야 한다. JDK 상위 타입은 id만 붙여 다시 적는다.
+     */
+    private void appendDependencyEntries(Path classList, List<String> dependencyClasses) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        int nextId = 1_000_000;
+        int archived = 0;
+        for (String line : dependencyClasses) {
+            if (archived >= maxDependencyClasses) {
+                break;
+            }
+            String[] parts = line.split(" ", 4);
+            if (parts.length < 4) {
+                continue;
+            }
+            // 인터페이스도 목록에서는 Object를 상위 클래스로 적는다
+            List<String> supertypes = new ArrayList<>();
+            supertypes.add(parts[1].equals("-") ? Object.class.getName() : parts[1]);
+            if (!parts[2].equals("-")) {
+                supertypes.addAll(Arrays.asList(parts[2].split(",")));
+            }
+            List<Integer> supertypeIds = new ArrayList<>();
+            for (String supertype : supertypes) {
+                Integer id = ids.get(supertype);
+                if (id == null) {
+                    id = nextId++;
+                    ids.put(supertype, id);
+                    entries.add(internalName(supertype) + " id: " + id);
+                }
+                supertypeIds.add(id);
+            }
+            int id = nextId++;
+            ids.put(parts[0], id);
+            StringBuilder entry = new StringBuilder(internalName(parts[0])).append(" id: ").append(id)
+                .append(" super: ").append(supertypeIds.get(0));
+            if (supertypeIds.size() > 1) {
+                entry.append(" interfaces:");
+                for (Integer interfaceId : supertypeIds.subList(1, supertypeIds.size())) {
+                    entry.append(' ').append(interfaceId);
+                }
+            }
+            entry.append(" source: ").append(parts[3]);
+            entries.add(entry.toString());
+            archived++;
+        }
+        Files.write(classList, entries, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        archivedDependencyClasses = archived;
+    }
+
+    private void dump(Path classList, Path target) throws IOException, InterruptedException {
+        Path temp = cdsDirectory.resolve(target.getFileName() + ".tmp");
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable());
+        command.addAll(jvmOptions);
+        command.add("-Xshare:dump");
+        command.add("-XX:SharedClassListFile=" + classList);
+        command.add("-XX:SharedArchiveFile=" + temp);
+        command.add("-cp");
+        command.add(prepareRunnerJar().toString());
+        Path log = cdsDirectory.resolve("dump.log");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        if (!process.waitFor(TRAINING_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("CDS 덤프 시간 초과");
+        }
+        if (process.exitValue() != 0 || !Files.exists(temp)) {
+            throw new IllegalStateException("CDS 덤프 실패 (종료 코드 " + process.exitValue() + ", " + log + " 참고)");
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteStaleArchives(Path current) {
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(cdsDirectory, "runner-*.jsa")) {
+            for (Path stale : archives) {
+                if (!stale.equals(current)) {
+                    Files.deleteIfExists(stale);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("이전 CDS 아카이브 정리 실패: " + e.getMessage());
+        }
+    }
+
+    private String archiveKey(Path jar, String training, List<File> dependencyJars) throws IOException {
+        StringBuilder key = new StringBuilder();
+        key.append(System.getProperty("java.home")).append('|').append(Runtime.version()).append('|')
+            .append(jvmOptions).append('|').append(jar).append('|').append(training.hashCode())
+            .append('|').append(maxDependencyClasses);
+        for (File dependency : dependencyJars) {
+            key.append('|').append(dependency.getAbsolutePath()).append(':').append(dependency.length())
+                .append(':').append(dependency.lastModified());
+        }
+        return hash(key.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    /**
+     * 러너 프로토콜로 프로그램 하나를 실행하고 종료 코드를 돌려준다. 출력은 output에 모은다.
+     */
+    static int runOnce(Process process, Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                       OutputStream output) throws IOException {
+        DataOutputStream in = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        DataInputStream out = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        long nonce = new SecureRandom().nextLong();
+        in.writeInt(RunnerMain.REQUEST_RUN);
+        in.writeLong(nonce);
+        in.writeInt(classPath.size());
+        for (File entry : classPath) {
+            in.writeUTF(entry.getAbsolutePath());
+        }
+        in.writeInt(classes.size());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            in.writeUTF(entry.getKey());
+            in.writeInt(entry.getValue().length);
+            in.write(entry.getValue());
+        }
+        in.writeUTF(mainClass);
+        in.writeInt(0);
+        in.writeBoolean(false);
+        in.flush();
+
+        while (true) {
+            byte frame = out.readByte();
+            if ((frame == RunnerMain.FRAME_OUTPUT || frame == RunnerMain.FRAME_EXIT) && out.readLong() != nonce) {
+                throw new IOException("러너 응답의 nonce가 맞지 않습니다");
+            }
+            if (frame == RunnerMain.FRAME_OUTPUT) {
+                byte[] chunk = new byte[out.readInt()];
+                out.readFully(chunk);
+                output.write(chunk);
+            } else if (frame == RunnerMain.FRAME_EXIT) {
+                int exitCode = out.readInt();
+                out.readBoolean();
+                out.readLong();
+                out.readLong();
+                return exitCode;
+            } else {
+                throw new IOException("알 수 없는 러너 응답: " + frame);
+            }
+        }
+    }
+
+    private static String javaExecutable() {
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        return Files.isExecutable(java) ? java.toString() : "java";
+    }
+
+    private static String internalName(String className) {
+        return className.replace('.', '/');
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
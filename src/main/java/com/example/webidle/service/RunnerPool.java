@@ -0,0 +1,455 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.ResourceUsage;
+import com.example.webidle.runner.RunnerMain;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 미리 기동해 둔 실행용 JVM({@link RunnerMain}) 풀.
+ * <p>
+ * 각 러너는 한 번에 하나의 프로그램만 실행하고, 매 실행마다 새 클래스로더에 클래스를 올린다.
+ * 최대 사용 횟수에 도달하거나 상태가 깨진 러너는 폐기하고 새로 띄운다.
+ * 한 번 쓴 러너는 같은 owner의 실행에만 다시 넘겨준다. 사용자 코드는 리플렉션으로 러너의 nonce를 읽어 종료 프레임을
+ * 흉내 내고 스레드를 남겨 둘 수 있으므로, 다른 owner의 실행을 거친 러너는 꺼내는 대로 폐기한다.
+ * 사용 가능한 러너가 없으면 {@link #run}이 null을 돌려주고, 호출자는 기존 fork 방식으로 실행한다.
+ * 테스트 케이스 실행({@link #runCase})은 대기 러너가 없으면 그 케이스만을 위한 러너를 띄운다.
+ * cgroup v2를 쓸 수 있으면 러너마다 그룹을 만들어 자원을 제한하고, 실행마다 CPU 시간과 최대 메모리를 잰다.
+ * 실행 시간, CPU 시간, 출력 크기 한도는 {@link ProcessWatchdog}가 지키며, 넘으면 러너를 죽이고 폐기한다.
+ */
+@Component
+public class RunnerPool {
+    private static final long PING_TIMEOUT_MILLIS = 2000;
+    private static final byte[] NO_INPUT = new byte[0];
+    private static final SecureRandom NONCES = new SecureRandom();
+
+    private final boolean enabled;
+    private final int size;
+    private final int maxUses;
+    private final long acquireTimeoutMillis;
+    private final BlockingQueue<Runner> idleRunners = new LinkedBlockingQueue<>();
+    private final AtomicInteger liveRunners = new AtomicInteger();
+    private final ScheduledExecutorService maintenanceExecutor;
+    private final RunnerLaunchProfile launchProfile;
+    private final CgroupManager cgroupManager;
+    private final ProcessWatchdog processWatchdog;
+    private Path runnerJar;
+
+    public RunnerPool(@Value("${webidle.runner.pool.enabled:true}") boolean enabled,
+                      @Value("${webidle.runner.pool.size:2}") int size,
+                      @Value("${webidle.runner.pool.max-uses:20}") int maxUses,
+                      @Value("${webidle.runner.pool.acquire-timeout-ms:200}") long acquireTimeoutMillis,
+                      @Value("${webidle.runner.pool.health-check-interval-ms:10000}") long healthCheckIntervalMillis,
+                      MeterRegistry meterRegistry, RunnerLaunchProfile launchProfile,
+                      CgroupManager cgroupManager, ProcessWatchdog processWatchdog) {
+        this.enabled = enabled;
+        this.size = size;
+        this.maxUses = maxUses;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.launchProfile = launchProfile;
+        this.cgroupManager = cgroupManager;
+        this.processWatchdog = processWatchdog;
+        Gauge.builder("webidle.runner.pool.idle", idleRunners, Collection::size)
+            .description("대기 중인 러너 JVM 수").register(meterRegistry);
+        Gauge.builder("webidle.runner.pool.live", liveRunners, AtomicInteger::get)
+            .description("살아 있는 러너 JVM 수").register(meterRegistry);
+        this.maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "runner-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (enabled) {
+            try {
+                this.runnerJar = launchProfile.prepareRunnerJar();
+                for (int i = 0; i < size; i++) {
+                    maintenanceExecutor.execute(this::spawnRunner);
+                }
+                maintenanceExecutor.scheduleWithFixedDelay(this::checkHealth,
+                    healthCheckIntervalMillis, healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+                // 아카이브가 준비되면 아카이브 없이 띄운 대기 러너를 새로 띄운다
+                launchProfile.buildArchiveAsync().thenAccept(ready -> {
+                    if (ready && !maintenanceExecutor.isShutdown()) {
+                        maintenanceExecutor.execute(this::recycleIdleRunners);
+                    }
+                });
+            } catch (IOException e) {
+                System.err.println("러너 풀 초기화 실패, fork 방식으로 실행합니다: " + e.getMessage());
+            }
+        }
+    }
+
+    private void spawnRunner() {
+        try {
+            Runner runner = startRunner();
+            liveRunners.incrementAndGet();
+            idleRunners.add(runner);
+        } catch (IOException e) {
+            System.err.println("러너 프로세스 시작 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 러너 JVM을 띄운다. cgroup을 쓸 수 있으면 새 그룹 안에서 시작한다.
+     */
+    private Runner startRunner() throws IOException {
+        CgroupManager.Group group = cgroupManager.create();
+        List<String> command = launchProfile.runnerCommand();
+        ProcessBuilder processBuilder = new ProcessBuilder(group == null ? command : group.wrap(command));
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        try {
+            return new Runner(processBuilder.start(), group);
+        } catch (IOException e) {
+            if (group != null) {
+                group.remove();
+            }
+            throw e;
+        }
+    }
+
+    private void recycleIdleRunners() {
+        List<Runner> runners = new ArrayList<>();
+        idleRunners.drainTo(runners);
+        for (Runner runner : runners) {
+            retire(runner);
+        }
+    }
+
+    private void retire(Runner runner) {
+        runner.close();
+        liveRunners.decrementAndGet();
+        if (enabled && runnerJar != null && !maintenanceExecutor.isShutdown()) {
+            maintenanceExecutor.execute(this::spawnRunner);
+        }
+    }
+
+    private void checkHealth() {
+        List<Runner> runners = new ArrayList<>();
+        idleRunners.drainTo(runners);
+        for (Runner runner : runners) {
+            if (runner.ping()) {
+                idleRunners.add(runner);
+            } else {
+                System.err.println("응답 없는 러너 교체: pid " + runner.process.pid());
+                retire(runner);
+            }
+        }
+        for (int i = liveRunners.get(); i < size; i++) {
+            spawnRunner();
+        }
+    }
+
+    /**
+     * 풀의 러너에서 프로그램을 실행한다. 사용 가능한 러너가 없으면 null을 돌려준다.
+     */
+    public RunResult run(String owner, Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                         ExecutionBudget budget, ProgramOutput output) throws InterruptedException {
+        if (!enabled || runnerJar == null) {
+            return null;
+        }
+        long acquireStart = System.nanoTime();
+        Runner runner = acquire(owner);
+        if (runner == null) {
+            return null;
+        }
+        long acquireNanos = System.nanoTime() - acquireStart;
+
+        RunResult result = execute(runner, true, owner, classes, classPath, mainClass, NO_INPUT, false, budget,
+            output);
+        result.setAcquireNanos(acquireNanos);
+        return result;
+    }
+
+    /**
+     * 표준 입력을 넣어 프로그램을 한 번 실행하고 실행 시간과 최대 힙 사용량을 잰다.
+     * 대기 러너가 없으면 이 실행만을 위한 러너를 띄웠다가 끝나면 종료하므로 항상 결과를 돌려준다.
+     */
+    public RunResult runCase(String owner, Map<String, byte[]> classes, List<File> classPath, String mainClass,
+                             byte[] stdin, ExecutionBudget budget, ProgramOutput output)
+            throws IOException, InterruptedException {
+        long acquireStart = System.nanoTime();
+        Runner runner = enabled && runnerJar != null ? acquire(owner) : null;
+        if (runner != null) {
+            long acquireNanos = System.nanoTime() - acquireStart;
+            RunResult result = execute(runner, true, owner, classes, classPath, mainClass, stdin, true, budget,
+                output);
+            result.setAcquireNanos(acquireNanos);
+            return result;
+        }
+
+        Runner oneShot = startRunner();
+        try {
+            // 응답할 때까지 기다려 JVM 기동 시간이 실행 시간 제한에 들어가지 않게 한다
+            if (!oneShot.ping()) {
+                throw new IOException("러너 프로세스가 응답하지 않습니다");
+            }
+            long acquireNanos = System.nanoTime() - acquireStart;
+            RunResult result = execute(oneShot, false, null, classes, classPath, mainClass, stdin, true, budget,
+                output);
+            result.setAcquireNanos(acquireNanos);
+            return result;
+        } finally {
+            oneShot.close();
+        }
+    }
+
+    /**
+     * 대기 러너를 꺼낸다. 아직 아무 실행도 하지 않은 러너나 owner가 마지막으로 쓴 러너만 돌려주고,
+     * 다른 owner가 쓰던 러너는 폐기한다. 제한 시간 안에 꺼내지 못하면 null을 돌려준다.
+     */
+    private Runner acquire(String owner) throws InterruptedException {
+        if (owner != null) {
+            for (Runner runner : idleRunners) {
+                if (owner.equals(runner.owner) && idleRunners.remove(runner)) {
+                    return runner;
+                }
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        while (true) {
+            Runner runner = idleRunners.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (runner == null || runner.owner == null || runner.owner.equals(owner)) {
+                return runner;
+            }
+            retire(runner);
+        }
+    }
+
+    /**
+     * 한도를 걸고 실행한다. 풀에 속한 러너는 다시 쓸 수 있으면 owner를 기록해 돌려놓고, 아니면 폐기한다.
+     * owner가 null이면 풀에 속한 러너라도 돌려놓지 않는다.
+     */
+    private RunResult execute(Runner runner, boolean pooled, String owner, Map<String, byte[]> classes,
+                              List<File> classPath, String mainClass, byte[] stdin, boolean measure,
+                              ExecutionBudget budget, ProgramOutput output) {
+        if (runner.group != null) {
+            runner.group.begin();
+        }
+        ProcessWatchdog.Watch watch = processWatchdog.watch(runner.process, runner.group, budget, output);
+        RunResult result;
+        try {
+            result = runner.execute(classes, classPath, mainClass, stdin, measure, output);
+        } catch (IOException e) {
+            // 한도를 넘어 워치독이 러너를 죽였거나 사용자 코드가 System.exit()을 호출한 경우
+            result = null;
+        }
+        watch.cancel();
+        String exceededLimit = watch.getExceededLimit();
+        if (exceededLimit != null) {
+            // 종료 프레임을 받은 직후 한도를 넘었어도 러너는 이미 죽었으므로 한도 초과로 보고한다
+            result = new RunResult(-1, exceededLimit, false);
+        } else if (result == null) {
+            result = new RunResult(runner.exitCode(), null, false);
+        }
+        // 그룹을 지우기 전에 사용량을 읽는다
+        result.setResourceUsage(runner.measuredUsage());
+        if (pooled) {
+            // 사용자 코드가 띄운 자식 프로세스가 남아 있으면 다음 실행에 섞이지 않도록 러너째 정리한다
+            boolean strayChildren = runner.process.descendants().anyMatch(ProcessHandle::isAlive);
+            if (owner != null && result.reusable && !strayChildren && ++runner.uses < maxUses) {
+                runner.owner = owner;
+                idleRunners.add(runner);
+            } else {
+                retire(runner);
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenanceExecutor.shutdownNow();
+        List<Runner> runners = new ArrayList<>();
+        idleRunners.drainTo(runners);
+        for (Runner runner : runners) {
+            runner.close();
+        }
+    }
+
+    public static class RunResult {
+        private final int exitCode;
+        private final String exceededLimit;
+        private final boolean reusable;
+        private final long elapsedNanos;
+        private final long peakMemoryBytes;
+        private long acquireNanos;
+        private ResourceUsage resourceUsage;
+
+        RunResult(int exitCode, String exceededLimit, boolean reusable) {
+            this(exitCode, exceededLimit, reusable, -1, -1);
+        }
+
+        RunResult(int exitCode, String exceededLimit, boolean reusable, long elapsedNanos, long peakMemoryBytes) {
+            this.exitCode = exitCode;
+            this.exceededLimit = exceededLimit;
+            this.reusable = reusable;
+            this.elapsedNanos = elapsedNanos;
+            this.peakMemoryBytes = peakMemoryBytes;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        /** 넘은 한도의 이름({@link ExecutionBudget#WALL_TIME} 등). 한도 안에서 끝났으면 null이다. */
+        public String getExceededLimit() {
+            return exceededLimit;
+        }
+
+        /** 대기 중인 러너를 얻기까지 걸린 시간. fork 방식의 프로세스 시작 시간에 해당한다. */
+        public long getAcquireNanos() {
+            return acquireNanos;
+        }
+
+        void setAcquireNanos(long acquireNanos) {
+            this.acquireNanos = acquireNanos;
+        }
+
+        /** 러너 cgroup에서 읽은 CPU 시간과 최대 메모리. cgroup을 쓰지 않으면 null이다. */
+        public ResourceUsage getResourceUsage() {
+            return resourceUsage;
+        }
+
+        void setResourceUsage(ResourceUsage resourceUsage) {
+            this.resourceUsage = resourceUsage;
+        }
+
+        /** 러너 안에서 잰 main() 실행 시간. 러너가 중간에 종료되면 -1이다. */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** 실행 중 최대 힙 사용량. 측정하지 않았거나 러너가 중간에 종료되면 -1이다. */
+        public long getPeakMemoryBytes() {
+            return peakMemoryBytes;
+        }
+    }
+
+    private static class Runner {
+        private final Process process;
+        private final CgroupManager.Group group;
+        private final DataOutputStream in;
+        private final DataInputStream out;
+        private int uses;
+        /** 마지막으로 이 러너에서 실행한 owner. 아직 아무 실행도 하지 않았으면 null이다. */
+        private volatile String owner;
+
+        Runner(Process process, CgroupManager.Group group) {
+            this.process = process;
+            this.group = group;
+            this.in = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.out = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        RunResult execute(Map<String, byte[]> classes, List<File> classPath, String mainClass, byte[] stdin,
+                          boolean measure, ProgramOutput output) throws IOException {
+            long nonce = NONCES.nextLong();
+            in.writeInt(RunnerMain.REQUEST_RUN);
+            in.writeLong(nonce);
+            in.writeInt(classPath.size());
+            for (File entry : classPath) {
+                in.writeUTF(entry.getAbsolutePath());
+            }
+            in.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                in.writeUTF(entry.getKey());
+                in.writeInt(entry.getValue().length);
+                in.write(entry.getValue());
+            }
+            in.writeUTF(mainClass);
+            in.writeInt(stdin.length);
+            in.write(stdin);
+            in.writeBoolean(measure);
+            in.flush();
+
+            while (true) {
+                byte frame = out.readByte();
+                if ((frame == RunnerMain.FRAME_OUTPUT || frame == RunnerMain.FRAME_EXIT) && out.readLong() != nonce) {
+                    // 사용자 코드가 러너의 표준 출력에 직접 써서 프레임을 흉내 낸 경우
+                    destroy();
+                    throw new IOException("러너 응답의 nonce가 맞지 않습니다");
+                }
+                if (frame == RunnerMain.FRAME_OUTPUT) {
+                    byte[] chunk = new byte[out.readInt()];
+                    out.readFully(chunk);
+                    output.write(chunk, 0, chunk.length);
+                } else if (frame == RunnerMain.FRAME_EXIT) {
+                    int exitCode = out.readInt();
+                    boolean reusable = out.readBoolean();
+                    long elapsedNanos = out.readLong();
+                    long peakMemoryBytes = out.readLong();
+                    return new RunResult(exitCode, null, reusable, elapsedNanos, peakMemoryBytes);
+                } else {
+                    destroy();
+                    throw new IOException("알 수 없는 러너 응답: " + frame);
+                }
+            }
+        }
+
+        boolean ping() {
+            try {
+                in.writeInt(RunnerMain.REQUEST_PING);
+                in.flush();
+                long deadline = System.currentTimeMillis() + PING_TIMEOUT_MILLIS;
+                while (out.available() == 0) {
+                    if (!process.isAlive() || System.currentTimeMillis() > deadline) {
+                        return false;
+                    }
+                    Thread.sleep(10);
+                }
+                return out.readByte() == RunnerMain.FRAME_PONG;
+            } catch (IOException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * 러너가 끝났으면 종료 코드를, 응답이 깨졌는데도 살아 있으면 죽이고 -1을 돌려준다.
+         */
+        int exitCode() {
+            try {
+                if (process.waitFor(PING_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return process.exitValue();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            destroy();
+            return -1;
+        }
+
+        ResourceUsage measuredUsage() {
+            return group == null ? null : group.end();
+        }
+
+        void destroy() {
+            ProcessWatchdog.destroyTree(process.toHandle());
+        }
+
+        /**
+         * 프로세스를 죽이고, 끝나면 사용자 코드가 띄운 자식 프로세스까지 그룹째 정리한다.
+         */
+        void close() {
+            destroy();
+            if (group != null) {
+                process.onExit().thenRun(group::remove);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 클라이언트로 나가는 STOMP 메시지와 WebSocket 세션 상태를 지켜본다.
+ * <ul>
+ *   <li>아웃바운드 채널 대기열에 쌓인 메시지 수와 대기 시간(webidle.websocket.outbound.delay)을 잰다.
+ *       대기 시간이 delayed-threshold-ms를 넘으면 지연 메시지로 센다.</li>
+ *   <li>대기열이 가득 차 거절되거나, 보내는 중 실패하거나, 이미 닫힌 세션으로 가는 메시지를 버려진 메시지로 센다.</li>
+ *   <li>전송 버퍼나 전송 시간 한도를 넘겨 끊긴 세션을 느린 소비자로 센다.</li>
+ * </ul>
+ * 대기열이 congestion-threshold를 넘으면 {@link #isOutboundCongested()}가 true가 되고,
+ * {@link ProgramOutput}은 작은 출력 프레임을 더 모아서 보낸다.
+ */
+@Component
+public class WebSocketTransportMonitor implements ExecutorChannelInterceptor {
+    private static final String ENQUEUED_HEADER = "webidle.enqueuedNanos";
+    private static final String DEFLATE_EXTENSION = "permessage-deflate";
+
+    private final MeterRegistry meterRegistry;
+    private final long delayedThresholdNanos;
+    private final int congestionThreshold;
+    private final AtomicInteger outboundBacklog = new AtomicInteger();
+    private final Set<String> openSessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger compressedSessions = new AtomicInteger();
+    private final Timer outboundDelay;
+    private final Counter delayedMessages;
+    private final Counter slowConsumers;
+
+    public WebSocketTransportMonitor(MeterRegistry meterRegistry,
+                                     @Value("${webidle.websocket.delayed-threshold-ms:1000}") long delayedThresholdMillis,
+                                     @Value("${webidle.websocket.congestion-threshold:500}") int congestionThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.delayedThresholdNanos = TimeUnit.MILLISECONDS.toNanos(delayedThresholdMillis);
+        this.congestionThreshold = congestionThreshold;
+        this.outboundDelay = Timer.builder("webidle.websocket.outbound.delay")
+            .description("아웃바운드 채널 대기열에서 기다린 시간").publishPercentileHistogram().register(meterRegistry);
+        this.delayedMessages = Counter.builder("webidle.websocket.outbound.delayed")
+            .description("대기 시간이 한도를 넘은 아웃바운드 메시지").register(meterRegistry);
+        this.slowConsumers = Counter.builder("webidle.websocket.slow.consumers")
+            .description("전송 버퍼/시간 한도를 넘겨 끊긴 세션").register(meterRegistry);
+        Gauge.builder("webidle.websocket.outbound.backlog", outboundBacklog, AtomicInteger::get)
+            .description("아웃바운드 채널에서 전송을 기다리는 메시지 수").register(meterRegistry);
+        Gauge.builder("webidle.websocket.sessions", openSessions, Set::size)
+            .description("열려 있는 WebSocket 세션 수").register(meterRegistry);
+        Gauge.builder("webidle.websocket.sessions.compressed", compressedSessions, AtomicInteger::get)
+            .description("permessage-deflate를 협상한 세션 수").register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        outboundBacklog.incrementAndGet();
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.setHeader(ENQUEUED_HEADER, System.nanoTime());
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // 실행기에 넘기지 못한 메시지는 처리 단계에 오지 않는다
+        if (!sent || ex != null) {
+            outboundBacklog.decrementAndGet();
+            dropped("rejected");
+        }
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        Object enqueued = message.getHeaders().get(ENQUEUED_HEADER);
+        if (enqueued instanceof Long) {
+            long waited = System.nanoTime() - (Long) enqueued;
+            outboundDelay.record(waited, TimeUnit.NANOSECONDS);
+            if (waited > delayedThresholdNanos) {
+                delayedMessages.increment();
+            }
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null && !openSessions.contains(sessionId)) {
+            dropped("session_closed");
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        outboundBacklog.decrementAndGet();
+        if (ex != null) {
+            dropped("send_failed");
+        }
+    }
+
+    private void dropped(String reason) {
+        meterRegistry.counter("webidle.websocket.outbound.dropped", "reason", reason).increment();
+    }
+
+    /**
+     * 세션이 열리고 닫히는 것을 지켜보는 핸들러로 감싼다. 전송 한도를 넘긴 세션은
+     * {@link CloseStatus#SESSION_NOT_RELIABLE}로 닫힌다.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.add(session.getId());
+                if (isCompressed(session)) {
+                    compressedSessions.incrementAndGet();
+                }
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                if (openSessions.remove(session.getId()) && isCompressed(session)) {
+                    compressedSessions.decrementAndGet();
+                }
+                if (closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+                    slowConsumers.increment();
+                    System.err.println("느린 클라이언트 연결 종료: " + session.getId() + " - " + closeStatus.getReason());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private static boolean isCompressed(WebSocketSession session) {
+        try {
+            for (WebSocketExtension extension : session.getExtensions()) {
+                if (DEFLATE_EXTENSION.equals(extension.getName())) {
+                    return true;
+                }
+            }
+        } catch (UnsupportedOperationException e) {
+            // SockJS 폴백 전송(xhr-streaming 등)에는 확장 정보가 없다
+        }
+        return false;
+    }
+
+    public boolean isOutboundCongested() {
+        return outboundBacklog.get() > congestionThreshold;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", openSessions.size());
+        stats.put("compressedSessions", compressedSessions.get());
+        stats.put("outboundBacklog", outboundBacklog.get());
+        stats.put("congested", isOutboundCongested());
+        stats.put("outboundDelayMeanMillis", outboundDelay.mean(TimeUnit.MILLISECONDS));
+        stats.put("outboundDelayMaxMillis", outboundDelay.max(TimeUnit.MILLISECONDS));
+        stats.put("delayedMessages", (long) delayedMessages.count());
+        stats.put("slowConsumers", (long) slowConsumers.count());
+        Map<String, Long> dropped = new LinkedHashMap<>();
+        meterRegistry.find("webidle.websocket.outbound.dropped").counters()
+            .forEach(counter -> dropped.put(counter.getId().getTag("reason"), (long) counter.count()));
+        stats.put("dropped", dropped);
+        return stats;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.webidle.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 작업 공간 파일의 읽기/저장을 담당한다.
+ * <p>
+ * 파일 내용을 메모리에 올리지 않도록 읽기는 호출한 쪽에서 파일을 그대로 스트리밍하고,
+ * 저장은 같은 디렉토리의 임시 파일에 스트림을 기록한 뒤 rename으로 교체한다.
+ * 교체는 원자적이므로 읽는 쪽은 이전 내용이나 새 내용 중 하나만 보게 된다. 같은 경로의 ETag 확인과 교체는
+ * 경로별 잠금 안에서 하므로 If-Match를 통과한 두 저장이 서로의 내용을 덮어쓰지 않는다.
+ * ETag는 파일 크기와 수정 시각(나노초)으로 만들어 내용을 읽지 않고 계산한다.
+ */
+@Component
+public class WorkspaceFileService {
+    private static final int LOCK_STRIPES = 64;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path root;
+    private final Object[] saveLocks = new Object[LOCK_STRIPES];
+
+    public WorkspaceFileService(@Value("${webidle.workspace.root:workspace}") String workspaceRoot) {
+        this.root = Paths.get(workspaceRoot).toAbsolutePath().normalize();
+        for (int i = 0; i < saveLocks.length; i++) {
+            saveLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 작업 공간 기준 경로를 실제 경로로 바꾼다. 작업 공간 밖을 가리키면 거부한다.
+     */
+    public Path resolve(String path) {
+        String relative = path == null ? "" : path.replaceFirst("^/+", "");
+        Path target = root.resolve(relative).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new IllegalArgumentException("작업 공간 밖의 경로입니다: " + path);
+        }
+        return target;
+    }
+
+    /**
+     * 저장하는 동안 잠깐 생기는 임시 파일({@code .<이름><난수>.tmp})인지 본다. 파일 트리에서는 보이지 않게 한다.
+     */
+    static boolean isSaveTempFile(String fileName) {
+        return fileName.startsWith(".") && fileName.endsWith(TEMP_SUFFIX);
+    }
+
+    public String etag(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return etag(attributes);
+    }
+
+    static String etag(BasicFileAttributes attributes) {
+        return "\"" + Long.toHexString(attributes.size()) + "-"
+            + Long.toHexString(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)) + "\"";
+    }
+
+    /**
+     * 임시 파일에 기록하고 디스크에 반영한 뒤 원래 파일을 교체한다. expectedEtag가 있으면 현재 파일의 ETag와
+     * 같을 때만 저장하고, 다르면 {@link FileConflictException}을 던진다. 새 ETag를 돌려준다.
+     */
+    public String save(String path, InputStream content, String expectedEtag) throws IOException {
+        return save(resolve(path), content, expectedEtag);
+    }
+
+    /**
+     * 이미 {@link #resolve(String)}로 검사한 경로에 저장한다.
+     */
+    public String save(Path target, InputStream content, String expectedEtag) throws IOException {
+        if (Files.isDirectory(target)) {
+            throw new IllegalArgumentException("디렉토리에는 저장할 수 없습니다: " + target.getFileName());
+        }
+        Files.createDirectories(target.getParent());
+
+        // 본문은 잠금 밖에서 받아 두고, 확인과 교체만 잠금 안에서 한다
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 OutputStream out = Channels.newOutputStream(channel)) {
+                content.transferTo(out);
+                channel.force(false);
+            }
+            synchronized (saveLocks[Math.floorMod(target.hashCode(), saveLocks.length)]) {
+                if (expectedEtag != null && !expectedEtag.equals("*")) {
+                    String currentEtag = Files.exists(target) ? etag(target) : null;
+                    if (!expectedEtag.equals(currentEtag)) {
+                        throw new FileConflictException("파일이 다른 곳에서 변경되었습니다: " + target.getFileName(),
+                            currentEtag);
+                    }
+                }
+                copyPermissions(target, temp);
+                moveIntoPlace(temp, target);
+                return etag(target);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 임시 파일은 0600으로 만들어지므로 교체할 파일의 권한을 옮겨 저장해도 권한이 바뀌지 않게 한다.
+     */
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (!Files.exists(from)) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException e) {
+            // POSIX 권한이 없는 파일 시스템
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
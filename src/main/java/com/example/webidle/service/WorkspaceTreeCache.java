@@ -0,0 +1,289 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.FileNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 작업 공간 파일 트리를 디렉토리 단위로 메모리에 캐시한다.
+ * <p>
+ * 디렉토리는 처음 요청될 때만 읽고, 읽기 전에 {@link WatchService}에 등록해 두었다가
+ * 항목이 생기거나 지워지면 그 디렉토리의 캐시만 버린다. 하위 디렉토리가 지워지면 그 아래 캐시도 모두 버린다.
+ * 응답은 깊이와 페이지 크기로 잘라서 만들고, 응답에 포함된 디렉토리들의 항목(이름과 종류) 해시로 ETag를 계산하므로
+ * 디렉토리를 다시 읽었더라도 항목이 그대로면 304로 끝낼 수 있다. 파일을 저장할 때 잠깐 생기는 임시 파일은
+ * 목록에 넣지 않고, 그 파일의 생성과 삭제로는 캐시를 버리지 않는다.
+ */
+@Component
+public class WorkspaceTreeCache {
+    private final Path root;
+    private final int maxDepth;
+    private final int maxPageSize;
+    private final int maxCachedDirectories;
+    private final Map<Path, DirectoryListing> listings = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public WorkspaceTreeCache(@Value("${webidle.workspace.root:workspace}") String workspaceRoot,
+                              @Value("${webidle.files.max-depth:8}") int maxDepth,
+                              @Value("${webidle.files.max-page-size:1000}") int maxPageSize,
+                              @Value("${webidle.files.max-cached-directories:10000}") int maxCachedDirectories) {
+        this.root = Paths.get(workspaceRoot).toAbsolutePath().normalize();
+        this.maxDepth = maxDepth;
+        this.maxPageSize = maxPageSize;
+        this.maxCachedDirectories = maxCachedDirectories;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(root);
+        watchService = root.getFileSystem().newWatchService();
+        watcherThread = new Thread(this::watchLoop, "workspace-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("WatchService 종료 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * path 아래 트리를 depth 단계까지 만든다. 맨 위 디렉토리의 항목은 offset부터 limit개만,
+     * 그 아래 디렉토리들은 처음 limit개만 담는다.
+     */
+    public TreeSnapshot list(String path, int depth, int offset, int limit) {
+        Path target = resolve(path);
+        int boundedDepth = Math.max(0, Math.min(depth, maxDepth));
+        int boundedLimit = Math.max(1, Math.min(limit, maxPageSize));
+        int boundedOffset = Math.max(0, offset);
+
+        StringBuilder etagSource = new StringBuilder()
+            .append(boundedDepth).append(':').append(boundedOffset).append(':').append(boundedLimit).append('|');
+        FileNode node;
+        if (Files.isDirectory(target)) {
+            node = directoryNode(target, boundedDepth, boundedOffset, boundedLimit, etagSource);
+        } else if (Files.exists(target)) {
+            node = fileNode(target, false);
+        } else {
+            throw new IllegalArgumentException("경로가 없습니다: " + path);
+        }
+        etagSource.append(relativePath(target));
+        return new TreeSnapshot(node, "\"" + sha256(etagSource.toString()).substring(0, 32) + "\"");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedDirectories", listings.size());
+        stats.put("watchedDirectories", watchKeys.size());
+        stats.put("directoryLoads", loads.get());
+        return stats;
+    }
+
+    private Path resolve(String path) {
+        String relative = path == null ? "" : path.replaceFirst("^/+", "");
+        Path target = root.resolve(relative).normalize();
+        if (!target.startsWith(root)) {
+            throw new IllegalArgumentException("작업 공간 밖의 경로입니다: " + path);
+        }
+        return target;
+    }
+
+    private FileNode directoryNode(Path directory, int depth, int offset, int limit, StringBuilder etagSource) {
+        FileNode node = fileNode(directory, true);
+        if (depth == 0) {
+            return node;
+        }
+
+        DirectoryListing listing = listing(directory);
+        etagSource.append(relativePath(directory)).append('@').append(listing.digest).append(';');
+
+        List<FileNode> children = new ArrayList<>();
+        int end = Math.min(listing.entries.size(), offset + limit);
+        for (int i = offset; i < end; i++) {
+            Entry entry = listing.entries.get(i);
+            Path child = directory.resolve(entry.name);
+            children.add(entry.directory
+                ? directoryNode(child, depth - 1, 0, limit, etagSource)
+                : fileNode(child, false));
+        }
+        node.setChildren(children);
+        node.setChildCount(listing.entries.size());
+        node.setHasMore(end < listing.entries.size());
+        return node;
+    }
+
+    private FileNode fileNode(Path path, boolean directory) {
+        FileNode node = new FileNode();
+        node.setName(path.getFileName() == null ? path.toString() : path.getFileName().toString());
+        node.setType(directory ? "directory" : "file");
+        node.setPath(relativePath(path));
+        return node;
+    }
+
+    private String relativePath(Path path) {
+        String relative = root.relativize(path).toString().replace('\\', '/');
+        return relative.isEmpty() ? "" : "/" + relative;
+    }
+
+    private DirectoryListing listing(Path directory) {
+        if (listings.size() >= maxCachedDirectories) {
+            invalidateAll();
+        }
+        try {
+            return listings.computeIfAbsent(directory, this::load);
+        } catch (UncheckedIOException e) {
+            throw new IllegalStateException("디렉토리 읽기 실패: " + relativePath(directory), e.getCause());
+        }
+    }
+
+    /**
+     * 변경을 놓치지 않도록 디렉토리를 읽기 전에 먼저 감시를 등록한다.
+     */
+    private DirectoryListing load(Path directory) {
+        try {
+            watchKeys.computeIfAbsent(directory, dir -> {
+                try {
+                    return dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path child : stream) {
+                    String name = child.getFileName().toString();
+                    boolean isDirectory = Files.isDirectory(child);
+                    if (!isDirectory && WorkspaceFileService.isSaveTempFile(name)) {
+                        continue;
+                    }
+                    entries.add(new Entry(name, isDirectory));
+                }
+            }
+            // 디렉토리를 먼저, 그 안에서는 이름 순으로 정렬해 페이지가 안정적으로 나뉘게 한다
+            entries.sort(Comparator.comparing((Entry entry) -> !entry.directory).thenComparing(entry -> entry.name));
+            loads.incrementAndGet();
+            StringBuilder digestSource = new StringBuilder();
+            for (Entry entry : entries) {
+                digestSource.append(entry.directory ? 'd' : 'f').append(entry.name).append('/');
+            }
+            return new DirectoryListing(Collections.unmodifiableList(entries), sha256(digestSource.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    invalidateAll();
+                    continue;
+                }
+                Path name = (Path) event.context();
+                if (WorkspaceFileService.isSaveTempFile(name.toString())) {
+                    continue;
+                }
+                listings.remove(directory);
+                if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    invalidateSubtree(directory.resolve(name));
+                }
+            }
+            if (!key.reset()) {
+                invalidateSubtree(directory);
+            }
+        }
+    }
+
+    private void invalidateSubtree(Path directory) {
+        listings.keySet().removeIf(path -> path.startsWith(directory));
+        watchKeys.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(directory)) {
+                entry.getValue().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void invalidateAll() {
+        listings.clear();
+        watchKeys.values().forEach(WatchKey::cancel);
+        watchKeys.clear();
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class TreeSnapshot {
+        private final FileNode node;
+        private final String etag;
+
+        TreeSnapshot(FileNode node, String etag) {
+            this.node = node;
+            this.etag = etag;
+        }
+
+        public FileNode getNode() {
+            return node;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    private static class DirectoryListing {
+        final List<Entry> entries;
+        // 항목 이름과 종류의 해시. 다시 읽어도 항목이 같으면 같은 값이다
+        final String digest;
+
+        DirectoryListing(List<Entry> entries, String digest) {
+            this.entries = entries;
+            this.digest = digest;
+        }
+    }
+
+    private static class Entry {
+        final String name;
+        final boolean directory;
+
+        Entry(String name, boolean directory) {
+            this.name = name;
+            this.directory = directory;
+        }
+    }
+}
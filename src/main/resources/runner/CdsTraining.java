@@ -0,0 +1,339 @@
+import java.io.*;
+import java.math.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.jar.*;
+import java.util.regex.*;
+import java.util.stream.*;
+
+/**
+ * 러너 JVM용 CDS 아카이브를 만들 때 러너 안에서 사용자 프로그램처럼 실행되는 학습 프로그램.
+ * <p>
+ * 먼저 사용자 코드가 흔히 쓰는 JDK 클래스를 한 번씩 사용해 클래스 목록에 남기고,
+ * 이어서 클래스패스로 받은 의존성 JAR의 클래스를 사용자 코드와 같은 클래스 로더로 읽어
+ * 상위 타입이 먼저 나오는 순서로 {@code @cds 이름 상위클래스 인터페이스,... JAR경로} 줄을 출력한다.
+ */
+public class CdsTraining {
+    private static final StringBuilder sink = new StringBuilder();
+
+    public static void main(String[] args) throws Exception {
+        exerciseLanguage();
+        exerciseCollections();
+        exerciseText();
+        exerciseNumbersAndTime();
+        exerciseConcurrency();
+        exerciseIo();
+        System.out.println("training " + sink.length());
+        listDependencyClasses();
+    }
+
+    private static void exerciseLanguage() {
+        Function<Integer, Integer> square = x -> x * x;
+        Supplier<String> supplier = () -> "value";
+        BiFunction<Integer, Integer, Integer> add = Integer::sum;
+        Predicate<String> empty = String::isEmpty;
+        Runnable runnable = () -> sink.append(supplier.get());
+        runnable.run();
+        sink.append(square.apply(7)).append(add.apply(1, 2)).append(empty.test(""));
+        Optional<String> optional = Optional.of("x").map(String::toUpperCase).filter(s -> !s.isEmpty());
+        sink.append(optional.orElse("none"));
+        try {
+            Object value = List.of(1).get(2);
+            sink.append(value);
+        } catch (IndexOutOfBoundsException e) {
+            StringWriter trace = new StringWriter();
+            e.printStackTrace(new PrintWriter(trace));
+            sink.append(trace.toString().length());
+        }
+        try {
+            Integer.parseInt("not a number");
+        } catch (NumberFormatException e) {
+            sink.append(e.getMessage());
+        }
+        Object boxed = 42;
+        if (boxed instanceof Integer number) {
+            sink.append(number + 1);
+        }
+        String kind = switch (sink.length() % 3) {
+            case 0 -> "zero";
+            case 1 -> "one";
+            default -> "two";
+        };
+        sink.append(kind).append(Thread.currentThread().getName()).append(System.nanoTime() > 0);
+        sink.append(new Object().hashCode() != 0).append(Objects.hash(1, "a")).append(Objects.equals(kind, "one"));
+    }
+
+    private static void exerciseCollections() {
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            numbers.add((i * 37) % 101);
+        }
+        Collections.sort(numbers);
+        Collections.reverse(numbers);
+        Collections.shuffle(numbers, new Random(1));
+        numbers.sort(Comparator.comparing((Integer n) -> n % 10).thenComparing(Comparator.reverseOrder()));
+        int[] array = numbers.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(array);
+        sink.append(Arrays.toString(Arrays.copyOf(array, 5))).append(Arrays.binarySearch(array, 50));
+        Integer[] boxedArray = numbers.toArray(new Integer[0]);
+        Arrays.sort(boxedArray, Collections.reverseOrder());
+        sink.append(Arrays.asList(boxedArray).subList(0, 3));
+
+        Map<String, Integer> hashMap = new HashMap<>();
+        Map<String, Integer> treeMap = new TreeMap<>();
+        Map<String, Integer> linkedMap = new LinkedHashMap<>();
+        for (String word : "the quick brown fox jumps over the lazy dog".split(" ")) {
+            hashMap.merge(word, 1, Integer::sum);
+            treeMap.put(word, treeMap.getOrDefault(word, 0) + 1);
+            linkedMap.computeIfAbsent(word, w -> w.length());
+        }
+        for (Map.Entry<String, Integer> entry : treeMap.entrySet()) {
+            sink.append(entry.getKey()).append(entry.getValue());
+        }
+        Set<Integer> hashSet = new HashSet<>(numbers);
+        Set<Integer> treeSet = new TreeSet<>(numbers);
+        Set<String> linkedSet = new LinkedHashSet<>(hashMap.keySet());
+        Deque<Integer> deque = new ArrayDeque<>();
+        Queue<Integer> queue = new LinkedList<>();
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Comparator.reverseOrder());
+        Stack<Integer> stack = new Stack<>();
+        for (int i = 0; i < 10; i++) {
+            deque.push(i);
+            deque.offerLast(i);
+            queue.offer(i);
+            heap.add(i);
+            stack.push(i);
+        }
+        sink.append(hashSet.size()).append(treeSet.size()).append(linkedSet.size())
+            .append(deque.pop()).append(queue.poll()).append(heap.poll()).append(stack.pop());
+        Iterator<Integer> iterator = treeSet.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        List<List<Integer>> grid = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            grid.add(new ArrayList<>(Collections.nCopies(5, i)));
+        }
+        int[][] matrix = new int[5][5];
+        for (int[] row : matrix) {
+            Arrays.fill(row, 1);
+        }
+        sink.append(grid.get(4).get(4)).append(Arrays.deepToString(matrix).length());
+        sink.append(List.copyOf(numbers).size()).append(Map.of("a", 1).size()).append(Set.of(1, 2).size());
+        sink.append(Collections.unmodifiableList(numbers).size()).append(new Vector<>(numbers).size());
+        sink.append(new EnumMap<>(DayOfWeek.class).size()).append(EnumSet.allOf(Month.class).size());
+
+        Map<Boolean, List<Integer>> partitioned = numbers.stream().collect(Collectors.partitioningBy(n -> n > 50));
+        Map<Integer, Long> grouped = numbers.stream().collect(Collectors.groupingBy(n -> n % 5, Collectors.counting()));
+        String joined = numbers.stream().limit(10).map(String::valueOf).collect(Collectors.joining(", ", "[", "]"));
+        IntSummaryStatistics statistics = numbers.stream().mapToInt(Integer::intValue).summaryStatistics();
+        double average = IntStream.rangeClosed(1, 100).average().orElse(0);
+        List<String> sorted = Stream.of("b", "a", "c").sorted().collect(Collectors.toList());
+        Map<String, Integer> toMap = Stream.of("a", "bb").collect(Collectors.toMap(s -> s, String::length));
+        long distinct = numbers.parallelStream().distinct().count();
+        int reduced = numbers.stream().reduce(0, Integer::sum);
+        List<Integer> flat = grid.stream().flatMap(List::stream).collect(Collectors.toList());
+        sink.append(partitioned.size()).append(grouped).append(joined).append(statistics.getMax())
+            .append(average).append(sorted).append(toMap).append(distinct).append(reduced).append(flat.size())
+            .append(Stream.iterate(1, x -> x * 2).limit(10).anyMatch(x -> x > 100))
+            .append(DoubleStream.of(1.5, 2.5).sum()).append(LongStream.range(0, 10).boxed().toList());
+    }
+
+    private static void exerciseText() throws IOException {
+        String text = String.format("%d %s %.2f %5s %-5s %x %c %b %e%n", 1, "two", 3.14159, "r", "l", 255, 'c', true, 1e9);
+        sink.append(text).append(String.join("-", "a", "b")).append("abc".repeat(2)).append("  trim  ".strip())
+            .append("Hello".chars().sum()).append("a,b,,c".split(",").length).append("Text".toLowerCase())
+            .append("x".compareTo("y")).append("abc".contains("b")).append("abc".replace('a', 'z'))
+            .append("abc".substring(1)).append("abc".indexOf('c')).append(String.valueOf(new char[] {'h', 'i'}))
+            .append("multi\nline".lines().count()).append("  ".isBlank()).append("%s=%d".formatted("k", 1));
+        StringBuilder builder = new StringBuilder();
+        builder.append(1).append('c').append(2.5).append(true).insert(0, "start").reverse().setLength(3);
+        sink.append(builder).append(new StringJoiner(",").add("x").add("y"));
+        System.out.printf("%s%n", builder);
+
+        Pattern pattern = Pattern.compile("(\\w+)@(\\w+)\\.com");
+        Matcher matcher = pattern.matcher("alice@example.com, bob@test.com");
+        while (matcher.find()) {
+            sink.append(matcher.group(1)).append(matcher.start());
+        }
+        sink.append("a1b2c3".replaceAll("\\d", "#")).append("x-y_z".matches("[a-z_-]+"));
+
+        Scanner scanner = new Scanner("3\n1 2 3\nhello world\n4.5\n");
+        int count = scanner.nextInt();
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += scanner.nextLong();
+        }
+        scanner.nextLine();
+        sink.append(sum).append(scanner.nextLine()).append(scanner.nextDouble()).append(scanner.hasNext());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        sink.append(reader.readLine());
+        StringTokenizer tokenizer = new StringTokenizer("a b c");
+        while (tokenizer.hasMoreTokens()) {
+            sink.append(tokenizer.nextToken());
+        }
+        sink.append(Base64.getEncoder().encodeToString("text".getBytes(StandardCharsets.UTF_8)))
+            .append(UUID.nameUUIDFromBytes(new byte[] {1}).toString().length())
+            .append(URLEncoder.encode("a b", StandardCharsets.UTF_8));
+    }
+
+    private static void exerciseNumbersAndTime() {
+        BigInteger factorial = BigInteger.ONE;
+        for (int i = 2; i <= 30; i++) {
+            factorial = factorial.multiply(BigInteger.valueOf(i));
+        }
+        BigDecimal price = new BigDecimal("19.99").multiply(BigDecimal.valueOf(3)).setScale(1, RoundingMode.HALF_UP);
+        sink.append(factorial.mod(BigInteger.TEN)).append(price).append(factorial.isProbablePrime(5))
+            .append(Math.sqrt(2)).append(Math.pow(2, 10)).append(Math.abs(-3)).append(Math.max(1, 2))
+            .append(Math.floorMod(-7, 3)).append(Math.round(2.5)).append((int) Math.ceil(1.2))
+            .append(Double.parseDouble("1.5")).append(Long.parseLong("9")).append(Integer.toBinaryString(10))
+            .append(Integer.MAX_VALUE).append(Long.MIN_VALUE).append(Character.isDigit('1'))
+            .append(Character.toUpperCase('a')).append(Integer.valueOf(5).compareTo(6)).append(Double.compare(1, 2))
+            .append(Integer.bitCount(255)).append(Long.toHexString(255)).append(Float.parseFloat("1.0"));
+        Random random = new Random(42);
+        sink.append(random.nextInt(100)).append(random.nextDouble()).append(ThreadLocalRandom.current().nextInt(1, 2));
+
+        LocalDate date = LocalDate.of(2024, 2, 29).plusDays(1);
+        LocalDateTime dateTime = LocalDateTime.of(2024, 1, 1, 12, 30).plusHours(3);
+        Duration duration = Duration.ofMinutes(90);
+        sink.append(date).append(dateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")))
+            .append(duration.toHours()).append(Period.between(date, date.plusMonths(2)).getMonths())
+            .append(date.getDayOfWeek()).append(Instant.ofEpochMilli(0)).append(LocalTime.NOON)
+            .append(ZonedDateTime.of(dateTime, ZoneId.of("UTC")).toEpochSecond())
+            .append(LocalDate.parse("2024-01-15").isLeapYear()).append(System.currentTimeMillis() > 0);
+    }
+
+    private static void exerciseConcurrency() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> future = executor.submit(() -> 21 * 2);
+            List<Callable<String>> tasks = List.of(() -> "a", () -> "b");
+            for (Future<String> result : executor.invokeAll(tasks)) {
+                sink.append(result.get());
+            }
+            sink.append(future.get(1, TimeUnit.SECONDS));
+            CompletableFuture<String> completable = CompletableFuture.supplyAsync(() -> "async", executor)
+                .thenApply(String::toUpperCase).thenCombine(CompletableFuture.completedFuture("!"), String::concat);
+            sink.append(completable.get());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        ConcurrentHashMap<String, Integer> concurrentMap = new ConcurrentHashMap<>();
+        java.util.concurrent.atomic.AtomicInteger counter = new java.util.concurrent.atomic.AtomicInteger();
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                concurrentMap.merge("k", 1, Integer::sum);
+                counter.incrementAndGet();
+            }
+        });
+        thread.start();
+        thread.join();
+        Object lock = new Object();
+        synchronized (lock) {
+            sink.append(concurrentMap.get("k")).append(counter.get());
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        new Thread(latch::countDown).start();
+        latch.await(1, TimeUnit.SECONDS);
+        BlockingQueue<Integer> blockingQueue = new LinkedBlockingQueue<>();
+        blockingQueue.offer(1);
+        sink.append(blockingQueue.take()).append(new CopyOnWriteArrayList<>(List.of(1)).size());
+        Thread.sleep(1);
+    }
+
+    private static void exerciseIo() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream print = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            print.println("line");
+        }
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeInt(1);
+        }
+        try (BufferedReader reader = new BufferedReader(new StringReader("a\nb"))) {
+            sink.append(reader.lines().count());
+        }
+        File temp = File.createTempFile("cds-training", ".txt");
+        try {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp, StandardCharsets.UTF_8))) {
+                writer.write("hello");
+                writer.newLine();
+            }
+            sink.append(java.nio.file.Files.readAllLines(temp.toPath()).size())
+                .append(java.nio.file.Files.readString(temp.toPath()).length())
+                .append(java.nio.file.Paths.get(temp.getPath()).getFileName() != null);
+        } finally {
+            temp.delete();
+        }
+        sink.append(bytes.size());
+        System.err.println("stderr");
+    }
+
+    /**
+     * 의존성 JAR의 클래스를 하나씩 읽어 상위 타입부터 출력한다. 읽을 수 없는 클래스(선택적 의존성이 없는 경우 등)는 건너뛴다.
+     */
+    private static void listDependencyClasses() throws IOException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (!(loader instanceof URLClassLoader)) {
+            return;
+        }
+        Set<Class<?>> emitted = new HashSet<>();
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+            File jarFile;
+            try {
+                jarFile = new File(url.toURI());
+            } catch (URISyntaxException e) {
+                continue;
+            }
+            if (!jarFile.isFile()) {
+                continue;
+            }
+            try (JarFile jar = new JarFile(jarFile)) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (!name.endsWith(".class") || name.startsWith("META-INF/") || name.endsWith("module-info.class")
+                            || name.endsWith("package-info.class")) {
+                        continue;
+                    }
+                    try {
+                        Class<?> type = Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false, loader);
+                        emit(type, loader, emitted);
+                    } catch (Throwable e) {
+                        // 선택적 의존성이 빠진 클래스는 아카이브에 넣지 않는다
+                    }
+                }
+            }
+        }
+    }
+
+    private static void emit(Class<?> type, ClassLoader loader, Set<Class<?>> emitted) {
+        if (type.getClassLoader() != loader || !emitted.add(type)) {
+            return;
+        }
+        Class<?> superclass = type.getSuperclass();
+        if (superclass != null) {
+            emit(superclass, loader, emitted);
+        }
+        for (Class<?> implemented : type.getInterfaces()) {
+            emit(implemented, loader, emitted);
+        }
+        String source;
+        try {
+            source = new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        } catch (Exception e) {
+            return;
+        }
+        String interfaces = Arrays.stream(type.getInterfaces()).map(Class::getName).collect(Collectors.joining(","));
+        System.out.println("@cds " + type.getName() + " "
+            + (superclass == null ? "-" : superclass.getName()) + " "
+            + (interfaces.isEmpty() ? "-" : interfaces) + " " + source);
+    }
+}
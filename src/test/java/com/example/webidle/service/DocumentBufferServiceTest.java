@@ -0,0 +1,213 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.FileEditRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DocumentBufferServiceTest {
+    private static final String SESSION = "s1";
+    private static final String TOPIC = "/topic/file/" + SESSION;
+
+    @TempDir
+    Path workspace;
+
+    private SimpMessagingTemplate messagingTemplate;
+    private WorkspaceFileService workspaceFileService;
+    private DocumentBufferService service;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        workspaceFileService = new WorkspaceFileService(workspace.toString());
+        // 예약된 기록이 테스트 중에 끼어들지 않도록 flushAll로만 디스크에 쓴다
+        service = new DocumentBufferService(messagingTemplate, workspaceFileService, 60_000, 600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void appliesEditsInOrderAndFlushesOnce() throws IOException {
+        writeDisk("hello world");
+
+        assertEquals("ack", lastResponse(edit(0, edit(0, 5, "HELLO"), edit(11, 0, "!"))).get("type"));
+        assertEquals("ack", lastResponse(edit(1, edit(5, 1, ""))).get("type"));
+        assertEquals(2L, lastResponse().get("version"));
+
+        service.flushAll();
+        assertEquals("HELLOworld!", readDisk());
+    }
+
+    @Test
+    void staleBaseVersionAsksForResync() throws IOException {
+        writeDisk("abc");
+        edit(0, edit(0, 1, "x"));
+
+        Map<String, Object> response = lastResponse(edit(0, edit(0, 1, "y")));
+
+        assertEquals("resync", response.get("type"));
+        assertEquals(1L, response.get("version"));
+        service.flushAll();
+        assertEquals("xbc", readDisk());
+    }
+
+    @Test
+    void rejectsWholeBatchWhenAnyRangeIsOutOfBounds() throws IOException {
+        writeDisk("abcdef");
+
+        // 첫 변경으로 길이가 3이 된 뒤 두 번째 변경은 범위를 넘는다
+        Map<String, Object> response = lastResponse(edit(0, edit(0, 3, ""), edit(2, 2, "zz")));
+
+        assertEquals("resync", response.get("type"));
+        assertEquals(0L, response.get("version"));
+        // offset + length가 int 범위를 넘어 음수가 되는 경우
+        assertEquals("resync", lastResponse(edit(0, edit(1, Integer.MAX_VALUE, ""))).get("type"));
+        assertEquals("ack", lastResponse(edit(0, edit(6, 0, "g"))).get("type"));
+        service.flushAll();
+        assertEquals("abcdefg", readDisk());
+    }
+
+    @Test
+    void rejectsNegativeOffsetsAndLengths() throws IOException {
+        writeDisk("abc");
+
+        assertEquals("resync", lastResponse(edit(0, edit(-1, 1, "x"))).get("type"));
+        assertEquals("resync", lastResponse(edit(0, edit(1, -1, "x"))).get("type"));
+        assertEquals("resync", lastResponse(edit(0)).get("type"));
+    }
+
+    @Test
+    void missingFileAsksForFullContent() {
+        assertEquals("resync", lastResponse(edit(0, edit(0, 0, "x"))).get("type"));
+
+        FileEditRequest full = new FileEditRequest();
+        full.setPath("Main.java");
+        full.setContent("class Main {}");
+        service.applyEdits(SESSION, full);
+
+        assertEquals("ack", lastResponse().get("type"));
+        assertEquals(1L, lastResponse().get("version"));
+    }
+
+    @Test
+    void externalChangePublishesConflictWithDiskEtag() throws IOException {
+        writeDisk("abc");
+        edit(0, edit(3, 0, "d"));
+        Files.writeString(workspace.resolve("Main.java"), "changed elsewhere");
+        String diskEtag = workspaceFileService.etag(workspace.resolve("Main.java"));
+
+        service.flushAll();
+
+        Map<String, Object> conflict = lastResponse();
+        assertEquals("conflict", conflict.get("type"));
+        assertEquals("Main.java", conflict.get("path"));
+        assertEquals(diskEtag, conflict.get("etag"));
+        assertEquals("changed elsewhere", readDisk());
+        // 다시 불러오거나 덮어쓰기 전까지는 변경을 받지 않는다
+        assertEquals("conflict", lastResponse(edit(1, edit(0, 0, "x"))).get("type"));
+    }
+
+    @Test
+    void fullContentAfterConflictNeedsReloadedEtag() throws IOException {
+        writeDisk("abc");
+        edit(0, edit(3, 0, "d"));
+        Files.writeString(workspace.resolve("Main.java"), "changed elsewhere");
+        service.flushAll();
+        String diskEtag = (String) lastResponse().get("etag");
+
+        // 충돌 뒤 편집기의 내용을 그대로 다시 보내도 디스크의 변경을 덮어쓰지 않는다
+        assertEquals("conflict", lastResponse(full("abcd", null, false)).get("type"));
+        assertEquals("conflict", lastResponse(full("abcd", "\"stale\"", false)).get("type"));
+        service.flushAll();
+        assertEquals("changed elsewhere", readDisk());
+
+        // 디스크 내용을 다시 불러와 고친 내용은 받는다
+        assertEquals("ack", lastResponse(full("changed elsewhere!", diskEtag, false)).get("type"));
+        service.flushAll();
+        assertEquals("changed elsewhere!", readDisk());
+    }
+
+    @Test
+    void forcedFullContentOverwritesExternalChange() throws IOException {
+        writeDisk("abc");
+        edit(0, edit(3, 0, "d"));
+        Files.writeString(workspace.resolve("Main.java"), "changed elsewhere");
+        service.flushAll();
+
+        assertEquals("ack", lastResponse(full("abcd", null, true)).get("type"));
+        service.flushAll();
+        assertEquals("abcd", readDisk());
+    }
+
+    private List<Map<String, Object>> edit(long baseVersion, FileEditRequest.Edit... edits) {
+        FileEditRequest request = new FileEditRequest();
+        request.setPath("Main.java");
+        request.setBaseVersion(baseVersion);
+        request.setEdits(edits.length == 0 ? null : List.of(edits));
+        service.applyEdits(SESSION, request);
+        return responses();
+    }
+
+    private List<Map<String, Object>> full(String content, String etag, boolean force) {
+        FileEditRequest request = new FileEditRequest();
+        request.setPath("Main.java");
+        request.setContent(content);
+        request.setEtag(etag);
+        request.setForce(force);
+        service.applyEdits(SESSION, request);
+        return responses();
+    }
+
+    private static FileEditRequest.Edit edit(int offset, int length, String text) {
+        FileEditRequest.Edit edit = new FileEditRequest.Edit();
+        edit.setOffset(offset);
+        edit.setLength(length);
+        edit.setText(text);
+        return edit;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> responses() {
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(eq(TOPIC), payloads.capture());
+        List<Map<String, Object>> responses = new ArrayList<>();
+        for (Object payload : payloads.getAllValues()) {
+            responses.add((Map<String, Object>) payload);
+        }
+        return responses;
+    }
+
+    private Map<String, Object> lastResponse() {
+        return lastResponse(responses());
+    }
+
+    private static Map<String, Object> lastResponse(List<Map<String, Object>> responses) {
+        return responses.get(responses.size() - 1);
+    }
+
+    private void writeDisk(String content) throws IOException {
+        Files.writeString(workspace.resolve("Main.java"), content, StandardCharsets.UTF_8);
+    }
+
+    private String readDisk() throws IOException {
+        return Files.readString(workspace.resolve("Main.java"), StandardCharsets.UTF_8);
+    }
+}
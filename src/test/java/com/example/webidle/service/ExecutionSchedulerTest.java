@@ -0,0 +1,50 @@
+package com.example.webidle.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ExecutionSchedulerTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ExecutionScheduler(mock(SimpMessagingTemplate.class), new SimpleMeterRegistry(), 4, 32, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void limitsJobsPerSession() {
+        scheduler.submit("s1", this::block);
+        scheduler.submit("s1", this::block);
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit("s1", this::block));
+        scheduler.submit("s2", this::block);
+    }
+
+    @Test
+    void requestsWithoutSessionDoNotShareSessionLimit() {
+        for (int i = 0; i < 3; i++) {
+            assertDoesNotThrow(() -> scheduler.submit(null, this::block));
+        }
+    }
+
+    private Object block() throws InterruptedException {
+        release.await();
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.webidle.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaSourceCompilerTest {
+    private JavaSourceCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        compiler = new JavaSourceCompiler(1, 30000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        compiler.shutdown();
+    }
+
+    @Test
+    void cancelledAnalysisThrowsCancellation() {
+        // javac가 감싼 예외가 아니라 CancellationException으로 끝나야 진단 서비스가 조용히 넘어간다
+        assertThrows(CancellationException.class, () -> compiler.analyze("Main",
+            "public class Main { }", Collections.emptyList(), () -> true));
+    }
+
+    @Test
+    void analysisReportsErrors() {
+        assertFalse(compiler.analyze("Main", "public class Main { int x = \"a\"; }", Collections.emptyList(),
+            () -> false).isEmpty());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.webidle.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectCompilerTest {
+    @TempDir
+    Path workspace;
+
+    @TempDir
+    Path output;
+
+    private ProjectCompiler compiler;
+    private Path project;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        compiler = new ProjectCompiler(new JavaSourceCompiler(1, 30000), workspace.toString(), output.toString(), 1);
+        project = Files.createDirectory(workspace.resolve("app"));
+    }
+
+    @Test
+    void recompilesCallerOfInheritedMethodWhenSuperclassChanges() throws IOException {
+        write("B.java", "public class B { public int m() { return 1; } }");
+        write("A.java", "public class A extends B { }");
+        write("C.java", "public class C { int call(A a) { return a.m(); } }");
+        assertTrue(build().getCompilation().isSuccess());
+
+        write("B.java", "public class B { public String m() { return \"1\"; } }");
+        ProjectCompiler.BuildResult result = build();
+
+        assertFalse(result.getCompilation().isSuccess());
+        assertTrue(result.getRecompiled().contains("C.java"), result.getRecompiled().toString());
+        assertTrue(errorSources(result).contains("C.java"));
+    }
+
+    @Test
+    void recompilesIndirectSubclassWhenSuperclassAddsAbstractMethod() throws IOException {
+        write("B.java", "public abstract class B { }");
+        write("A.java", "public abstract class A extends B { }");
+        write("D.java", "public class D extends A { }");
+        assertTrue(build().getCompilation().isSuccess());
+
+        // A의 API는 그대로이지만 D는 새 추상 메서드를 구현하지 않으므로 다시 검사해야 한다
+        write("B.java", "public abstract class B { public abstract void m(); }");
+        ProjectCompiler.BuildResult result = build();
+
+        assertFalse(result.getCompilation().isSuccess());
+        assertTrue(result.getRecompiled().contains("D.java"), result.getRecompiled().toString());
+        assertTrue(errorSources(result).contains("D.java"));
+    }
+
+    @Test
+    void bodyOnlyChangeDoesNotRecompileSubtypes() throws IOException {
+        write("B.java", "public class B { public int m() { return 1; } }");
+        write("A.java", "public class A extends B { }");
+        write("C.java", "public class C { int call(A a) { return a.m(); } }");
+        assertTrue(build().getCompilation().isSuccess());
+
+        write("B.java", "public class B { public int m() { return 2; } }");
+        ProjectCompiler.BuildResult result = build();
+
+        assertTrue(result.getCompilation().isSuccess());
+        assertEquals(List.of("B.java"), result.getRecompiled());
+    }
+
+    @Test
+    void evictsLeastRecentlyBuiltProjectOutput() throws IOException {
+        write("Main.java", "public class Main { }");
+        assertTrue(build().getCompilation().isSuccess());
+        Path other = Files.createDirectory(workspace.resolve("other"));
+        Files.writeString(other.resolve("Main.java"), "public class Main { }");
+
+        assertTrue(compiler.build(other, Collections.emptyList()).getCompilation().isSuccess());
+
+        try (Stream<Path> outputs = Files.list(output)) {
+            assertEquals(1, outputs.count());
+        }
+        // 지운 프로젝트는 다음 빌드에서 처음부터 다시 컴파일한다
+        assertEquals(List.of("Main.java"), build().getRecompiled());
+    }
+
+    private ProjectCompiler.BuildResult build() throws IOException {
+        return compiler.build(project, Collections.emptyList());
+    }
+
+    private void write(String name, String source) throws IOException {
+        Files.writeString(project.resolve(name), source);
+    }
+
+    private static List<String> errorSources(ProjectCompiler.BuildResult result) {
+        return result.getCompilation().getDiagnostics().stream()
+            .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getSource() != null)
+            .map(Diagnostic::getSource)
+            .map(JavaFileObject::getName)
+            .map(name -> Path.of(name).getFileName().toString())
+            .toList();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.webidle.service;
+
+import com.example.webidle.model.FileNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceTreeCacheTest {
+    @TempDir
+    Path workspace;
+
+    private WorkspaceTreeCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new WorkspaceTreeCache(workspace.toString(), 8, 1000, 10000);
+        cache.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void savingExistingFileKeepsEtag() throws IOException, InterruptedException {
+        Files.writeString(workspace.resolve("Main.java"), "class Main {}");
+        String etag = cache.list("", 1, 0, 100).getEtag();
+        long loads = (long) cache.getStats().get("directoryLoads");
+
+        new WorkspaceFileService(workspace.toString()).save("Main.java",
+            new ByteArrayInputStream("class Main { }".getBytes(StandardCharsets.UTF_8)), null);
+
+        // 감시 스레드가 교체를 알아채 디렉토리를 다시 읽을 때까지 기다린다
+        String reloadedEtag = cache.list("", 1, 0, 100).getEtag();
+        for (int i = 0; i < 100 && (long) cache.getStats().get("directoryLoads") == loads; i++) {
+            Thread.sleep(50);
+            reloadedEtag = cache.list("", 1, 0, 100).getEtag();
+        }
+        assertTrue((long) cache.getStats().get("directoryLoads") > loads);
+        assertEquals(etag, reloadedEtag);
+    }
+
+    @Test
+    void hidesSaveTempFilesAndChangesEtagOnNewEntry() throws IOException {
+        Files.writeString(workspace.resolve("Main.java"), "class Main {}");
+        String etag = cache.list("", 1, 0, 100).getEtag();
+        Files.createTempFile(workspace, ".Main.java", ".tmp");
+        Files.writeString(workspace.resolve("Other.java"), "class Other {}");
+        // 감시 스레드가 캐시를 버리기 전이라도 다시 읽은 목록으로 비교하도록 새 캐시에서 읽는다
+        WorkspaceTreeCache fresh = new WorkspaceTreeCache(workspace.toString(), 8, 1000, 10000);
+        fresh.start();
+        try {
+            WorkspaceTreeCache.TreeSnapshot snapshot = fresh.list("", 1, 0, 100);
+            assertEquals(2, snapshot.getNode().getChildren().size());
+            assertTrue(snapshot.getNode().getChildren().stream().map(FileNode::getName)
+                .noneMatch(name -> name.endsWith(".tmp")));
+            assertNotEquals(etag, snapshot.getEtag());
+        } finally {
+            fresh.shutdown();
+        }
+    }
+}